@@ -0,0 +1,169 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Postings;
+
+import java.util.Arrays;
+
+/**
+ * The positions of the pairs of frequent words next to each other in a document (bigrams), e.g. "to be".
+ *
+ * A phrase made only of frequent words, e.g. "to be or not to be", has no rare word to start the search from:
+ * every occurrence of its rarest word is a candidate. A pair of frequent words is usually much rarer than
+ * either word, so its positions make far fewer candidates (see HitCursor.phrase).
+ *
+ * A word is frequent if it has at least minCount occurrences. Only pairs of two frequent words are kept,
+ * so the index stays small: the rest of the phrases have a rare word to start from.
+ * The frequent words are numbered densely, and a pair is the numbers of its two words in one long.
+ * The pairs are sorted, so a pair is found by binary search, and the positions of each pair are sorted.
+ *
+ * Memory usage: O(t + p) where t is the number of distinct words and p is the number of positions of the pairs
+ */
+public class BigramIndex {
+
+    // By default a word is frequent if it is at least one in this many words of the document
+    static final int FREQUENT_RATIO = 1000;
+
+    private final int minCount;         // the fewest occurrences of a frequent word
+    private final int[] denseIds;       // the dense number of each frequent word by term id. -1 for other words
+    private final long[] pairs;         // each pair found in the document: the dense numbers of its words, sorted
+    private final int[] offsets;        // the index in starts of the first position of each pair, and the size
+    private final int[] starts;         // the positions of the first words of the pairs, grouped by pair
+
+    private BigramIndex(int minCount, int[] denseIds, long[] pairs, int[] offsets, int[] starts) {
+        this.minCount = minCount;
+        this.denseIds = denseIds;
+        this.pairs = pairs;
+        this.offsets = offsets;
+        this.starts = starts;
+    }
+
+    /**
+     * Index the pairs of frequent words of a document
+     *
+     * Run-time: O(t + p log p) where t is the number of distinct words and p is the number of positions
+     *           of the pairs, at most the number of words in the document.
+     *           The positions are grouped by their first word, then each group is sorted
+     *
+     * @param tokens the id of the word at each position of the document
+     * @param postings the occurrences of the words
+     * @param minCount the fewest occurrences of a frequent word, at least 1
+     * @return the index
+     * @throws IllegalArgumentException if minCount is less than 1
+     */
+    static BigramIndex build(int[] tokens, Postings postings, int minCount) throws IllegalArgumentException {
+        if (minCount < 1) {
+            throw new IllegalArgumentException("A frequent word needs at least one occurrence: " + minCount);
+        }
+        int[] denseIds = new int[postings.getTermCount()];
+        int frequentCount = 0;
+        for (int termId = 0; termId < denseIds.length; termId++) {
+            denseIds[termId] = (postings.count(termId) >= minCount) ? frequentCount++ : -1;
+        }
+
+        // Group the positions of the pairs by their first word, then sort each group by second word and position
+        int[] groups = new int[frequentCount + 1];
+        int size = 0;
+        for (int p = 0; p + 1 < tokens.length; p++) {
+            if (denseIds[tokens[p]] >= 0 && denseIds[tokens[p + 1]] >= 0) {
+                groups[denseIds[tokens[p]] + 1]++;
+                size++;
+            }
+        }
+        for (int i = 0; i < frequentCount; i++) {
+            groups[i + 1] += groups[i];
+        }
+        long[] sorted = new long[size];
+        int[] next = Arrays.copyOf(groups, frequentCount);
+        for (int p = 0; p + 1 < tokens.length; p++) {
+            if (denseIds[tokens[p]] >= 0 && denseIds[tokens[p + 1]] >= 0) {
+                sorted[next[denseIds[tokens[p]]]++] = ((long) denseIds[tokens[p + 1]] << 32) | p;
+            }
+        }
+        long[] pairs = new long[size];
+        int[] offsets = new int[size + 1];
+        int[] starts = new int[size];
+        int pairCount = 0;
+        for (int first = 0; first < frequentCount; first++) {
+            Arrays.sort(sorted, groups[first], groups[first + 1]);
+            for (int i = groups[first]; i < groups[first + 1]; i++) {
+                long pair = ((long) first << 32) | (sorted[i] >>> 32);
+                if (pairCount == 0 || pairs[pairCount - 1] != pair) {
+                    pairs[pairCount] = pair;
+                    offsets[pairCount++] = i;
+                }
+                starts[i] = (int) sorted[i];
+            }
+        }
+        offsets[pairCount] = size;
+        return new BigramIndex(minCount, denseIds, Arrays.copyOf(pairs, pairCount),
+                Arrays.copyOf(offsets, pairCount + 1), starts);
+    }
+
+    /**
+     * @param documentSize the number of words in the document
+     * @return the fewest occurrences of a frequent word by default
+     */
+    static int defaultMinCount(int documentSize) {
+        return Math.max(1, documentSize / FREQUENT_RATIO);
+    }
+
+    /**
+     * @param termId the id of a word
+     * @return True if the word is frequent, so that its pairs with other frequent words are indexed
+     */
+    boolean isFrequent(int termId) {
+        return denseIds[termId] >= 0;
+    }
+
+    /**
+     * Find a pair of frequent words
+     *
+     * Run-time: O(log p) where p is the number of pairs found in the document
+     *
+     * @param firstTermId the id of the first word, a frequent word
+     * @param secondTermId the id of the second word, a frequent word
+     * @return the index of the pair, to give to count and start. -1 if the words are never next to each other
+     */
+    int find(int firstTermId, int secondTermId) {
+        int index = Arrays.binarySearch(pairs, ((long) denseIds[firstTermId] << 32) | denseIds[secondTermId]);
+        return (index < 0) ? -1 : index;
+    }
+
+    /**
+     * @param pair the index of a pair, see find
+     * @return the number of times the words are next to each other
+     */
+    int count(int pair) {
+        return offsets[pair + 1] - offsets[pair];
+    }
+
+    /**
+     * @param pair the index of a pair, see find
+     * @param i the index of an occurrence of the pair, less than count(pair)
+     * @return the position of the first word of the i-th occurrence. The positions increase with i
+     */
+    int start(int pair, int i) {
+        return starts[offsets[pair] + i];
+    }
+
+    /**
+     * @return the fewest occurrences of a frequent word
+     */
+    public int getMinCount() {
+        return minCount;
+    }
+
+    /**
+     * @return the number of pairs of frequent words found in the document
+     */
+    public int getPairCount() {
+        return pairs.length;
+    }
+
+    /**
+     * @return the number of positions of all pairs
+     */
+    public int getSize() {
+        return starts.length;
+    }
+}
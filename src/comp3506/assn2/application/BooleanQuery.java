@@ -0,0 +1,324 @@
+package comp3506.assn2.application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A boolean query over words, e.g. "(king AND (crown OR throne)) AND NOT fool".
+ *
+ * Grammar, where AND binds tighter than OR and two terms next to each other are joined by AND:
+ *      query := and ("OR" and)*
+ *      and   := unary (["AND"] unary)*
+ *      unary := "NOT" unary | "(" query ")" | word
+ * The operators must be in upper case, so that "and", "or" and "not" can still be searched as words.
+ *
+ * A query is compiled for a scope (see QueryScope) into a tree of iterators (see MatchIterator).
+ * The words of an AND are evaluated from the rarest, a NOT inside an AND only checks the ids the AND keeps,
+ * and an AND with a word that is not in the document is replaced by an empty iterator without reading any postings.
+ * The fixed searches (wordsOnLine, simpleAndSearch, ...) are built as queries by of(), so all searches share
+ * the same evaluation.
+ *
+ * Memory usage: O(n) where n is the number of words and operators
+ */
+public class BooleanQuery {
+
+    /* --- The kinds of nodes --- */
+    private static final int TERM = 0;
+    private static final int AND = TextTrie.AND;
+    private static final int OR = TextTrie.OR;
+    private static final int NOT = TextTrie.NOT;
+
+    private final int kind;                 // TERM, AND, OR or NOT
+    private final String word;              // the word of a TERM. Null for the other kinds
+    private final BooleanQuery[] children;  // the sub queries of AND, OR and NOT
+
+    private BooleanQuery(int kind, String word, BooleanQuery[] children) {
+        this.kind = kind;
+        this.word = word;
+        this.children = children;
+    }
+
+    /* ----------------------- Building ---------------- */
+
+    /**
+     * @param word a word to search for
+     * @return the query matching the word
+     */
+    public static BooleanQuery term(String word) {
+        return new BooleanQuery(TERM, word, null);
+    }
+
+    /**
+     * @param queries sub queries
+     * @return the query matching all of the sub queries
+     */
+    public static BooleanQuery and(BooleanQuery... queries) {
+        return new BooleanQuery(AND, null, queries.clone());
+    }
+
+    /**
+     * @param queries sub queries
+     * @return the query matching at least one of the sub queries
+     */
+    public static BooleanQuery or(BooleanQuery... queries) {
+        return new BooleanQuery(OR, null, queries.clone());
+    }
+
+    /**
+     * @param query a sub query
+     * @return the query matching what the sub query does not
+     */
+    public static BooleanQuery not(BooleanQuery query) {
+        return new BooleanQuery(NOT, null, new BooleanQuery[] {query});
+    }
+
+    /**
+     * Build the query of a fixed search
+     *
+     * @param wordsRequired the required words, or the alternatives in OR mode
+     * @param otherWords the excluded words in NOT mode or the "or words" in COMPOUND mode. May be null or empty
+     * @param mode AND, OR, NOT or COMPOUND (see TextTrie)
+     * @return AND: all required words. OR: any required word.
+     *         NOT: all required words and none of the other words.
+     *         COMPOUND: all required words and any of the other words
+     */
+    static BooleanQuery of(String[] wordsRequired, String[] otherWords, int mode) {
+        BooleanQuery required = terms((mode == OR) ? OR : AND, wordsRequired);
+        if ((mode != NOT && mode != TextTrie.COMPOUND) || otherWords == null || otherWords.length == 0) {
+            return required;
+        }
+        BooleanQuery others = terms(OR, otherWords);
+        return and(required, (mode == NOT) ? not(others) : others);
+    }
+
+    /**
+     * @return the query joining the words with an operator
+     */
+    private static BooleanQuery terms(int kind, String[] words) {
+        BooleanQuery[] children = new BooleanQuery[words.length];
+        for (int i = 0; i < words.length; i++) {
+            children[i] = term(words[i]);
+        }
+        return new BooleanQuery(kind, null, children);
+    }
+
+    /* ----------------------- Parsing ---------------- */
+
+    /**
+     * Parse a query
+     *
+     * Run-time: O(n) where n is the length of the query
+     *
+     * @param query the text of the query, e.g. "(king AND (crown OR throne)) AND NOT fool"
+     * @return the parsed query
+     * @throws IllegalArgumentException if query is null, has no word or is not in the grammar
+     */
+    public static BooleanQuery parse(String query) throws IllegalArgumentException {
+        if (query == null) {
+            throw new IllegalArgumentException("The query is null");
+        }
+        Parser parser = new Parser(query);
+        BooleanQuery result = parser.parseOr();
+        if (parser.peek() != null) {
+            throw new IllegalArgumentException("Unexpected \"" + parser.peek() + "\" in the query: " + query);
+        }
+        return result;
+    }
+
+    /**
+     * A recursive descent parser over the tokens of a query: words, operators and brackets
+     */
+    private static class Parser {
+
+        private final List<String> tokens = new ArrayList<>();  // the tokens of the query
+        private final String query;                             // the query, for the error messages
+        private int index;                                      // index of the next token
+
+        Parser(String query) {
+            this.query = query;
+            int start = -1;
+            for (int i = 0; i <= query.length(); i++) {
+                char c = (i < query.length()) ? query.charAt(i) : ' ';
+                boolean separator = Character.isWhitespace(c) || c == '(' || c == ')';
+                if (separator && start >= 0) {
+                    tokens.add(query.substring(start, i));
+                    start = -1;
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                } else if (!separator && start < 0) {
+                    start = i;
+                }
+            }
+        }
+
+        /**
+         * @return the next token without moving past it. Null at the end of the query
+         */
+        String peek() {
+            return (index < tokens.size()) ? tokens.get(index) : null;
+        }
+
+        BooleanQuery parseOr() {
+            List<BooleanQuery> children = new ArrayList<>();
+            children.add(parseAnd());
+            while ("OR".equals(peek())) {
+                index++;
+                children.add(parseAnd());
+            }
+            return (children.size() == 1) ? children.get(0) : or(children.toArray(new BooleanQuery[0]));
+        }
+
+        BooleanQuery parseAnd() {
+            List<BooleanQuery> children = new ArrayList<>();
+            children.add(parseUnary());
+            while (peek() != null && !peek().equals("OR") && !peek().equals(")")) {
+                if (peek().equals("AND")) {
+                    index++;
+                }
+                children.add(parseUnary());
+            }
+            return (children.size() == 1) ? children.get(0) : and(children.toArray(new BooleanQuery[0]));
+        }
+
+        BooleanQuery parseUnary() {
+            String token = peek();
+            if (token == null || token.equals(")") || token.equals("AND") || token.equals("OR")) {
+                throw new IllegalArgumentException("Expected a word at token " + (index + 1) + " of the query: "
+                        + query);
+            }
+            index++;
+            if (token.equals("NOT")) {
+                return not(parseUnary());
+            }
+            if (token.equals("(")) {
+                BooleanQuery inner = parseOr();
+                if (!")".equals(peek())) {
+                    throw new IllegalArgumentException("Missing \")\" in the query: " + query);
+                }
+                index++;
+                return inner;
+            }
+            return term(token);
+        }
+    }
+
+    /* ----------------------- Evaluating ---------------- */
+
+    /**
+     * Compile the query into iterators over the ids of a scope
+     *
+     * Run-time: O(n + w log w) plus a dictionary look-up for each word, where n is the number of nodes
+     *           and w is the largest number of sub queries of one node
+     *
+     * @param scope the scope to search
+     * @return an iterator over the matching ids, before the first one
+     */
+    MatchIterator compile(QueryScope scope) {
+        MatchIterator result = compileNode(scope);
+        return (result == null) ? scope.neutral() : result;
+    }
+
+    /**
+     * @return the iterator of this node. Null if it has no word but stop-words.
+     *         An iterator with cost 0 if it can match nothing
+     */
+    private MatchIterator compileNode(QueryScope scope) {
+        if (kind == TERM) {
+            return scope.term(word);
+        }
+        if (kind == NOT) {
+            MatchIterator excluded = children[0].compileNode(scope);
+            if (excluded == null) {
+                return null;
+            }
+            return (excluded.cost() == 0) ? scope.all() : new MatchIterator.AndNot(scope.all(), excluded);
+        }
+        List<MatchIterator> included = new ArrayList<>();
+        List<MatchIterator> excluded = new ArrayList<>();
+        int stopWords = 0;                  // the sub queries of only stop-words
+        boolean requiredStopWord = false;   // true if one of them is not inside a NOT
+        for (BooleanQuery child : children) {
+            // A NOT inside an AND is checked only against the ids of the other sub queries
+            boolean negated = kind == AND && child.kind == NOT;
+            MatchIterator iterator = (negated ? child.children[0] : child).compileNode(scope);
+            if (iterator == null) {
+                stopWords++;
+                requiredStopWord |= !negated;
+            } else if (negated) {
+                if (iterator.cost() != 0) {
+                    excluded.add(iterator);
+                }
+            } else if (iterator.cost() != 0) {
+                included.add(iterator);
+            } else if (kind == AND) {
+                // A required sub query matches nothing, so the AND does not either
+                return MatchIterator.empty();
+            }
+        }
+        if (kind == OR) {
+            if (included.isEmpty()) {
+                // Left out of the query like a stop-word if all of its words are stop-words
+                return (stopWords == children.length) ? null : MatchIterator.empty();
+            }
+            return (included.size() == 1) ? included.get(0)
+                    : new MatchIterator.Or(included.toArray(new MatchIterator[0]));
+        }
+        MatchIterator result;
+        if (!included.isEmpty()) {
+            result = (included.size() == 1) ? included.get(0)
+                    : new MatchIterator.And(included.toArray(new MatchIterator[0]));
+        } else if (stopWords == children.length) {
+            return null;
+        } else {
+            // Only NOT: take from every id, unless the required words were all stop-words
+            result = requiredStopWord ? scope.neutral() : scope.all();
+        }
+        if (!excluded.isEmpty()) {
+            result = new MatchIterator.AndNot(result, (excluded.size() == 1) ? excluded.get(0)
+                    : new MatchIterator.Or(excluded.toArray(new MatchIterator[0])));
+        }
+        return result;
+    }
+
+    /**
+     * @return the words that are not inside a NOT, in the order of the query.
+     *         These are the words whose occurrences a section search reports
+     */
+    public String[] getWords() {
+        List<String> words = new ArrayList<>();
+        addWords(words);
+        return words.toArray(new String[0]);
+    }
+
+    private void addWords(List<String> words) {
+        if (kind == TERM) {
+            words.add(word);
+        } else if (kind != NOT) {
+            for (BooleanQuery child : children) {
+                child.addWords(words);
+            }
+        }
+    }
+
+    /**
+     * @return the query with a bracket around each AND and OR, e.g. "(king AND (crown OR throne))"
+     */
+    @Override
+    public String toString() {
+        if (kind == TERM) {
+            return word;
+        }
+        if (kind == NOT) {
+            return "NOT " + children[0];
+        }
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < children.length; i++) {
+            if (i != 0) {
+                builder.append((kind == AND) ? " AND " : " OR ");
+            }
+            builder.append(children[i]);
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,734 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable trie compiled from a TextTrie into a double array.
+ *
+ * Every node of the trie is a state (an index into the arrays). The child of state s for a character c
+ * is the state t = base[s] + code(c), which is valid only if check[t] == s.
+ * A state that indicates the end of a word stores -(termId + 1) in base.
+ * Term ids are given in lexicographic order of the words, so the words below a state (e.g. all words having
+ * a prefix) have consecutive ids. Each state keeps the range of the ids of its sub tree, and the postings of
+ * a range are next to each other, so a prefix search reads one slice of the postings without visiting the sub tree.
+ *
+ * The occurrences are copied out of the leaf nodes into compressed postings, and the lines of each word
+ * into separate line postings for line searches, so the nodes of the original trie and its leaf nodes
+ * can be collected once the trie is compiled. The document is also kept as a stream of term ids
+ * (the tokens), indexed by the positions of the postings, so a phrase is checked by comparing ids,
+ * and the positions of the pairs of frequent words in the tokens are indexed to start phrases of
+ * frequent words from (see BigramIndex). Both are built on the first phrase search, so a document
+ * that is never searched for phrases does not pay for them.
+ *
+ * Memory usage: O(n + k) where n is the number of nodes in the original trie
+ *               and k is the number of occurrences (a few bytes each, and 4 bytes of the tokens)
+ */
+public class FrozenTrie implements TermDictionary {
+
+    // The state of the root
+    private static final int ROOT = 0;
+    // The character indicating the end of a word
+    private static final char END = '\0';
+
+    private int[] base;             // offset of the children of each state, or -(termId + 1) for ends of words
+    private int[] check;            // the parent of each state. -1 for unused states
+    private int[] firstTerms;       // id of the first word in the sub tree of each state
+    private int[] termEnds;         // id after the last word in the sub tree of each state
+    private char[] alphabet;        // all characters in the trie, sorted increasingly. code(c) = index + 1
+    private int[] asciiCodes;       // code of the characters below 128 for fast lookup. 0 if not in the alphabet
+    private Postings postings;      // occurrences of all words, indexed by term id
+    private LinePostings lines;     // lines of all words without repeats, indexed by term id
+    private volatile int[] tokens;          // the id of the word at each position of the document.
+                                            // Null until the first phrase search
+    private volatile BigramIndex bigrams;   // the positions of the pairs of frequent words. Null if not indexed
+    private int bigramMinCount = -1;        // the fewest occurrences of a frequent word. -1 for the default
+    private volatile TermSuffixArray suffixArray;   // the suffixes of all words. Null until an infix search
+    private int termCount;          // the number of distinct words
+
+    /* --- Used only while compiling --- */
+    private int nextCheckPos;
+    private LinkedList[] leaves;    // leaf nodes of each word. Null if the postings are given
+
+    /**
+     * Constructor. Compile a trie into double arrays and copy its occurrences into compressed postings
+     *
+     * Run-time: O(n * d + k log k) where n is the number of nodes, d is size of the alphabet
+     *           and k is the number of occurrences.
+     *           Each node's children are placed at the first free positions found after the last dense area.
+     *           The positions of the occurrences are found by sorting them
+     *
+     * @param root The root of the trie to compile
+     */
+    FrozenTrie(Internal root) {
+        leaves = new LinkedList[64];
+        compile(root);
+        collectPostings(Arrays.copyOf(leaves, termCount));
+        leaves = null;
+    }
+
+    /**
+     * Constructor. Compile a trie of words without occurrences and use postings that are already built,
+     * e.g. read from a saved index
+     *
+     * Run-time: O(n * d) where n is the number of nodes and d is size of the alphabet
+     *
+     * @param root The root of the trie to compile
+     * @param postings The occurrences of the words, indexed by their lexicographic order
+     * @param lines The lines of the words, in the same order
+     */
+    FrozenTrie(Internal root, Postings postings, LinePostings lines) {
+        compile(root);
+        if (postings.getTermCount() != termCount || lines.getTermCount() != termCount) {
+            throw new IllegalArgumentException("The postings have " + postings.getTermCount()
+                    + " words but the trie has " + termCount);
+        }
+        this.postings = postings;
+        this.lines = lines;
+    }
+
+    /**
+     * Place all nodes of a trie into the arrays
+     *
+     * @param root The root of the trie to compile
+     */
+    private void compile(Internal root) {
+        alphabet = collectAlphabet(root);
+        asciiCodes = new int[128];
+        for (int i = 0; i < alphabet.length; i++) {
+            if (alphabet[i] < 128) {
+                asciiCodes[alphabet[i]] = i + 1;
+            }
+        }
+        base = new int[1024];
+        check = new int[1024];
+        firstTerms = new int[1024];
+        termEnds = new int[1024];
+        Arrays.fill(check, -1);
+        check[ROOT] = ROOT;
+        termCount = 0;
+        nextCheckPos = 1;
+        place(root, ROOT);
+
+        int size = check.length;
+        while (size > 1 && check[size - 1] == -1) {
+            size--;
+        }
+        base = Arrays.copyOf(base, size);
+        check = Arrays.copyOf(check, size);
+        firstTerms = Arrays.copyOf(firstTerms, size);
+        termEnds = Arrays.copyOf(termEnds, size);
+    }
+
+    /**
+     * Copy the leaf nodes of all words into compressed postings and line postings.
+     * The position of an occurrence is its rank among all occurrences sorted by line and column,
+     * which is the order of the words in the document. Equal lines and columns (e.g. stop words that are
+     * all on line 1) are given increasing ranks, so the positions of every word stay increasing
+     *
+     * @param lists The leaf nodes of each word, indexed by term id
+     */
+    private void collectPostings(LinkedList[] lists) {
+        int[] offsets = new int[lists.length + 1];
+        for (int i = 0; i < lists.length; i++) {
+            offsets[i + 1] = offsets[i] + lists[i].getSize();
+        }
+        long[] packed = new long[offsets[lists.length]];
+        int[] lineNumbers = new int[packed.length];
+        int[] lineOffsets = new int[lists.length + 1];
+        int j = 0;
+        int l = 0;
+        for (int i = 0; i < lists.length; i++) {
+            for (Leaf leaf = (Leaf) lists[i].getHead(); leaf != null; leaf = (Leaf) leaf.getNext()) {
+                packed[j++] = Postings.pack(leaf.getLine(), leaf.getCol());
+                if (l == lineOffsets[i] || lineNumbers[l - 1] != leaf.getLine()) {
+                    // A word appearing more than once on a line has the line once
+                    lineNumbers[l++] = leaf.getLine();
+                }
+            }
+            lineOffsets[i + 1] = l;
+        }
+        lines = LinePostings.encode(Arrays.copyOf(lineNumbers, l), lineOffsets);
+        long[] sorted = packed.clone();
+        Arrays.sort(sorted);
+        int[] positions = new int[packed.length];
+        int[] used = new int[packed.length];    // the number of ranks given from each run of equal values
+        for (int i = 0; i < packed.length; i++) {
+            int first = firstIndex(sorted, packed[i]);
+            positions[i] = first + used[first]++;
+        }
+        postings = Postings.encode(packed, positions, offsets);
+    }
+
+    /**
+     * Lay the words out in the order of the document
+     *
+     * Run-time: O(k) where k is the number of occurrences
+     *
+     * @param postings the occurrences of the words
+     * @param termCount the number of distinct words
+     * @return the id of the word at each position of the document
+     */
+    private static int[] collectTokens(Postings postings, int termCount) {
+        int[] tokens = new int[postings.count(0, termCount)];
+        for (int termId = 0; termId < termCount; termId++) {
+            PostingsCursor cursor = postings.cursor(termId);
+            while (cursor.next()) {
+                tokens[cursor.getPosition()] = termId;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lay out the tokens and index the pairs of frequent words, unless it is done.
+     * Done on the first phrase search, whether the trie was compiled from a document or given its postings
+     * (e.g. read from a saved index), so that loading does not decode every occurrence again
+     *
+     * Run-time: O(k + t + p log p) where k is the number of occurrences, t is the number of distinct words
+     *           and p is the number of positions of the pairs
+     */
+    private synchronized void collectPhraseIndex() {
+        if (tokens == null) {
+            int[] collected = collectTokens(postings, termCount);
+            int minCount = (bigramMinCount < 0) ? BigramIndex.defaultMinCount(collected.length) : bigramMinCount;
+            bigrams = (minCount == 0) ? null : BigramIndex.build(collected, postings, minCount);
+            tokens = collected;
+        }
+    }
+
+    /**
+     * Index the pairs of frequent words next to each other with a new threshold, or stop using the index
+     *
+     * Run-time: O(t + p log p) where t is the number of distinct words and p is the number of positions
+     *           of the pairs
+     *
+     * @param minCount the fewest occurrences of a frequent word. 0 to remove the index
+     * @throws IllegalArgumentException if minCount is negative
+     */
+    synchronized void indexBigrams(int minCount) throws IllegalArgumentException {
+        if (minCount < 0) {
+            throw new IllegalArgumentException("Negative number of occurrences: " + minCount);
+        }
+        bigramMinCount = minCount;
+        if (tokens != null) {
+            bigrams = (minCount == 0) ? null : BigramIndex.build(tokens, postings, minCount);
+        }
+    }
+
+    /**
+     * @param sorted a sorted array
+     * @param value a value in the array
+     * @return the first index of the value
+     */
+    private static int firstIndex(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /* ----------------------- Searches ---------------- */
+
+    /**
+     * Get all occurrences of one word
+     *
+     * Run-time: O(m + k) where m is size of the word and k is the number of its occurrences
+     *
+     * @param word the word to search for
+     * @return A linked list of new leaf nodes for occurrences. The list is empty if the word is not found
+     */
+    public LinkedList getPos(String word) {
+        LinkedList indices = new LinkedList();
+        int termId = termId(word);
+        if (termId >= 0) {
+            copyOccurrences(termId, indices);
+        }
+        return indices;
+    }
+
+    /**
+     * Count the occurrences of one word
+     *
+     * Run-time: O(m) where m is size of the word
+     *
+     * @param word the word to count
+     * @return the number of occurrences. 0 if the word is not found
+     */
+    public int count(String word) {
+        int termId = termId(word);
+        return (termId >= 0) ? postings.count(termId) : 0;
+    }
+
+    /**
+     * Count the occurrences of all words having a prefix, without reading them
+     *
+     * Run-time: O(m) where m is size of the prefix. The words having the prefix are one range of term ids,
+     *           and the postings keep the number of occurrences before each word, so the count is a difference
+     *
+     * @param prefix the prefix to count
+     * @return the number of occurrences. 0 if the prefix is not found
+     */
+    public int prefixCount(String prefix) {
+        int[] range = prefixRange(prefix);
+        return postings.count(range[0], range[1]);
+    }
+
+    /**
+     * Find all occurrences of a prefix
+     *
+     * Run-time: O(m + s) where m is size of the prefix and s is the number of occurrences of words having the prefix
+     *
+     * @param prefix the prefix to search for
+     * @return A linked list of new leaf nodes, word by word in lexicographic order.
+     *         The list is empty if the prefix is not found
+     */
+    public LinkedList searchPrefix(String prefix) {
+        return toLeaves(prefixCursor(prefix, false));
+    }
+
+    /**
+     * Find the occurrences of a prefix one at a time, see HitCursor
+     *
+     * Run-time: O(m) to construct, where m is size of the prefix. Then O(1) for each occurrence read
+     *           word by word, or O(log w) in the order of the document where w is the number of words
+     *           having the prefix (O(w) more to construct)
+     *
+     * @param prefix the prefix to search for
+     * @param documentOrder true to merge the occurrences of the words in the order of the document,
+     *                      false to read them word by word in lexicographic order
+     * @return A cursor over the occurrences of the words having the prefix
+     */
+    public HitCursor prefixCursor(String prefix, boolean documentOrder) {
+        int[] range = prefixRange(prefix);
+        return documentOrder ? HitCursor.merged(postings, range[0], range[1])
+                             : HitCursor.terms(postings, range[0], range[1]);
+    }
+
+    /**
+     * Find the ids of the words having a prefix, which are consecutive
+     *
+     * Run-time: O(m) where m is size of the prefix
+     *
+     * @param prefix the prefix to search for
+     * @return the id of the first word having the prefix and the id after the last one. Equal ids if there is none
+     */
+    int[] prefixRange(String prefix) {
+        int state = walk(prefix.toLowerCase());
+        return (state < 0) ? new int[] {0, 0} : new int[] {firstTerms[state], termEnds[state]};
+    }
+
+    /**
+     * @return the suffix array of all words, built the first time
+     */
+    @Override
+    public TermSuffixArray getSuffixArray() {
+        if (suffixArray == null) {
+            synchronized (this) {
+                if (suffixArray == null) {
+                    suffixArray = new TermSuffixArray(getTerms());
+                }
+            }
+        }
+        return suffixArray;
+    }
+
+    /**
+     * Find the words an automaton accepts by walking the trie and the automaton together.
+     * A prefix that the automaton rejects is not walked any further
+     *
+     * Run-time: O(v d) where v is the number of states visited and d is size of the alphabet
+     *
+     * @param automaton the automaton, e.g. a WildcardPattern or a LevenshteinAutomaton
+     * @param maxTerms the greatest number of words to find. The walk stops once it has found them
+     * @return Triples of each accepted word, the state of the automaton after it and its term id,
+     *         for the first maxTerms accepted words in lexicographic order
+     */
+    @Override
+    public List<Triple<String, Integer, Integer>> matchAutomaton(TermAutomaton automaton, int maxTerms) {
+        // The class of each character of the alphabet, by code. END has none
+        int[] classes = new int[alphabet.length + 1];
+        for (int code = 1; code <= alphabet.length; code++) {
+            classes[code] = (alphabet[code - 1] == END) ? -1 : automaton.classOf(alphabet[code - 1]);
+        }
+        List<Triple<String, Integer, Integer>> matches = new ArrayList<>();
+        walk(automaton, classes, ROOT, automaton.start(), new StringBuilder(), maxTerms, matches);
+        return matches;
+    }
+
+    /**
+     * Walk the sub tree of a state with the automaton, in lexicographic order
+     *
+     * @param automaton the automaton
+     * @param classes the class of each character of the alphabet by code. -1 for END
+     * @param state the state of the trie
+     * @param dfaState the state of the automaton after the characters from the root to the state
+     * @param path the characters from the root to the state
+     * @param left the number of words that can still be found
+     * @param matches the list to add the accepted words to
+     * @return the number of words that can still be found after the sub tree
+     */
+    private int walk(TermAutomaton automaton, int[] classes, int state, int dfaState, StringBuilder path, int left,
+                     List<Triple<String, Integer, Integer>> matches) {
+        for (int code = 1; code <= alphabet.length && left > 0; code++) {
+            int next = base[state] + code;
+            if (next >= check.length || check[next] != state) {
+                continue;
+            }
+            if (classes[code] < 0) {
+                if (automaton.isAccepting(dfaState)) {
+                    matches.add(new Triple<>(path.toString(), dfaState, -base[next] - 1));
+                    left--;
+                }
+            } else {
+                int nextDfa = automaton.step(dfaState, classes[code]);
+                if (nextDfa != TermAutomaton.DEAD) {
+                    path.append(alphabet[code - 1]);
+                    left = walk(automaton, classes, next, nextDfa, path, left, matches);
+                    path.setLength(path.length() - 1);
+                }
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Find all occurrences of a phrase
+     *
+     * Run-time: O(m + rk + c) where m is size of the phrase,
+     *           k is the number of occurrences of the rarest word, or of the rarest pair of frequent words
+     *           of the phrase if it is rarer (e.g. "to be" in "to be or not to be"),
+     *           r is the number of words in the phrase
+     *           and c is the number of occurrences of the first word decoded to find the phrases' columns
+     *
+     *           Every word is looked up once. For an occurrence of the rarest word (the a-th word) at position p,
+     *           the i-th word of the phrase must be at position p - a + i, which is one comparison of ids in
+     *           the tokens. The first word's cursor only moves forward, skipping blocks ending before a phrase
+     *
+     * @param phrase The phrase to search for
+     * @return A linked list of the occurrences. The list is empty if the phrase is not found
+     */
+    public LinkedList phraseIndices(String phrase) {
+        return toLeaves(phraseCursor(phrase));
+    }
+
+    /**
+     * Find the occurrences of a phrase one at a time, see HitCursor and phraseIndices
+     *
+     * Run-time: O(m) to construct, where m is size of the phrase. The first search also lays out
+     *           the tokens, see collectPhraseIndex
+     *
+     * @param phrase The phrase to search for
+     * @return A cursor over the first word of each occurrence of the phrase
+     */
+    public HitCursor phraseCursor(String phrase) {
+        String[] allWords = phrase.toLowerCase().split(" ");
+        int[] termIds = new int[allWords.length];
+        for (int i = 0; i < allWords.length; i++) {
+            termIds[i] = termId(allWords[i]);
+        }
+        if (tokens == null) {
+            collectPhraseIndex();
+        }
+        // The tokens are set after the pairs, so reading them first sees the pairs built with them
+        int[] phraseTokens = tokens;
+        return HitCursor.phrase(postings, phraseTokens, bigrams, termIds);
+    }
+
+    /**
+     * @param hits the hits to read
+     * @return A linked list of a new leaf node for each hit left, in order
+     */
+    private static LinkedList toLeaves(HitCursor hits) {
+        LinkedList indices = new LinkedList();
+        while (hits.next()) {
+            indices.addNode(new Leaf(hits.getLine(), hits.getCol()));
+        }
+        return indices;
+    }
+
+    /**
+     * @return the number of distinct words
+     */
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * @return the occurrences of all words, indexed by term id
+     */
+    Postings getPostings() {
+        return postings;
+    }
+
+    /**
+     * @return the lines of all words without repeats, indexed by term id
+     */
+    LinePostings getLinePostings() {
+        return lines;
+    }
+
+    /**
+     * @return the pairs of frequent words. Null if they are not indexed
+     */
+    BigramIndex getBigrams() {
+        if (tokens == null) {
+            collectPhraseIndex();
+        }
+        return bigrams;
+    }
+
+    /**
+     * Rebuild every word from the arrays
+     *
+     * Run-time: O(nd) where n is the number of states and d is size of the alphabet
+     *
+     * @return all words, indexed by term id (i.e. in lexicographic order)
+     */
+    String[] getTerms() {
+        String[] terms = new String[termCount];
+        collectTerms(ROOT, new StringBuilder(), terms);
+        return terms;
+    }
+
+    /**
+     * @param state the root of a sub tree
+     * @param path the characters from the root of the trie to the state
+     * @param terms the array to store the words in
+     */
+    private void collectTerms(int state, StringBuilder path, String[] terms) {
+        if (base[state] < 0) {
+            terms[-base[state] - 1] = path.toString();
+            return;
+        }
+        for (int code = 1; code <= alphabet.length; code++) {
+            int next = base[state] + code;
+            if (next < check.length && check[next] == state) {
+                if (code > 1) {
+                    path.append(alphabet[code - 1]);
+                }
+                collectTerms(next, path, terms);
+                if (code > 1) {
+                    path.setLength(path.length() - 1);
+                }
+            }
+        }
+    }
+
+    /* ----------------------- Navigation ---------------- */
+
+    /**
+     * @param word the word to search for
+     * @return the term id of the word. -1 if the word is not found
+     */
+    @Override
+    public int termId(String word) {
+        int state = walk(word);
+        if (state < 0) {
+            return -1;
+        }
+        state = child(state, END);
+        return (state >= 0) ? -base[state] - 1 : -1;
+    }
+
+    /**
+     * Follow the characters of a string from the root
+     *
+     * @param word the string to follow
+     * @return the state of the last character. -1 if the string is not in the trie
+     */
+    private int walk(String word) {
+        int state = ROOT;
+        for (int i = 0; i < word.length() && state >= 0; i++) {
+            state = child(state, word.charAt(i));
+        }
+        return state;
+    }
+
+    /**
+     * @param state the current state
+     * @param letter the next character
+     * @return the state of the next character. -1 if there is no such transition
+     */
+    private int child(int state, char letter) {
+        int code = code(letter);
+        if (code == 0 || base[state] < 0) {
+            return -1;
+        }
+        int next = base[state] + code;
+        return (next < check.length && check[next] == state) ? next : -1;
+    }
+
+    /**
+     * @param letter a character
+     * @return the code of the character. 0 if the character is not in the alphabet
+     */
+    private int code(char letter) {
+        if (letter < 128) {
+            return asciiCodes[letter];
+        }
+        int index = Arrays.binarySearch(alphabet, letter);
+        return (index >= 0) ? index + 1 : 0;
+    }
+
+    /**
+     * @param termId the id of a word
+     * @param indices the list to add a new leaf node to for each occurrence of the word
+     */
+    private void copyOccurrences(int termId, LinkedList indices) {
+        PostingsCursor cursor = postings.cursor(termId);
+        while (cursor.next()) {
+            indices.addNode(new Leaf(cursor.getLine(), cursor.getCol()));
+        }
+    }
+
+    /* ----------------------- Compiling ---------------- */
+
+    /**
+     * Place the children of a node and then the sub trees of the children, in lexicographic order
+     *
+     * @param node the node in the original trie
+     * @param state the state already given to the node
+     */
+    private void place(Internal node, int state) {
+        firstTerms[state] = termCount;
+        if (node.getNextChars() == null) {
+            // The end of a word
+            if (leaves != null) {
+                if (termCount == leaves.length) {
+                    leaves = Arrays.copyOf(leaves, termCount * 2);
+                }
+                leaves[termCount] = node.getChildren();
+            }
+            base[state] = -(++termCount);
+            termEnds[state] = termCount;
+            return;
+        }
+        ChildTable children = node.getNextChars();
+        if (children.getSize() == 0) {
+            // An empty trie
+            termEnds[state] = termCount;
+            return;
+        }
+        int[] codes = new int[children.getSize()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = code(children.getAt(i).getChar());
+        }
+        int begin = findBase(codes);
+        base[state] = begin;
+        for (int code : codes) {
+            check[begin + code] = state;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            place(children.getAt(i), begin + codes[i]);
+        }
+        termEnds[state] = termCount;
+    }
+
+    /**
+     * Find an offset where all children's positions are free
+     *
+     * @param codes codes of the children, sorted increasingly
+     * @return the offset
+     */
+    private int findBase(int[] codes) {
+        int pos = Math.max(codes[0] + 1, nextCheckPos) - 1;
+        int occupied = 0;
+        boolean first = true;
+        int begin;
+        search:
+        while (true) {
+            pos++;
+            ensureSize(pos + 1);
+            if (check[pos] != -1) {
+                occupied++;
+                continue;
+            }
+            if (first) {
+                nextCheckPos = pos;
+                first = false;
+            }
+            begin = pos - codes[0];
+            ensureSize(begin + codes[codes.length - 1] + 1);
+            for (int i = 1; i < codes.length; i++) {
+                if (check[begin + codes[i]] != -1) {
+                    continue search;
+                }
+            }
+            break;
+        }
+        if (occupied >= 0.95 * (pos - nextCheckPos + 1)) {
+            // The area before pos is almost full, so later searches start from pos
+            nextCheckPos = pos;
+        }
+        return begin;
+    }
+
+    /**
+     * Grow the arrays so that they have at least the required size
+     *
+     * @param size the required size
+     */
+    private void ensureSize(int size) {
+        if (size > check.length) {
+            int newSize = Math.max(size, check.length * 2);
+            int oldSize = check.length;
+            base = Arrays.copyOf(base, newSize);
+            check = Arrays.copyOf(check, newSize);
+            firstTerms = Arrays.copyOf(firstTerms, newSize);
+            termEnds = Arrays.copyOf(termEnds, newSize);
+            Arrays.fill(check, oldSize, newSize, -1);
+        }
+    }
+
+    /**
+     * Collect every character stored in the trie
+     *
+     * @param root the root of the trie
+     * @return the sorted characters
+     */
+    private static char[] collectAlphabet(Internal root) {
+        boolean[] seen = new boolean[Character.MAX_VALUE + 1];
+        seen[END] = true;
+        markCharacters(root, seen);
+        int count = 0;
+        for (boolean found : seen) {
+            if (found) {
+                count++;
+            }
+        }
+        char[] result = new char[count];
+        int j = 0;
+        for (int c = 0; c < seen.length; c++) {
+            if (seen[c]) {
+                result[j++] = (char) c;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param node the root of a sub tree
+     * @param seen flags of the characters found so far
+     */
+    private static void markCharacters(Internal node, boolean[] seen) {
+        ChildTable children = node.getNextChars();
+        if (children == null) {
+            return;
+        }
+        for (int i = 0; i < children.getSize(); i++) {
+            seen[children.getAt(i).getChar()] = true;
+            markCharacters(children.getAt(i), seen);
+        }
+    }
+}
@@ -0,0 +1,673 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.PostingsCursor;
+import comp3506.assn2.utils.Triple;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A cursor over the hits of a search (line and column of each occurrence found), decoded from the postings
+ * one at a time as the caller asks for them.
+ *
+ * A search returning a list reads every hit and creates an object for each one before the caller sees the first.
+ * A cursor only decodes up to the hit it is on, so a caller that wants the first few hits or only counts them
+ * does not pay for the rest. pairs() and triples() wrap the cursor in a lazy stream, e.g.
+ *      cursor.pairs().limit(10).collect(Collectors.toList())
+ * reads only the first ten hits.
+ *
+ * A cursor starts before the first hit. It reads postings that must not change while it is used,
+ * and, like the postings cursors, it is not thread-safe.
+ */
+public abstract class HitCursor {
+
+    int line;                           // line of the current hit
+    int col;                            // column of the current hit
+
+    /**
+     * Move to the next hit
+     *
+     * @return True if there is a next hit. False if the cursor has passed the last hit
+     */
+    public abstract boolean next();
+
+    /**
+     * @return the line of the current hit
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column of the current hit
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return the word found at the current hit in a section search. Null for phrase and prefix searches
+     */
+    public String getWord() {
+        return null;
+    }
+
+    /**
+     * Move past a number of hits without reading them, e.g. the hits before a page
+     *
+     * Run-time: O(c) where c is the count. Faster for the hits of a prefix, see PostingsCursor.skip
+     *
+     * @param count the number of hits to move past
+     * @return the number of hits moved past. Less than count if the cursor has passed the last hit
+     */
+    public int skip(int count) {
+        int skipped = 0;
+        while (skipped < count && next()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * @return An upper bound of the number of hits from the first one, known without reading them.
+     *         -1 if it is not known
+     */
+    public int estimate() {
+        return -1;
+    }
+
+    /**
+     * @return True if estimate() is the exact number of hits
+     */
+    public boolean isEstimateExact() {
+        return false;
+    }
+
+    /**
+     * Count the hits that are left without creating an object for any of them
+     *
+     * Run-time: O(k) where k is the number of hits decoded
+     *
+     * @return the number of hits after the current one. The cursor has then passed the last hit
+     */
+    public int count() {
+        int count = 0;
+        while (next()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return a lazy, ordered stream of the hits that are left, as pairs of line and column.
+     *         The stream moves this cursor, so only one of them should be used
+     */
+    public Stream<Pair<Integer, Integer>> pairs() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Pair<Integer, Integer>>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Pair<Integer, Integer>> action) {
+                if (!next()) {
+                    return false;
+                }
+                action.accept(new Pair<>(line, col));
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * @return a lazy, ordered stream of the hits that are left, as triples of line, column and word found
+     *         (see getWord). The stream moves this cursor, so only one of them should be used
+     */
+    public Stream<Triple<Integer, Integer, String>> triples() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Triple<Integer, Integer, String>>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Triple<Integer, Integer, String>> action) {
+                if (!next()) {
+                    return false;
+                }
+                action.accept(new Triple<>(line, col, getWord()));
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * @return a cursor without any hit
+     */
+    static HitCursor empty() {
+        return new HitCursor() {
+            @Override
+            public boolean next() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param firstTermId the id of the first word of a range, e.g. of the words having a prefix
+     * @param endTermId the id after the last word of the range
+     * @return a cursor over all occurrences of the first word, then of the second word, and so on
+     */
+    static HitCursor terms(Postings postings, int firstTermId, int endTermId) {
+        return new Terms(postings, null, firstTermId, endTermId, postings.count(firstTermId, endTermId));
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param termIds ids of words, e.g. the words containing a string
+     * @return a cursor over all occurrences of the first word, then of the second word, and so on
+     */
+    static HitCursor terms(Postings postings, int[] termIds) {
+        int total = 0;
+        for (int termId : termIds) {
+            total += postings.count(termId);
+        }
+        return new Terms(postings, termIds, 0, termIds.length, total);
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param firstTermId the id of the first word of a range, e.g. of the words having a prefix
+     * @param endTermId the id after the last word of the range
+     * @return a cursor over all occurrences of the words of the range, in the order of the document
+     */
+    static HitCursor merged(Postings postings, int firstTermId, int endTermId) {
+        int[] termIds = new int[endTermId - firstTermId];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = firstTermId + i;
+        }
+        return new Merged(postings, termIds);
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param termIds ids of words, e.g. the words matching a wildcard pattern
+     * @return a cursor over all occurrences of the words, in the order of the document
+     */
+    static HitCursor merged(Postings postings, int[] termIds) {
+        return new Merged(postings, termIds);
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param termIds ids of the words of a phrase in order. -1 for a word that is not in the document
+     * @return a cursor over the first word of each occurrence of the phrase
+     */
+    static HitCursor phrase(Postings postings, int[] termIds) {
+        for (int termId : termIds) {
+            if (termId < 0) {
+                return empty();
+            }
+        }
+        // A single word is every occurrence of the word, decoded without searching the positions
+        return (termIds.length == 1) ? terms(postings, termIds[0], termIds[0] + 1) : new Phrase(postings, termIds);
+    }
+
+    /**
+     * @param postings the postings of the document
+     * @param tokens the id of the word at each position of the document
+     * @param bigrams the pairs of frequent words of the document. Null to search from the words only
+     * @param termIds ids of the words of a phrase in order. -1 for a word that is not in the document
+     * @return a cursor over the first word of each occurrence of the phrase, checked against the tokens
+     *         from the occurrences of its rarest word or pair of frequent words
+     */
+    static HitCursor phrase(Postings postings, int[] tokens, BigramIndex bigrams, int[] termIds) {
+        for (int termId : termIds) {
+            if (termId < 0) {
+                return empty();
+            }
+        }
+        if (termIds.length == 1) {
+            // A single word has nothing to check, so its postings are read directly
+            return phrase(postings, termIds);
+        }
+        for (int i = 0; bigrams != null && i + 1 < termIds.length; i++) {
+            if (bigrams.isFrequent(termIds[i]) && bigrams.isFrequent(termIds[i + 1])
+                    && bigrams.find(termIds[i], termIds[i + 1]) < 0) {
+                // Two frequent words of the phrase are never next to each other
+                return empty();
+            }
+        }
+        return new TokenPhrase(postings, tokens, bigrams, termIds);
+    }
+
+    /**
+     * Match a compiled query against some sections, then read the occurrences of the words in the matching
+     * sections only when the cursor reaches them. The hits are in the same order as TextTrie.sectionQuery:
+     * by title in the given order, then by section, then by word in the order of the query
+     *
+     * Run-time: O(t + s) plus the iterators of the query to construct, where t is total size of the titles
+     *           and s is the number of sections searched. O(log(n / b) + b) for each word and matching section
+     *           reached, where n is the number of occurrences of the word and b is size of a block
+     *
+     * @param matches the query, compiled for the section scope of the table
+     * @param words the words to report, in the order of the query
+     * @param postings the postings of the document
+     * @param table the sections of the document
+     * @param titles the titles of the sections to search
+     * @return a cursor over the occurrences of the words in the matching sections
+     */
+    static HitCursor sections(MatchIterator matches, QueryPlan words, Postings postings, SectionTable table,
+                              String[] titles) {
+        boolean[] isMatched = new boolean[table.size()];
+        for (int id : table.sectionsOf(titles)) {
+            isMatched[id] = matches.advance(id) == id;
+        }
+        int size = 0;
+        int[] order = new int[0];
+        for (String title : titles) {
+            // The document may have sections that have the same title
+            for (int id : table.sectionsOf(title)) {
+                if (isMatched[id]) {
+                    if (size == order.length) {
+                        order = Arrays.copyOf(order, Math.max(16, size * 2));
+                    }
+                    order[size++] = id;
+                }
+            }
+        }
+        return new Sections(words, words.cursors(postings), table, Arrays.copyOf(order, size));
+    }
+
+    /**
+     * The occurrences of some words, one word after another. The postings of a range of words are next to each
+     * other, so a range is read as one slice of the postings from the first to the last
+     */
+    private static final class Terms extends HitCursor {
+
+        private final Postings postings;    // the postings of the document
+        private final int[] termIds;        // the ids of the words to read. Null to read a range of ids
+        private final int end;              // the index after the last word to read
+        private final int total;            // the number of occurrences of all the words
+        private int index;                  // the index of the word being read, in termIds or the range
+        private PostingsCursor cursor;      // the cursor of the word being read. Null before the first
+        private int left;                   // the number of occurrences of the word after the current one
+
+        Terms(Postings postings, int[] termIds, int first, int end, int total) {
+            this.postings = postings;
+            this.termIds = termIds;
+            this.end = end;
+            this.total = total;
+            index = first - 1;
+        }
+
+        @Override
+        public boolean next() {
+            if (!nextWord()) {
+                return false;
+            }
+            cursor.next();
+            left--;
+            line = cursor.getLine();
+            col = cursor.getCol();
+            return true;
+        }
+
+        /**
+         * Whole words are passed by their number of occurrences, and blocks of a word by PostingsCursor.skip
+         */
+        @Override
+        public int skip(int count) {
+            int skipped = 0;
+            while (skipped < count && nextWord()) {
+                int step = Math.min(left, count - skipped);
+                cursor.skip(step);
+                left -= step;
+                skipped += step;
+                line = cursor.getLine();
+                col = cursor.getCol();
+            }
+            return skipped;
+        }
+
+        /**
+         * Move to the next word with occurrences left, unless the current word has some
+         *
+         * @return False if there is no occurrence left
+         */
+        private boolean nextWord() {
+            while (left == 0) {
+                if (++index >= end) {
+                    index = end;
+                    return false;
+                }
+                int termId = (termIds == null) ? index : termIds[index];
+                cursor = postings.cursor(termId);
+                left = postings.count(termId);
+            }
+            return true;
+        }
+
+        @Override
+        public int estimate() {
+            return total;
+        }
+
+        @Override
+        public boolean isEstimateExact() {
+            return true;
+        }
+    }
+
+    /**
+     * The occurrences of some words in the order of the document, merged by their positions
+     * through a binary min-heap of the cursors of the words
+     */
+    private static final class Merged extends HitCursor {
+
+        private final PostingsCursor[] heap;    // the cursors with occurrences left, by position
+        private final int total;                // the number of occurrences of all the words
+        private int heapSize;                   // the number of cursors in the heap
+        private boolean started;                // true once the top of the heap has been read
+
+        /**
+         * Run-time: O(w) where w is the number of words. Each cursor decodes its first occurrence
+         */
+        Merged(Postings postings, int[] termIds) {
+            heap = new PostingsCursor[termIds.length];
+            long sum = 0;
+            for (int termId : termIds) {
+                PostingsCursor cursor = postings.cursor(termId);
+                if (cursor.next()) {
+                    heap[heapSize++] = cursor;
+                }
+                sum += postings.count(termId);
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+            total = (int) Math.min(sum, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Run-time: O(log w) where w is the number of words
+         */
+        @Override
+        public boolean next() {
+            if (started && heapSize > 0) {
+                // Move the cursor of the occurrence just read to its next one
+                if (!heap[0].next()) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown(0);
+            }
+            started = true;
+            if (heapSize == 0) {
+                return false;
+            }
+            line = heap[0].getLine();
+            col = heap[0].getCol();
+            return true;
+        }
+
+        /**
+         * Move a cursor down until its position is before the positions of its children
+         *
+         * @param index the index of the cursor in the heap
+         */
+        private void siftDown(int index) {
+            if (heapSize == 0) {
+                return;
+            }
+            PostingsCursor top = heap[index];
+            int child;
+            while ((child = 2 * index + 1) < heapSize) {
+                if (child + 1 < heapSize && heap[child + 1].getPosition() < heap[child].getPosition()) {
+                    child++;
+                }
+                if (heap[child].getPosition() >= top.getPosition()) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = top;
+        }
+
+        @Override
+        public int estimate() {
+            return total;
+        }
+
+        @Override
+        public boolean isEstimateExact() {
+            return true;
+        }
+    }
+
+    /**
+     * The occurrences of a phrase, found by intersecting the positions of its words, each shifted back by
+     * its index in the phrase, so that all words of an occurrence agree on the position where it starts.
+     *
+     * The words are checked from the rarest. A candidate start comes from the rarest word, and each other
+     * word gallops (see PostingsCursor.skipToPosition) to its place after the start. A word found further on
+     * moves the candidate start forward, which the rarest word then gallops to, so the words leapfrog each other
+     * and the cost follows the rarest word rather than the first, e.g. "the" in "the tempest"
+     */
+    private static final class Phrase extends HitCursor {
+
+        private final PostingsCursor[] cursors; // a cursor for each word, in the order they are checked
+        private final int[] shifts;             // the index in the phrase of each word, in the same order
+        private final int firstWord;            // index in cursors of the first word of the phrase
+        private final int rarest;               // the occurrences of the rarest word, an upper bound of the phrases
+        private int start = -1;                 // position of the current phrase. -1 before the first
+        private boolean done;                   // true once the phrase cannot occur again
+
+        Phrase(Postings postings, int[] termIds) {
+            Integer[] order = new Integer[termIds.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> Integer.compare(postings.count(termIds[x]), postings.count(termIds[y])));
+            cursors = new PostingsCursor[termIds.length];
+            shifts = new int[termIds.length];
+            int first = 0;
+            for (int i = 0; i < order.length; i++) {
+                cursors[i] = postings.cursor(termIds[order[i]]);
+                shifts[i] = order[i];
+                if (order[i] == 0) {
+                    first = i;
+                }
+            }
+            firstWord = first;
+            rarest = postings.count(termIds[order[0]]);
+        }
+
+        @Override
+        public boolean next() {
+            if (done) {
+                return false;
+            }
+            int candidate = start + 1;
+            int word = 0;       // the words before it, from the rarest, are found at the candidate
+            while (word < cursors.length) {
+                PostingsCursor cursor = cursors[word];
+                if (!cursor.skipToPosition(candidate + shifts[word])) {
+                    // The word does not appear again, so no later position can start the phrase
+                    done = true;
+                    return false;
+                }
+                int found = cursor.getPosition() - shifts[word];
+                if (found == candidate) {
+                    word++;
+                } else {
+                    // No phrase starts before the word's next occurrence. The rarest word checks from there first,
+                    // as it jumps the furthest
+                    candidate = found;
+                    word = (word == 0) ? 1 : 0;
+                }
+            }
+            start = candidate;
+            line = cursors[firstWord].getLine();
+            col = cursors[firstWord].getCol();
+            return true;
+        }
+
+        @Override
+        public int estimate() {
+            return rarest;
+        }
+    }
+
+    /**
+     * The occurrences of a phrase, found from the occurrences of its rarest word or of its rarest pair of
+     * frequent words next to each other (see BigramIndex), whichever is rarer.
+     * An occurrence of the anchor at position p is a phrase if the i-th word is at p - a + i, where a is
+     * the index of the anchor in the phrase, which is one comparison of ids in the tokens for each word
+     */
+    private static final class TokenPhrase extends HitCursor {
+
+        private final int[] tokens;             // the id of the word at each position of the document
+        private final int[] termIds;            // ids of the words of the phrase
+        private final int anchorIndex;          // index in the phrase of the rarest word or the rarest pair
+        private final PostingsCursor anchor;    // the rarest word of the phrase. Null if a pair is rarer
+        private final BigramIndex bigrams;      // the pairs of frequent words. Null if there is none
+        private final int pair;                 // the rarest pair of the phrase, if it is rarer than every word
+        private final PostingsCursor first;     // the first word, to find the line and column of a phrase
+        private final int rarest;               // the occurrences of the anchor, an upper bound of the phrases
+        private int read;                       // the number of occurrences of the pair read
+
+        TokenPhrase(Postings postings, int[] tokens, BigramIndex bigrams, int[] termIds) {
+            this.tokens = tokens;
+            this.termIds = termIds;
+            this.bigrams = bigrams;
+            int fewest = 0;
+            for (int i = 1; i < termIds.length; i++) {
+                if (postings.count(termIds[i]) < postings.count(termIds[fewest])) {
+                    fewest = i;
+                }
+            }
+            int fewestPair = -1;
+            int fewestPairIndex = 0;
+            for (int i = 0; bigrams != null && i + 1 < termIds.length; i++) {
+                if (bigrams.isFrequent(termIds[i]) && bigrams.isFrequent(termIds[i + 1])) {
+                    int found = bigrams.find(termIds[i], termIds[i + 1]);
+                    if (fewestPair < 0 || bigrams.count(found) < bigrams.count(fewestPair)) {
+                        fewestPair = found;
+                        fewestPairIndex = i;
+                    }
+                }
+            }
+            if (fewestPair >= 0 && bigrams.count(fewestPair) < postings.count(termIds[fewest])) {
+                anchorIndex = fewestPairIndex;
+                anchor = null;
+                pair = fewestPair;
+                rarest = bigrams.count(fewestPair);
+            } else {
+                anchorIndex = fewest;
+                anchor = postings.cursor(termIds[fewest]);
+                pair = -1;
+                rarest = postings.count(termIds[fewest]);
+            }
+            first = (anchor != null && anchorIndex == 0) ? anchor : postings.cursor(termIds[0]);
+        }
+
+        @Override
+        public boolean next() {
+            for (int position = nextAnchor(); position >= 0; position = nextAnchor()) {
+                int start = position - anchorIndex;
+                if (start + termIds.length > tokens.length) {
+                    // The phrase would run past the end of the document
+                    return false;
+                }
+                if (start >= 0 && matchesAt(start)) {
+                    // The starts only increase, so the first word's cursor only moves forward
+                    first.skipToPosition(start);
+                    line = first.getLine();
+                    col = first.getCol();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the position of the next occurrence of the anchor. -1 if there is none
+         */
+        private int nextAnchor() {
+            if (anchor != null) {
+                return anchor.next() ? anchor.getPosition() : -1;
+            }
+            return (read < rarest) ? bigrams.start(pair, read++) : -1;
+        }
+
+        /**
+         * @return True if the words of the phrase are at the position and after it
+         */
+        private boolean matchesAt(int start) {
+            for (int i = 0; i < termIds.length; i++) {
+                if (tokens[start + i] != termIds[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int estimate() {
+            return rarest;
+        }
+    }
+
+    /**
+     * The occurrences of some words in some sections, section by section and then word by word
+     */
+    private static final class Sections extends HitCursor {
+
+        private final QueryPlan words;          // the words to report
+        private final PostingsCursor[] cursors; // a cursor for each word. Null for a word not in the document
+        private final SectionTable table;       // the sections of the document
+        private final int[] order;              // ids of the sections to read, in the order to report them
+        private int section;                    // index in order of the section being read
+        private int word;                       // index of the word being read
+        private boolean inSection;              // true once the cursor of the word is in the section
+
+        Sections(QueryPlan words, PostingsCursor[] cursors, SectionTable table, int[] order) {
+            this.words = words;
+            this.cursors = cursors;
+            this.table = table;
+            this.order = order;
+        }
+
+        @Override
+        public boolean next() {
+            while (section < order.length) {
+                if (word == words.size()) {
+                    section++;
+                    word = 0;
+                    continue;
+                }
+                int id = order[section];
+                PostingsCursor cursor = cursors[word];
+                if (cursor != null) {
+                    // A section of a later title may be before this one, so the cursor may move back
+                    boolean found = inSection ? cursor.next() : cursor.seekLine(table.getStartLine(id));
+                    if (found && cursor.getLine() <= table.getEndLine(id)) {
+                        inSection = true;
+                        line = cursor.getLine();
+                        col = cursor.getCol();
+                        return true;
+                    }
+                }
+                inSection = false;
+                word++;
+            }
+            return false;
+        }
+
+        @Override
+        public String getWord() {
+            return words.getWord(word);
+        }
+    }
+}
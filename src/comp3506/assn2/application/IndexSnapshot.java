@@ -0,0 +1,479 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A binary snapshot of a loaded document, its index and stop words,
+ * so that the tries can be rebuilt without reading and splitting the document again.
+ *
+ * All numbers are big-endian. The file has a header followed by the body:
+ *
+ *      Header: int MAGIC, int VERSION, long size of the body, long CRC32 of the body
+ *
+ *      Body:   int number of lines in the document, int number of words (t), int size of the term bytes (b)
+ *              int[t + 1] offset of each word in the term bytes
+ *              byte[b]    all words in UTF-8, in lexicographic order (a word's position is its term id)
+ *              postings of the document in the compressed form of Postings:
+ *                  int number of occurrences (k), int number of blocks (n), int size of the encoded data (d)
+ *                  int[t + 1] index of each word's first occurrence
+ *                  int[t + 1] index of each word's first block
+ *                  int[3n]    byte offset, first line and first position of each block
+ *                  byte[d]    the encoded blocks
+ *              lines of the document in the compressed form of LinePostings:
+ *                  int number of (word, line) pairs (l), int number of blocks (n), int size of the encoded data (d)
+ *                  int[t + 1] index of each word's first line
+ *                  int[t + 1] index of each word's first block
+ *                  int[2n]    byte offset and first line of each block
+ *                  byte[d]    the encoded blocks
+ *              int number of sections, then for each section sorted by first line:
+ *                  string title, int first line, int last line
+ *              int number of stop words, then each stop word as a string
+ *
+ *      Byte arrays are padded with zeros to a multiple of 4 bytes, so every int array is aligned.
+ *      Strings are stored as int size followed by the UTF-8 bytes.
+ *
+ * Memory usage: O(n) where n is total size of the words and their occurrences
+ */
+class IndexSnapshot {
+
+    static final int MAGIC = 0x41324958;        // "A2IX"
+    static final int VERSION = 4;
+    static final int HEADER_SIZE = 24;
+
+    private TextTrie docTrie;           // the trie storing the document
+    private TextTrie indexTrie;         // the trie storing the titles and line numbers of the sections
+    private TextTrie stopWordsTrie;     // the trie storing the stop-words
+    private int lineCount;              // the number of lines in the document
+
+    /**
+     * Constructor. Hold the tries rebuilt from a snapshot
+     */
+    private IndexSnapshot(TextTrie docTrie, TextTrie indexTrie, TextTrie stopWordsTrie, int lineCount) {
+        this.docTrie = docTrie;
+        this.indexTrie = indexTrie;
+        this.stopWordsTrie = stopWordsTrie;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * @return the frozen trie storing the document
+     */
+    TextTrie getDocTrie() {
+        return docTrie;
+    }
+
+    /**
+     * @return the frozen trie storing the sections
+     */
+    TextTrie getIndexTrie() {
+        return indexTrie;
+    }
+
+    /**
+     * @return the frozen trie storing the stop-words
+     */
+    TextTrie getStopWordsTrie() {
+        return stopWordsTrie;
+    }
+
+    /**
+     * @return the number of lines in the document
+     */
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /* ----------------------- Writing ---------------- */
+
+    /**
+     * Write a snapshot of frozen tries
+     *
+     * Run-time: O(n) where n is total size of the words and their occurrences
+     *
+     * @param fileName the file to write
+     * @param docTrie the frozen trie storing the document
+     * @param indexTrie the frozen trie storing the sections
+     * @param stopWordsTrie the frozen trie storing the stop-words
+     * @param lineCount the number of lines in the document
+     * @throws IOException if the file cannot be written
+     */
+    static void write(String fileName, TextTrie docTrie, TextTrie indexTrie, TextTrie stopWordsTrie,
+                      int lineCount) throws IOException {
+        FrozenTrie doc = docTrie.getFrozen();
+        String[] terms = doc.getTerms();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(counter, crc));
+
+            out.writeInt(lineCount);
+            out.writeInt(terms.length);
+            writeTerms(out, terms);
+            pad(out, counter.count);
+            writePostings(out, doc.getPostings());
+            pad(out, counter.count);
+            writeLinePostings(out, doc.getLinePostings());
+            pad(out, counter.count);
+            writeSections(out, indexTrie.getFrozen());
+            String[] stopWords = stopWordsTrie.getFrozen().getTerms();
+            out.writeInt(stopWords.length);
+            for (String stopWord : stopWords) {
+                writeString(out, stopWord);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(counter.count).putLong(crc.getValue());
+            header.flip();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Write the term offsets and the UTF-8 bytes of all words
+     */
+    private static void writeTerms(DataOutputStream out, String[] terms) throws IOException {
+        byte[][] bytes = new byte[terms.length][];
+        int size = 0;
+        for (int i = 0; i < terms.length; i++) {
+            bytes[i] = terms[i].getBytes(StandardCharsets.UTF_8);
+            size += bytes[i].length;
+        }
+        out.writeInt(size);
+        int offset = 0;
+        for (byte[] term : bytes) {
+            out.writeInt(offset);
+            offset += term.length;
+        }
+        out.writeInt(offset);
+        for (byte[] term : bytes) {
+            out.write(term);
+        }
+    }
+
+    /**
+     * Write the compressed postings as they are stored in memory
+     */
+    private static void writePostings(DataOutputStream out, Postings postings) throws IOException {
+        IntBuffer offsets = postings.getOffsets();
+        IntBuffer termBlocks = postings.getTermBlocks();
+        IntBuffer blocks = postings.getBlocks();
+        ByteBuffer data = postings.getData();
+        out.writeInt(postings.getSize());
+        out.writeInt(blocks.remaining() / 3);
+        out.writeInt(data.remaining());
+        writeInts(out, offsets);
+        writeInts(out, termBlocks);
+        writeInts(out, blocks);
+        writeBytes(out, data);
+    }
+
+    /**
+     * Write the compressed line postings as they are stored in memory
+     */
+    private static void writeLinePostings(DataOutputStream out, LinePostings lines) throws IOException {
+        IntBuffer blocks = lines.getBlocks();
+        ByteBuffer data = lines.getData();
+        out.writeInt(lines.getSize());
+        out.writeInt(blocks.remaining() / 2);
+        out.writeInt(data.remaining());
+        writeInts(out, lines.getOffsets());
+        writeInts(out, lines.getTermBlocks());
+        writeInts(out, blocks);
+        writeBytes(out, data);
+    }
+
+    /**
+     * Write the remaining bytes of a buffer
+     */
+    private static void writeBytes(DataOutputStream out, ByteBuffer data) throws IOException {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        out.write(bytes);
+    }
+
+    /**
+     * Write the remaining ints of a buffer
+     */
+    private static void writeInts(DataOutputStream out, IntBuffer values) throws IOException {
+        while (values.hasRemaining()) {
+            out.writeInt(values.get());
+        }
+    }
+
+    /**
+     * Write zeros up to the next multiple of 4 bytes
+     *
+     * @param written the number of bytes written so far
+     */
+    private static void pad(DataOutputStream out, long written) throws IOException {
+        out.write(new byte[(int) (-written & 3)]);
+    }
+
+    /**
+     * Write all sections sorted by their first lines
+     */
+    private static void writeSections(DataOutputStream out, FrozenTrie index) throws IOException {
+        SectionTable sections = SectionTable.of(index);
+        out.writeInt(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            writeString(out, sections.getTitle(i));
+            out.writeInt(sections.getStartLine(i));
+            out.writeInt(sections.getEndLine(i));
+        }
+    }
+
+    /**
+     * Write the size and UTF-8 bytes of a string
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /* ----------------------- Reading ---------------- */
+
+    /**
+     * Rebuild the frozen tries from a snapshot. The document is not split again:
+     * each word is inserted once and the compressed postings are copied without decoding them
+     *
+     * Run-time: O(n) where n is total size of the words and their occurrences
+     *
+     * @param fileName the snapshot file
+     * @return the rebuilt tries
+     * @throws IOException if the file cannot be read, is not a snapshot, has another version or is corrupted
+     */
+    static IndexSnapshot read(String fileName) throws IOException {
+        ByteBuffer body = open(fileName, true);
+        int lineCount = body.getInt();
+        int termCount = body.getInt();
+
+        int termBytes = body.getInt();
+        int[] termOffsets = readInts(body, termCount + 1);
+        String[] terms = new String[termCount];
+        int termStart = body.position();
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = readUtf8(body, termStart + termOffsets[i], termOffsets[i + 1] - termOffsets[i]);
+        }
+        body.position(align(termStart + termBytes));
+
+        TextTrie docTrie = new TextTrie();
+        for (String term : terms) {
+            docTrie.insertTerm(term);
+        }
+        Postings postings = readPostings(body, termCount, true);
+        docTrie.freeze(postings, readLinePostings(body, termCount, true));
+
+        TextTrie indexTrie = new TextTrie();
+        int sectionCount = body.getInt();
+        for (int i = 0; i < sectionCount; i++) {
+            String title = readString(body);
+            int startLine = body.getInt();
+            indexTrie.insertSection(title, startLine, body.getInt());
+        }
+
+        TextTrie stopWordsTrie = new TextTrie();
+        int stopWordCount = body.getInt();
+        for (int i = 0; i < stopWordCount; i++) {
+            stopWordsTrie.insertLine(readString(body), 1, null);
+        }
+
+        indexTrie.freeze();
+        stopWordsTrie.freeze();
+        return new IndexSnapshot(docTrie, indexTrie, stopWordsTrie, lineCount);
+    }
+
+    /**
+     * Map a snapshot file and check its header
+     *
+     * @param fileName the snapshot file
+     * @param verify true to compare the checksum of the body with the header
+     * @return the body of the snapshot, positioned at its start
+     * @throws IOException if the file cannot be read, is not a snapshot, has another version or is corrupted
+     */
+    static ByteBuffer open(String fileName, boolean verify) throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (file.capacity() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+            throw new IOException(fileName + " is not an index snapshot");
+        }
+        if (file.getInt(4) != VERSION) {
+            throw new IOException(fileName + " has unsupported snapshot version " + file.getInt(4));
+        }
+        long size = file.getLong(8);
+        if (size != file.capacity() - HEADER_SIZE) {
+            throw new IOException(fileName + " is truncated");
+        }
+        file.position(HEADER_SIZE);
+        ByteBuffer body = file.slice();
+        if (verify) {
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != file.getLong(16)) {
+                throw new IOException(fileName + " is corrupted");
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Read compressed postings at the current position and move past them
+     *
+     * @param buffer the buffer to read
+     * @param termCount the number of distinct words
+     * @param copy true to copy the postings onto the heap, false to decode them from the buffer
+     * @return the postings
+     */
+    static Postings readPostings(ByteBuffer buffer, int termCount, boolean copy) {
+        int blockCount = buffer.getInt(buffer.position() + 4);
+        int dataSize = buffer.getInt(buffer.position() + 8);
+        buffer.position(buffer.position() + 12);
+        IntBuffer offsets = readInts(buffer, termCount + 1, copy);
+        IntBuffer termBlocks = readInts(buffer, termCount + 1, copy);
+        IntBuffer blocks = readInts(buffer, blockCount * 3, copy);
+        return new Postings(readBytes(buffer, dataSize, copy), offsets, termBlocks, blocks);
+    }
+
+    /**
+     * Read compressed line postings at the current position and move past them
+     *
+     * @param buffer the buffer to read
+     * @param termCount the number of distinct words
+     * @param copy true to copy the lines onto the heap, false to decode them from the buffer
+     * @return the line postings
+     */
+    static LinePostings readLinePostings(ByteBuffer buffer, int termCount, boolean copy) {
+        int blockCount = buffer.getInt(buffer.position() + 4);
+        int dataSize = buffer.getInt(buffer.position() + 8);
+        buffer.position(buffer.position() + 12);
+        IntBuffer offsets = readInts(buffer, termCount + 1, copy);
+        IntBuffer termBlocks = readInts(buffer, termCount + 1, copy);
+        IntBuffer blocks = readInts(buffer, blockCount * 2, copy);
+        return new LinePostings(readBytes(buffer, dataSize, copy), offsets, termBlocks, blocks);
+    }
+
+    /**
+     * Read padded bytes at the current position and move past them
+     *
+     * @param copy true to copy the bytes onto the heap, false to view them in the buffer
+     */
+    private static ByteBuffer readBytes(ByteBuffer buffer, int size, boolean copy) {
+        ByteBuffer data = slice(buffer, size);
+        if (copy) {
+            byte[] bytes = new byte[size];
+            data.get(bytes);
+            data = ByteBuffer.wrap(bytes);
+        }
+        buffer.position(align(buffer.position() + size));
+        return data;
+    }
+
+    /**
+     * Read an array of ints at the current position and move past it
+     *
+     * @param copy true to copy the ints onto the heap, false to view them in the buffer
+     */
+    private static IntBuffer readInts(ByteBuffer buffer, int count, boolean copy) {
+        IntBuffer values = slice(buffer, count * 4).asIntBuffer();
+        buffer.position(buffer.position() + count * 4);
+        if (copy) {
+            int[] array = new int[count];
+            values.get(array);
+            return IntBuffer.wrap(array);
+        }
+        return values;
+    }
+
+    /**
+     * @return a buffer of the next bytes of a buffer, not moving the buffer
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int size) {
+        ByteBuffer part = buffer.duplicate();
+        part.limit(part.position() + size);
+        return part.slice();
+    }
+
+    /**
+     * @return the offset rounded up to a multiple of 4
+     */
+    static int align(int offset) {
+        return (offset + 3) & ~3;
+    }
+
+    /**
+     * Read an array of ints at the current position and move past it
+     *
+     * @param buffer the buffer to read
+     * @param count the number of ints
+     * @return the array
+     */
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * 4);
+        return values;
+    }
+
+    /**
+     * @return the string stored at the current position, moving past it
+     */
+    private static String readString(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        String text = readUtf8(buffer, buffer.position(), size);
+        buffer.position(buffer.position() + size);
+        return text;
+    }
+
+    /**
+     * @return the string decoded from UTF-8 bytes at an absolute position
+     */
+    static String readUtf8(ByteBuffer buffer, int position, int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An output stream counting the bytes written through it
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;     // the number of bytes written
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.Triple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An automaton (DFA) accepting the words within an edit distance of a word, e.g. "word" or "worlds" for "world"
+ * within distance 1. An edit inserts, deletes or replaces one character.
+ *
+ * A state of the DFA is a row of the edit distance table: the distance from the characters read so far
+ * to each prefix of the word, where every distance above the greatest allowed is the same.
+ * A state with no distance allowed is dead: no word with the characters read so far is close enough,
+ * which lets a walk of a dictionary prune the whole sub tree of a prefix (see FrozenTrie.matchAutomaton).
+ * The characters that are not in the word are one class, and each character of the word is a class of its own,
+ * so the DFA is built lazily one transition per class as in WildcardPattern.
+ *
+ * An automaton keeps its DFA, so it is not thread-safe. Compile an automaton for each search.
+ *
+ * Memory usage: O(s (m + c)) where s is the number of DFA states built, m is size of the word
+ *               and c is the number of distinct characters of the word
+ */
+public class LevenshteinAutomaton implements TermAutomaton {
+
+    // The greatest edit distance searched for
+    public static final int MAX_DISTANCE = 2;
+    // Marks a transition of the DFA that is not built yet
+    private static final int UNKNOWN = -2;
+
+    private final String word;              // the word to find the close words of, in lower case
+    private final int maxDistance;          // the greatest edit distance of a close word
+    private final char[] letters;           // the distinct characters of the word, sorted. Class i + 1 is letters[i]
+
+    private final Map<String, Integer> stateIds = new HashMap<>();  // the DFA state of each row
+    private char[][] stateRows = new char[8][];                     // the row of each DFA state
+    private int[][] transitions = new int[8][];                     // the next DFA state by state and class
+    private int stateCount;                                         // the number of DFA states built
+
+    private LevenshteinAutomaton(String word, int maxDistance) {
+        this.word = word;
+        this.maxDistance = maxDistance;
+        char[] sorted = word.toCharArray();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        letters = Arrays.copyOf(sorted, distinct);
+
+        // Before any character, the distance to a prefix of the word is its size (deleting it)
+        char[] row = new char[word.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = (char) Math.min(j, maxDistance + 1);
+        }
+        addState(row);
+    }
+
+    /**
+     * Compile an automaton for the words close to a word
+     *
+     * Run-time: O(m log m) where m is size of the word. The DFA is built later, while it is used
+     *
+     * @param word the word to find the close words of, e.g. a misspelled word
+     * @param maxDistance the greatest edit distance of a close word, from 0 to MAX_DISTANCE
+     * @return the automaton
+     * @throws IllegalArgumentException if word is null or empty, or maxDistance is out of range
+     */
+    public static LevenshteinAutomaton compile(String word, int maxDistance) throws IllegalArgumentException {
+        if (word == null || word.isEmpty()) {
+            throw new IllegalArgumentException("The word is empty");
+        }
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("The edit distance must be from 0 to " + MAX_DISTANCE + ": "
+                    + maxDistance);
+        }
+        return new LevenshteinAutomaton(word.toLowerCase(), maxDistance);
+    }
+
+    /**
+     * Rank the words found close to the word: the closest first, then the most frequent,
+     * then in the order they were found
+     *
+     * Run-time: O(w log w) where w is the number of words found
+     *
+     * @param matches the words found, with their edit distance and term id
+     * @param postings the occurrences of the words
+     * @return the words ranked, with their edit distance and their number of occurrences
+     */
+    static List<Triple<String, Integer, Integer>> rank(List<Triple<String, Integer, Integer>> matches,
+                                                       Postings postings) {
+        List<Triple<String, Integer, Integer>> ranked = new ArrayList<>(matches.size());
+        for (Triple<String, Integer, Integer> match : matches) {
+            ranked.add(new Triple<>(match.getLeftValue(), match.getCentreValue(),
+                    postings.count(match.getRightValue())));
+        }
+        // The sort is stable, so equal words keep the order they were found in
+        ranked.sort((x, y) -> (!x.getCentreValue().equals(y.getCentreValue()))
+                ? Integer.compare(x.getCentreValue(), y.getCentreValue())
+                : Integer.compare(y.getRightValue(), x.getRightValue()));
+        return ranked;
+    }
+
+    /* ----------------------- The DFA ---------------- */
+
+    @Override
+    public int start() {
+        return 0;
+    }
+
+    @Override
+    public int classOf(char c) {
+        int index = Arrays.binarySearch(letters, c);
+        return (index < 0) ? 0 : index + 1;
+    }
+
+    /**
+     * Follow a transition of the DFA, building it the first time
+     *
+     * Run-time: O(1) for a transition already built. O(m) to build one, where m is size of the word
+     *
+     * @param state a state of the DFA, not DEAD
+     * @param charClass the class of the next character, see classOf
+     * @return the next state. DEAD if no word continuing with the character is close enough
+     */
+    @Override
+    public int step(int state, int charClass) {
+        int next = transitions[state][charClass];
+        if (next == UNKNOWN) {
+            char[] row = stateRows[state];
+            char[] nextRow = new char[row.length];
+            boolean alive = false;
+            nextRow[0] = (char) Math.min(row[0] + 1, maxDistance + 1);
+            for (int j = 1; j < row.length; j++) {
+                // Class 0 is a character that is not in the word, so it replaces any character with a cost of 1
+                int replace = row[j - 1] + ((charClass > 0 && word.charAt(j - 1) == letters[charClass - 1]) ? 0 : 1);
+                int insert = row[j] + 1;
+                int delete = nextRow[j - 1] + 1;
+                nextRow[j] = (char) Math.min(Math.min(replace, Math.min(insert, delete)), maxDistance + 1);
+                alive |= nextRow[j] <= maxDistance;
+            }
+            alive |= nextRow[0] <= maxDistance;
+            next = alive ? addState(nextRow) : DEAD;
+            transitions[state][charClass] = next;
+        }
+        return next;
+    }
+
+    /**
+     * @param state a state of the DFA, not DEAD
+     * @return True if a word ending in this state is close enough to the word
+     */
+    @Override
+    public boolean isAccepting(int state) {
+        return distance(state) <= maxDistance;
+    }
+
+    /**
+     * @param state a state of the DFA, not DEAD
+     * @return the edit distance of a word ending in this state. Greater than the greatest distance if it is not close
+     */
+    int distance(int state) {
+        char[] row = stateRows[state];
+        return row[row.length - 1];
+    }
+
+    /**
+     * @param row a row of the edit distance table
+     * @return the DFA state of the row, added if it is new
+     */
+    private int addState(char[] row) {
+        String key = new String(row);
+        Integer id = stateIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (stateCount == stateRows.length) {
+            stateRows = Arrays.copyOf(stateRows, stateCount * 2);
+            transitions = Arrays.copyOf(transitions, stateCount * 2);
+        }
+        stateRows[stateCount] = row;
+        transitions[stateCount] = new int[letters.length + 1];
+        Arrays.fill(transitions[stateCount], UNKNOWN);
+        stateIds.put(key, stateCount);
+        return stateCount++;
+    }
+
+    /**
+     * @return the greatest edit distance of a close word
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @return the word and the greatest edit distance, e.g. "world~1"
+     */
+    @Override
+    public String toString() {
+        return word + "~" + maxDistance;
+    }
+}
@@ -0,0 +1,183 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Leaf;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read a document into a trie by scanning the bytes of the memory-mapped file.
+ *
+ * Words are lowered and split while scanning, without creating a string for each line or word.
+ * The splitting gives the same words and columns as TextTrie.insertLine on the lower case line:
+ *      a-z (A-Z are lowered), 0-9 and underscores are word characters,
+ *      an apostrophe is part of a word only if it has a-z on both sides,
+ *      every other character separates words.
+ * Lines end with "\n", "\r" or "\r\n" as in BufferedReader.readLine.
+ *
+ * The file is read in the platform's default charset, like FileReader, which is expected to be UTF-8
+ * or a single-byte charset. Characters outside ASCII separate words. In UTF-8 each of them counts as one column,
+ * as insertLine splits by code points, otherwise each byte counts as one column.
+ *
+ * Memory usage: O(w) where w is size of the longest word, besides the trie
+ */
+class MappedDocumentReader {
+
+    // The largest part of the file mapped at once
+    private static final long WINDOW = 1L << 30;
+
+    private final TextTrie trie;    // the trie to insert words into
+    private final boolean utf8;     // true if the file is decoded as UTF-8
+
+    private char[] word;            // characters of the current word
+    private int length;             // the number of characters in the current word
+    private int wordCol;            // the column of the first character of the current word
+    private boolean apostrophe;     // true if an apostrophe follows the current word and may be kept
+    private int lineNo;             // the current line number
+    private int col;                // the column of the next character
+    private boolean lineStarted;    // true if the current line has any character
+    private boolean afterReturn;    // true if the previous byte is '\r'
+    private Leaf previous;          // the leaf node of the previous word
+
+    /**
+     * Constructor. Create a reader for a trie
+     *
+     * @param trie the trie to insert words into
+     */
+    private MappedDocumentReader(TextTrie trie) {
+        this.trie = trie;
+        utf8 = Charset.defaultCharset().equals(StandardCharsets.UTF_8);
+        word = new char[64];
+        lineNo = 1;
+        col = 1;
+    }
+
+    /**
+     * Insert all words of a document into a trie
+     *
+     * Run-time: O(n) where n is size of the file
+     *
+     * @param fileName the name of the document file
+     * @param trie the trie to insert words into
+     * @return the number of lines in the document
+     * @throws IOException if the file cannot be read
+     */
+    static int load(String fileName, TextTrie trie) throws IOException {
+        MappedDocumentReader reader = new MappedDocumentReader(trie);
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; start += WINDOW) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(WINDOW, size - start));
+                while (buffer.hasRemaining()) {
+                    reader.scan(buffer.get());
+                }
+            }
+        }
+        return reader.finish();
+    }
+
+    /**
+     * Move the state forward by one byte
+     *
+     * @param b the next byte of the file
+     */
+    private void scan(byte b) {
+        if (b == '\n' && afterReturn) {
+            // The second half of "\r\n"
+            afterReturn = false;
+            return;
+        }
+        afterReturn = false;
+        if (b == '\n' || b == '\r') {
+            endLine();
+            afterReturn = (b == '\r');
+            return;
+        }
+        lineStarted = true;
+
+        char letter = (char) (b & 0xff);
+        if (letter >= 'A' && letter <= 'Z') {
+            letter = (char) (letter + ('a' - 'A'));
+        }
+        if (apostrophe) {
+            apostrophe = false;
+            if (letter >= 'a' && letter <= 'z') {
+                // The apostrophe is inside a word
+                append('\'');
+            } else {
+                endWord();
+            }
+        }
+
+        if ((letter >= 'a' && letter <= 'z') || (letter >= '0' && letter <= '9') || letter == '_') {
+            if (length == 0) {
+                wordCol = col;
+            }
+            append(letter);
+        } else if (letter == '\'' && length > 0 && word[length - 1] >= 'a' && word[length - 1] <= 'z') {
+            // Kept only if the next character is a-z
+            apostrophe = true;
+        } else {
+            endWord();
+        }
+
+        if (!utf8) {
+            col++;
+        } else if (letter < 0x80 || letter >= 0xc0) {
+            // Continuation bytes of UTF-8 do not start a new character
+            col++;
+        }
+    }
+
+    /**
+     * @param letter the character to add to the current word
+     */
+    private void append(char letter) {
+        if (length == word.length) {
+            char[] larger = new char[length * 2];
+            System.arraycopy(word, 0, larger, 0, length);
+            word = larger;
+        }
+        word[length++] = letter;
+    }
+
+    /**
+     * Insert the current word into the trie, if there is one
+     */
+    private void endWord() {
+        if (length > 0) {
+            previous = trie.insertWord(word, 0, length, lineNo, wordCol, previous);
+            length = 0;
+        }
+        apostrophe = false;
+    }
+
+    /**
+     * Finish the current line
+     */
+    private void endLine() {
+        endWord();
+        lineNo++;
+        col = 1;
+        lineStarted = false;
+    }
+
+    /**
+     * Finish the document
+     *
+     * @return the number of lines in the document
+     */
+    private int finish() {
+        if (lineStarted) {
+            // The last line has no line break
+            endLine();
+        }
+        return lineNo - 1;
+    }
+}
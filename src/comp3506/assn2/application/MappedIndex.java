@@ -0,0 +1,644 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.LinePostings;
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.Triple;
+
+import static comp3506.assn2.application.SearchEngine.checkString;
+import static comp3506.assn2.application.SearchEngine.fixedLineQuery;
+import static comp3506.assn2.application.SearchEngine.fixedSectionQuery;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Searches served directly from a memory-mapped index snapshot (see IndexSnapshot).
+ *
+ * The term dictionary and the postings are never copied onto the heap.
+ * A word is found by a binary search over the sorted words in the file, and a search decodes only the
+ * compressed blocks of the words it needs. Opening the file only reads the header, the sections and the stop words,
+ * so it takes about the same time for any size of document, and processes mapping the same file share
+ * the operating system's page cache.
+ *
+ * Searches give the same results as AutoTester on the same files.
+ *
+ * Memory usage: O(s + l + w) on the heap where s is the number of sections, l is the number of lines
+ *               in the sections (see SectionTable) and w is the number of stop words,
+ *               and the suffix array of the words once it is used (see TermSuffixArray).
+ *               The snapshot must be smaller than 2GB.
+ */
+public class MappedIndex implements Search, TermDictionary {
+
+    /* --- Select different logic in searches --- */
+    private static final int AND = TextTrie.AND;
+    private static final int OR = TextTrie.OR;
+    private static final int NOT = TextTrie.NOT;
+    private static final int COMPOUND = TextTrie.COMPOUND;
+
+    private final String fileName;      // the snapshot file
+    private final ByteBuffer body;      // the mapped body of the snapshot
+    private final int lineCount;        // the number of lines in the document
+    private final int termCount;        // the number of distinct words
+    private final Postings postings;    // the compressed postings, decoded from the mapped file
+    private final LinePostings lines;   // the compressed lines of each word, decoded from the mapped file
+
+    /* --- Positions of the dictionary in the body --- */
+    private final int termOffsetsAt;
+    private final int termBytesAt;
+
+    private final SectionTable sections; // the sections, by first line and by title
+    private final String[] stopWords;   // stop-words, sorted
+    private volatile TermSuffixArray suffixArray;   // the suffixes of all words. Null until an infix search
+    private final SearchEngine engine;  // the searches shared with the tries
+
+    /**
+     * Open a snapshot written by AutoTester.writeSnapshot without checking its checksum
+     *
+     * @param snapshotFileName Name of the snapshot file.
+     * @throws FileNotFoundException if the file cannot be mapped, is not a snapshot or has another version.
+     * @throws IllegalArgumentException if snapshotFileName is null or an empty string.
+     */
+    public MappedIndex(String snapshotFileName) throws FileNotFoundException, IllegalArgumentException {
+        checkString(snapshotFileName);
+        fileName = snapshotFileName;
+        try {
+            body = IndexSnapshot.open(snapshotFileName, false);
+        } catch (IOException e) {
+            FileNotFoundException notLoaded = new FileNotFoundException(snapshotFileName);
+            notLoaded.initCause(e);
+            throw notLoaded;
+        }
+        lineCount = body.getInt(0);
+        termCount = body.getInt(4);
+        int termBytes = body.getInt(8);
+        termOffsetsAt = 12;
+        termBytesAt = termOffsetsAt + (termCount + 1) * 4;
+        ByteBuffer rest = body.duplicate();
+        rest.position(IndexSnapshot.align(termBytesAt + termBytes));
+        postings = IndexSnapshot.readPostings(rest, termCount, false);
+        lines = IndexSnapshot.readLinePostings(rest, termCount, false);
+
+        // Sections and stop words are small, so they are read onto the heap
+        int sectionCount = rest.getInt();
+        String[] titles = new String[sectionCount];
+        int[] startLines = new int[sectionCount];
+        int[] endLines = new int[sectionCount];
+        for (int i = 0; i < sectionCount; i++) {
+            // The sections are saved sorted by first line
+            titles[i] = readString(rest);
+            startLines[i] = rest.getInt();
+            endLines[i] = rest.getInt();
+        }
+        sections = new SectionTable(titles, startLines, endLines);
+        stopWords = new String[rest.getInt()];
+        for (int i = 0; i < stopWords.length; i++) {
+            stopWords[i] = readString(rest);
+        }
+        Arrays.sort(stopWords);
+        engine = new SearchEngine(this, postings, lines, this::isStopWord, sections, lineCount);
+    }
+
+    /**
+     * Compare the checksum of the whole snapshot with its header.
+     * Not done when opening, since it reads every byte of the file
+     *
+     * @throws IOException if the snapshot is corrupted
+     */
+    public void verify() throws IOException {
+        IndexSnapshot.open(fileName, true);
+    }
+
+    /* ----------------------- Searches ---------------- */
+
+    /**
+     * Run-time: O(m log t) where m is size of the word and t is the number of distinct words
+     */
+    @Override
+    public int wordCount(String word) throws IllegalArgumentException {
+        checkString(word);
+        int termId = termId(word.toLowerCase());
+        return (termId >= 0) ? postings.count(termId) : 0;
+    }
+
+    /**
+     * Count the occurrences of all words having a prefix without reading them, see AutoTester.prefixCount
+     *
+     * Run-time: O(m log t) where m is size of the prefix and t is the number of distinct words.
+     *           The words having the prefix are one range of the sorted dictionary
+     *
+     * @param prefix The prefix to count
+     * @return The number of occurrences. 0 if the prefix is not found
+     * @throws IllegalArgumentException if prefix is null or an empty String.
+     */
+    public int prefixCount(String prefix) throws IllegalArgumentException {
+        checkString(prefix);
+        byte[] key = prefix.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        return postings.count(lowerBound(key, false), lowerBound(key, true));
+    }
+
+    /**
+     * Run-time: O(m log t + rk log b + c) where m is size of the phrase, t is the number of distinct words,
+     *           k is the number of occurrences of the rarest word, r is the number of words in the phrase,
+     *           b is the number of blocks of a word and c is the number of occurrences decoded in the blocks
+     *           that are not skipped
+     *
+     *           The positions of the words, shifted by their index in the phrase, are intersected from the
+     *           rarest word, and the other words gallop over their blocks to it, see HitCursor.phrase
+     */
+    @Override
+    public List<Pair<Integer, Integer>> phraseOccurrence(String phrase) throws IllegalArgumentException {
+        return phraseCursor(phrase).pairs().collect(Collectors.toList());
+    }
+
+    /**
+     * Run-time: O(m log t + s) where m is size of the prefix, t is the number of distinct words
+     *           and s is the number of occurrences of words having the prefix.
+     *           Words having the prefix are next to each other in the sorted dictionary
+     */
+    @Override
+    public List<Pair<Integer, Integer>> prefixOccurrence(String prefix) throws IllegalArgumentException {
+        return prefixCursor(prefix).pairs().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Integer> wordsOnLine(String[] words) throws IllegalArgumentException {
+        return engine.lines(fixedLineQuery(words, null, AND));
+    }
+
+    @Override
+    public List<Integer> someWordsOnLine(String[] words) throws IllegalArgumentException {
+        return engine.lines(fixedLineQuery(words, null, OR));
+    }
+
+    @Override
+    public List<Integer> wordsNotOnLine(String[] wordsRequired, String[] wordsExcluded)
+            throws IllegalArgumentException {
+        return engine.lines(fixedLineQuery(wordsRequired, wordsExcluded, NOT));
+    }
+
+    @Override
+    public List<Triple<Integer, Integer, String>> simpleAndSearch(String[] titles, String[] words)
+            throws IllegalArgumentException {
+        return engine.sections(titles, fixedSectionQuery(words, null, AND));
+    }
+
+    @Override
+    public List<Triple<Integer, Integer, String>> simpleOrSearch(String[] titles, String[] words)
+            throws IllegalArgumentException {
+        return engine.sections(titles, fixedSectionQuery(words, null, OR));
+    }
+
+    @Override
+    public List<Triple<Integer, Integer, String>> simpleNotSearch(String[] titles, String[] wordsRequired,
+                                                                 String[] wordsExcluded)
+            throws IllegalArgumentException {
+        return engine.sections(titles, fixedSectionQuery(wordsRequired, wordsExcluded, NOT));
+    }
+
+    @Override
+    public List<Triple<Integer, Integer, String>> compoundAndOrSearch(String[] titles, String[] wordsRequired,
+                                                                     String[] orWords)
+            throws IllegalArgumentException {
+        return engine.sections(titles, fixedSectionQuery(wordsRequired, orWords, COMPOUND));
+    }
+
+    /* ----------------------- Logic searches ---------------- */
+
+    /**
+     * Search for lines that match a boolean query, see AutoTester.queryLines
+     *
+     * @param query The query, e.g. "(king AND (crown OR throne)) AND NOT fool"
+     * @return Sorted line numbers without repeats
+     * @throws IllegalArgumentException if query is null or not a valid query
+     */
+    public List<Integer> queryLines(String query) throws IllegalArgumentException {
+        return engine.lines(BooleanQuery.parse(query));
+    }
+
+    /**
+     * Search sections for a boolean query, see AutoTester.querySections
+     *
+     * @param titles Array of titles of the sections to search within,
+     *               the entire document is searched if titles is null or an empty array.
+     * @param query The query, e.g. "(king AND (crown OR throne)) AND NOT fool"
+     * @return Triples for each occurrence of the words that are not inside a NOT, in the matching sections
+     * @throws IllegalArgumentException if query is null or not a valid query,
+     *                                  or any of the titles are null or empty.
+     */
+    public List<Triple<Integer, Integer, String>> querySections(String[] titles, String query)
+            throws IllegalArgumentException {
+        return engine.sections(titles, BooleanQuery.parse(query));
+    }
+
+    /* ----------------------- Streaming searches ---------------- */
+
+    /**
+     * Find the occurrences of a phrase one at a time, see AutoTester.phraseCursor
+     *
+     * @param phrase The phrase to search for
+     * @return A cursor over the first word of each occurrence of the phrase
+     * @throws IllegalArgumentException if phrase is null or an empty String.
+     */
+    public HitCursor phraseCursor(String phrase) throws IllegalArgumentException {
+        checkString(phrase);
+        String[] allWords = phrase.toLowerCase().split(" ");
+        int[] termIds = new int[allWords.length];
+        for (int i = 0; i < allWords.length; i++) {
+            termIds[i] = termId(allWords[i]);
+        }
+        return HitCursor.phrase(postings, termIds);
+    }
+
+    /**
+     * Find the occurrences of a prefix one at a time, see AutoTester.prefixCursor
+     *
+     * @param prefix The prefix to search for
+     * @return A cursor over the occurrences of the words having the prefix, word by word in lexicographic order
+     * @throws IllegalArgumentException if prefix is null or an empty String.
+     */
+    public HitCursor prefixCursor(String prefix) throws IllegalArgumentException {
+        return prefixCursor(prefix, false);
+    }
+
+    /**
+     * Find the occurrences of a prefix one at a time, see AutoTester.prefixCursor(String, boolean).
+     * The words having the prefix are one range of the sorted dictionary
+     *
+     * @param prefix The prefix to search for
+     * @param documentOrder true for the order of the document, false for word by word in lexicographic order
+     * @return A cursor over the occurrences of the words having the prefix
+     * @throws IllegalArgumentException if prefix is null or an empty String.
+     */
+    public HitCursor prefixCursor(String prefix, boolean documentOrder) throws IllegalArgumentException {
+        checkString(prefix);
+        byte[] key = prefix.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        int first = lowerBound(key, false);
+        int last = lowerBound(key, true);
+        return documentOrder ? HitCursor.merged(postings, first, last) : HitCursor.terms(postings, first, last);
+    }
+
+    /**
+     * Search for lines that match a boolean query one at a time, see AutoTester.lineStream
+     *
+     * @param query The query, e.g. "(king AND (crown OR throne)) AND NOT fool"
+     * @return A lazy stream of the matching line numbers, sorted and without repeats
+     * @throws IllegalArgumentException if query is null or not a valid query
+     */
+    public IntStream lineStream(String query) throws IllegalArgumentException {
+        return engine.lineStream(BooleanQuery.parse(query));
+    }
+
+    /**
+     * Search sections for a boolean query, reading the occurrences one at a time, see AutoTester.sectionCursor
+     *
+     * @param titles Array of titles of the sections to search within,
+     *               the entire document is searched if titles is null or an empty array.
+     * @param query The query, e.g. "(king AND (crown OR throne)) AND NOT fool"
+     * @return A cursor over the occurrences of querySections, in the same order
+     * @throws IllegalArgumentException if query is null or not a valid query,
+     *                                  or any of the titles are null or empty.
+     */
+    public HitCursor sectionCursor(String[] titles, String query) throws IllegalArgumentException {
+        return engine.sectionCursor(titles, BooleanQuery.parse(query));
+    }
+
+    /**
+     * Find the occurrences of the words matching a wildcard pattern, see AutoTester.wildcardOccurrence
+     */
+    public List<Pair<Integer, Integer>> wildcardOccurrence(String pattern) throws IllegalArgumentException {
+        return wildcardCursor(pattern, WildcardPattern.DEFAULT_MAX_TERMS).pairs().collect(Collectors.toList());
+    }
+
+    /**
+     * Find the occurrences of the words matching a wildcard pattern, see AutoTester.wildcardCursor
+     *
+     * @param pattern The pattern, e.g. "wor?d" or "*ness", see WildcardPattern
+     * @param maxTerms The greatest number of words to expand the pattern to
+     * @return A cursor over the occurrences of the first maxTerms matching words, in the order of the document
+     * @throws IllegalArgumentException if the pattern is not valid or maxTerms is negative
+     */
+    public HitCursor wildcardCursor(String pattern, int maxTerms) throws IllegalArgumentException {
+        return engine.wildcardCursor(pattern, maxTerms);
+    }
+
+    /**
+     * Find the occurrences of the words containing a string, see AutoTester.infixOccurrence
+     */
+    public List<Pair<Integer, Integer>> infixOccurrence(String infix) throws IllegalArgumentException {
+        return infixCursor(infix, false).pairs().collect(Collectors.toList());
+    }
+
+    /**
+     * Find the occurrences of the words containing a string one at a time, see AutoTester.infixCursor
+     *
+     * @param infix The string to search for
+     * @param documentOrder True for the order of the document, false for word by word in lexicographic order
+     * @return A cursor over the occurrences of the words containing the string
+     * @throws IllegalArgumentException if infix is null or empty
+     */
+    public HitCursor infixCursor(String infix, boolean documentOrder) throws IllegalArgumentException {
+        return engine.infixCursor(infix, documentOrder);
+    }
+
+    /**
+     * Find the occurrences of the words ending with a string, see AutoTester.suffixOccurrence
+     */
+    public List<Pair<Integer, Integer>> suffixOccurrence(String suffix) throws IllegalArgumentException {
+        return suffixCursor(suffix, false).pairs().collect(Collectors.toList());
+    }
+
+    /**
+     * Find the occurrences of the words ending with a string one at a time, see AutoTester.suffixCursor
+     *
+     * @param suffix The string to search for
+     * @param documentOrder True for the order of the document, false for word by word in lexicographic order
+     * @return A cursor over the occurrences of the words ending with the string
+     * @throws IllegalArgumentException if suffix is null or empty
+     */
+    public HitCursor suffixCursor(String suffix, boolean documentOrder) throws IllegalArgumentException {
+        return engine.suffixCursor(suffix, documentOrder);
+    }
+
+    /**
+     * The suffix array is built on the heap from the mapped dictionary by the first infix or suffix search
+     *
+     * Run-time: O(c log c) the first time, where c is the number of characters of all words
+     *
+     * @return the suffix array of all words, with its size and build time
+     */
+    @Override
+    public TermSuffixArray getSuffixArray() {
+        if (suffixArray == null) {
+            synchronized (this) {
+                if (suffixArray == null) {
+                    String[] terms = new String[termCount];
+                    for (int termId = 0; termId < termCount; termId++) {
+                        terms[termId] = termAt(termId);
+                    }
+                    suffixArray = new TermSuffixArray(terms);
+                }
+            }
+        }
+        return suffixArray;
+    }
+
+    /**
+     * Find the words close to a word, see AutoTester.fuzzyTerms
+     *
+     * @param word The word, e.g. a misspelled word
+     * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE
+     * @return Triples of each close word, its edit distance and its number of occurrences,
+     *         the closest first and then the most frequent
+     * @throws IllegalArgumentException if word is null or empty, or maxDistance is out of range
+     */
+    public List<Triple<String, Integer, Integer>> fuzzyTerms(String word, int maxDistance)
+            throws IllegalArgumentException {
+        return engine.fuzzyTerms(word, maxDistance);
+    }
+
+    /**
+     * Find the occurrences of the words close to a word, see AutoTester.fuzzyOccurrence
+     */
+    public List<Pair<Integer, Integer>> fuzzyOccurrence(String word, int maxDistance)
+            throws IllegalArgumentException {
+        return fuzzyCursor(word, maxDistance).pairs().collect(Collectors.toList());
+    }
+
+    /**
+     * Find the occurrences of the words close to a word one at a time, see AutoTester.fuzzyCursor
+     */
+    public HitCursor fuzzyCursor(String word, int maxDistance) throws IllegalArgumentException {
+        return engine.fuzzyCursor(word, maxDistance);
+    }
+
+    /**
+     * Find the words an automaton accepts by running it over the sorted dictionary.
+     * When a word's prefix is rejected, every later word with the same prefix is jumped over
+     * by a binary search, as a trie walk would prune the sub tree of the prefix (see FrozenTrie.matchAutomaton)
+     *
+     * Run-time: O(v (m + log t)) where v is the number of words read, m is size of a word
+     *           and t is the number of distinct words
+     *
+     * @param automaton the automaton, e.g. a WildcardPattern or a LevenshteinAutomaton
+     * @param maxTerms the greatest number of words to find. The scan stops once it has found them
+     * @return Triples of each accepted word, the state of the automaton after it and its term id,
+     *         for the first maxTerms accepted words in lexicographic order
+     */
+    @Override
+    public List<Triple<String, Integer, Integer>> matchAutomaton(TermAutomaton automaton, int maxTerms) {
+        List<Triple<String, Integer, Integer>> matches = new ArrayList<>();
+        int termId = 0;
+        while (termId < termCount && matches.size() < maxTerms) {
+            String term = termAt(termId);
+            int state = automaton.start();
+            int read = 0;
+            while (read < term.length() && state != TermAutomaton.DEAD) {
+                state = automaton.step(state, automaton.classOf(term.charAt(read++)));
+            }
+            if (state == TermAutomaton.DEAD) {
+                termId = lowerBound(term.substring(0, read).getBytes(StandardCharsets.UTF_8), true);
+                continue;
+            }
+            if (automaton.isAccepting(state)) {
+                matches.add(new Triple<>(term, state, termId));
+            }
+            termId++;
+        }
+        return matches;
+    }
+
+    /* ----------------------- Paginated searches ---------------- */
+
+    /**
+     * Find one page of the occurrences of a phrase, see AutoTester.phraseOccurrence(String, int, int)
+     */
+    public Page<Pair<Integer, Integer>> phraseOccurrence(String phrase, int offset, int limit)
+            throws IllegalArgumentException {
+        return Page.pairs(phraseCursor(phrase), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of a prefix, see AutoTester.prefixOccurrence(String, int, int)
+     */
+    public Page<Pair<Integer, Integer>> prefixOccurrence(String prefix, int offset, int limit)
+            throws IllegalArgumentException {
+        return Page.pairs(prefixCursor(prefix), offset, limit);
+    }
+
+    /**
+     * Find one page of the lines of wordsOnLine, see AutoTester.wordsOnLine(String[], int, int)
+     */
+    public Page<Integer> wordsOnLine(String[] words, int offset, int limit) throws IllegalArgumentException {
+        return engine.linePage(fixedLineQuery(words, null, AND), offset, limit);
+    }
+
+    /**
+     * Find one page of the lines of someWordsOnLine, see AutoTester.wordsOnLine(String[], int, int)
+     */
+    public Page<Integer> someWordsOnLine(String[] words, int offset, int limit) throws IllegalArgumentException {
+        return engine.linePage(fixedLineQuery(words, null, OR), offset, limit);
+    }
+
+    /**
+     * Find one page of the lines of wordsNotOnLine, see AutoTester.wordsOnLine(String[], int, int)
+     */
+    public Page<Integer> wordsNotOnLine(String[] wordsRequired, String[] wordsExcluded, int offset, int limit)
+            throws IllegalArgumentException {
+        return engine.linePage(fixedLineQuery(wordsRequired, wordsExcluded, NOT), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of simpleAndSearch, see AutoTester.simpleAndSearch(String[], String[], int, int)
+     */
+    public Page<Triple<Integer, Integer, String>> simpleAndSearch(String[] titles, String[] words, int offset,
+                                                                  int limit) throws IllegalArgumentException {
+        return engine.sectionPage(titles, fixedSectionQuery(words, null, AND), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of simpleOrSearch, see AutoTester.simpleAndSearch(String[], String[], int, int)
+     */
+    public Page<Triple<Integer, Integer, String>> simpleOrSearch(String[] titles, String[] words, int offset,
+                                                                 int limit) throws IllegalArgumentException {
+        return engine.sectionPage(titles, fixedSectionQuery(words, null, OR), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of simpleNotSearch, see AutoTester.simpleAndSearch(String[], String[], int, int)
+     */
+    public Page<Triple<Integer, Integer, String>> simpleNotSearch(String[] titles, String[] wordsRequired,
+                                                                  String[] wordsExcluded, int offset, int limit)
+            throws IllegalArgumentException {
+        return engine.sectionPage(titles, fixedSectionQuery(wordsRequired, wordsExcluded, NOT), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of compoundAndOrSearch,
+     * see AutoTester.simpleAndSearch(String[], String[], int, int)
+     */
+    public Page<Triple<Integer, Integer, String>> compoundAndOrSearch(String[] titles, String[] wordsRequired,
+                                                                      String[] orWords, int offset, int limit)
+            throws IllegalArgumentException {
+        return engine.sectionPage(titles, fixedSectionQuery(wordsRequired, orWords, COMPOUND), offset, limit);
+    }
+
+    /**
+     * Find one page of the lines of queryLines, see AutoTester.wordsOnLine(String[], int, int)
+     */
+    public Page<Integer> queryLines(String query, int offset, int limit) throws IllegalArgumentException {
+        return engine.linePage(BooleanQuery.parse(query), offset, limit);
+    }
+
+    /**
+     * Find one page of the occurrences of querySections, see AutoTester.simpleAndSearch(String[], String[], int, int)
+     */
+    public Page<Triple<Integer, Integer, String>> querySections(String[] titles, String query, int offset,
+                                                                int limit) throws IllegalArgumentException {
+        return engine.sectionPage(titles, BooleanQuery.parse(query), offset, limit);
+    }
+
+    /**
+     * Plan a group of words of a logic search without reading their postings, see QueryPlan
+     *
+     * @param allWords Array of words of the group. Null for no words
+     * @param required True if every word must be found (AND), false for alternatives or exclusions
+     * @return The plan, which describes its decisions in toString()
+     */
+    public QueryPlan plan(String[] allWords, boolean required) {
+        return engine.plan(allWords, required);
+    }
+
+    /* ----------------------- Reading the mapped file ---------------- */
+
+    /**
+     * Binary search for a word in the dictionary
+     *
+     * @param word the lower case word
+     * @return the term id. -1 if the word is not found
+     */
+    @Override
+    public int termId(String word) {
+        byte[] key = word.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(key, false);
+        return (index < termCount && compare(index, key, false) == 0) ? index : -1;
+    }
+
+    /**
+     * @param key the UTF-8 bytes of a word or a prefix
+     * @param prefix true to treat words starting with the key as equal to it
+     * @return the first term id whose word is not smaller than the key (or, for a prefix,
+     *         not smaller and not starting with it). termCount if there is no such word
+     */
+    private int lowerBound(byte[] key, boolean prefix) {
+        int low = 0;
+        int high = termCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key, prefix);
+            if (cmp < 0 || (prefix && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compare a word in the dictionary with a key, byte by byte
+     *
+     * @param termId the id of the word in the dictionary
+     * @param key the bytes to compare with
+     * @param prefix true to treat a word starting with the key as equal to it
+     * @return negative, zero or positive if the word is smaller, equal or greater
+     */
+    private int compare(int termId, byte[] key, boolean prefix) {
+        int start = body.getInt(termOffsetsAt + termId * 4);
+        int size = body.getInt(termOffsetsAt + termId * 4 + 4) - start;
+        int length = Math.min(size, key.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = (body.get(termBytesAt + start + i) & 0xff) - (key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        if (prefix && size >= key.length) {
+            return 0;
+        }
+        return size - key.length;
+    }
+
+    /**
+     * @param termId the id of a word in the dictionary
+     * @return the word
+     */
+    private String termAt(int termId) {
+        int start = body.getInt(termOffsetsAt + termId * 4);
+        int size = body.getInt(termOffsetsAt + termId * 4 + 4) - start;
+        return IndexSnapshot.readUtf8(body, termBytesAt + start, size);
+    }
+
+    /**
+     * @return True if the lower case word is a stop-word
+     */
+    private boolean isStopWord(String word) {
+        return Arrays.binarySearch(stopWords, word) >= 0;
+    }
+
+    /* ----------------------- Helpers ---------------- */
+
+    private static String readString(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        String text = IndexSnapshot.readUtf8(buffer, buffer.position(), size);
+        buffer.position(buffer.position() + size);
+        return text;
+    }
+}
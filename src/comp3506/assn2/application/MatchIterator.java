@@ -0,0 +1,391 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.LinePostingsCursor;
+import comp3506.assn2.utils.PostingsCursor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An iterator over the ids that match a compiled query: line numbers in a line search,
+ * or section ids (see SectionTable) in a section search.
+ *
+ * The ids come out in increasing order. advance() moves to the first matching id on or after a target,
+ * which lets an AND jump every other iterator to the candidate of its rarest one, so a query is evaluated
+ * by skipping over the compressed postings instead of building the list of each sub query.
+ *
+ * Every iterator starts before its first id. END is returned once the iterator has passed its last id.
+ */
+abstract class MatchIterator {
+
+    // Returned after the last id
+    static final int END = Integer.MAX_VALUE;
+
+    int current = -1;                   // the current id. -1 before the first, END after the last
+
+    /**
+     * Move to the first matching id on or after a target. Does not move if the current id is on or after it
+     *
+     * @param target the id to move to
+     * @return the new current id. END if there is none
+     */
+    abstract int advance(int target);
+
+    /**
+     * @return an upper bound of the number of ids, used to order the iterators of an AND
+     */
+    abstract int cost();
+
+    /**
+     * Move to the next matching id
+     *
+     * @return the new current id. END if there is none
+     */
+    int next() {
+        return (current == END) ? END : advance(current + 1);
+    }
+
+    /**
+     * @return All the ids that are left, in increasing order
+     */
+    int[] toArray() {
+        int[] result = new int[Math.max(cost(), 0)];
+        int size = 0;
+        for (int id = next(); id != END; id = next()) {
+            if (size == result.length) {
+                result = Arrays.copyOf(result, Math.max(16, size * 2));
+            }
+            result[size++] = id;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return A lazy stream of the ids that are left, in increasing order.
+     *         Each id is found only when the stream asks for it, so e.g. limit(10) stops the query after ten ids
+     */
+    IntStream stream() {
+        return StreamSupport.intStream(new Spliterators.AbstractIntSpliterator(Math.max(cost(), 0),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT) {
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                int id = next();
+                if (id == END) {
+                    return false;
+                }
+                action.accept(id);
+                return true;
+            }
+
+            @Override
+            public Comparator<? super Integer> getComparator() {
+                // Sorted in the natural order
+                return null;
+            }
+        }, false);
+    }
+
+    /**
+     * @return an iterator without any id, e.g. for a word that is not in the document
+     */
+    static MatchIterator empty() {
+        return new Range(0, -1);
+    }
+
+    /**
+     * Every id in a range, e.g. all lines of the document
+     */
+    static final class Range extends MatchIterator {
+
+        private final int first;        // the first id
+        private final int last;         // the last id
+
+        Range(int first, int last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            int id = Math.max(target, first);
+            return current = (id <= last) ? id : END;
+        }
+
+        @Override
+        int cost() {
+            return Math.max(0, last - first + 1);
+        }
+
+        @Override
+        public String toString() {
+            return (cost() == 0) ? "NONE" : "ALL";
+        }
+    }
+
+    /**
+     * The lines of one word
+     */
+    static final class Lines extends MatchIterator {
+
+        private final String word;              // the word, for toString
+        private final LinePostingsCursor cursor;// the lines of the word
+        private final int count;                // the number of lines of the word
+
+        Lines(String word, LinePostingsCursor cursor) {
+            this.word = word;
+            this.cursor = cursor;
+            count = cursor.getCount();
+        }
+
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            return current = cursor.skipTo(target) ? cursor.getLine() : END;
+        }
+
+        @Override
+        int cost() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return word + ":" + count;
+        }
+    }
+
+    /**
+     * The sections that contain one word
+     */
+    static final class Sections extends MatchIterator {
+
+        private final String word;              // the word, for toString
+        private final PostingsCursor cursor;    // the occurrences of the word
+        private final SectionTable table;       // the sections of the document
+        private final int count;                // the number of lines of the word
+
+        Sections(String word, PostingsCursor cursor, SectionTable table, int count) {
+            this.word = word;
+            this.cursor = cursor;
+            this.table = table;
+            this.count = count;
+        }
+
+        /**
+         * Run-time: O(log(n / b) + b) for each section passed, where n is the number of occurrences of the word
+         *           and b is size of a block. Disjoint sections without the word are jumped over
+         *           through the line lookup of the table
+         */
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            int id = target;
+            while (id < table.size() && cursor.seekLine(table.getStartLine(id))) {
+                int line = cursor.getLine();
+                if (line <= table.getEndLine(id)) {
+                    return current = id;
+                }
+                if (!table.isDisjoint()) {
+                    id++;
+                    continue;
+                }
+                int at = table.sectionAt(line);
+                if (at >= 0) {
+                    // The cursor is at the word's first occurrence in this later section
+                    return current = at;
+                }
+                id = table.nextSection(line);
+            }
+            return current = END;
+        }
+
+        @Override
+        int cost() {
+            return Math.min(count, table.size());
+        }
+
+        @Override
+        public String toString() {
+            return word + ":" + count;
+        }
+    }
+
+    /**
+     * The ids of all sub iterators, by leapfrogging from the rarest
+     */
+    static final class And extends MatchIterator {
+
+        private final MatchIterator[] children; // the sub iterators, from the lowest cost
+
+        And(MatchIterator[] children) {
+            this.children = children.clone();
+            Arrays.sort(this.children, (a, b) -> Integer.compare(a.cost(), b.cost()));
+        }
+
+        /**
+         * Run-time: O(w log(n / s)) for each round, where w is the number of sub iterators.
+         *           Each round moves every iterator to the largest current id
+         */
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            int candidate = target;
+            int i = 0;
+            while (i < children.length) {
+                int id = children[i].advance(candidate);
+                if (id == END) {
+                    return current = END;
+                }
+                if (id > candidate) {
+                    // Every iterator has to reach this id, starting again from the rarest
+                    candidate = id;
+                    i = (i == 0) ? 1 : 0;
+                } else {
+                    i++;
+                }
+            }
+            return current = candidate;
+        }
+
+        @Override
+        int cost() {
+            return children[0].cost();
+        }
+
+        @Override
+        public String toString() {
+            return join("AND", children);
+        }
+    }
+
+    /**
+     * The ids of any sub iterator, merged through a binary min-heap of the sub iterators
+     */
+    static final class Or extends MatchIterator {
+
+        private final MatchIterator[] heap;     // the sub iterators that have ids left, by current id
+        private int heapSize;                   // the number of sub iterators in the heap
+
+        Or(MatchIterator[] children) {
+            // All sub iterators start at -1, so the array is already a heap
+            heap = children.clone();
+            heapSize = heap.length;
+        }
+
+        /**
+         * Run-time: O(log w) for each id of a sub iterator that is passed, where w is the number of sub iterators
+         */
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            while (heapSize > 0 && heap[0].current < target) {
+                if (heap[0].advance(target) == END) {
+                    heap[0] = heap[--heapSize];
+                }
+                siftDown();
+            }
+            return current = (heapSize > 0) ? heap[0].current : END;
+        }
+
+        /**
+         * Move the top of the heap down until its id is no larger than the ids of its children
+         */
+        private void siftDown() {
+            int index = 0;
+            MatchIterator top = heap[0];
+            int child;
+            while ((child = 2 * index + 1) < heapSize) {
+                if (child + 1 < heapSize && heap[child + 1].current < heap[child].current) {
+                    child++;
+                }
+                if (heap[child].current >= top.current) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = top;
+        }
+
+        @Override
+        int cost() {
+            long total = 0;
+            for (int i = 0; i < heapSize; i++) {
+                total += heap[i].cost();
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE - 1);
+        }
+
+        @Override
+        public String toString() {
+            return join("OR", Arrays.copyOf(heap, heapSize));
+        }
+    }
+
+    /**
+     * The ids of one iterator that are not ids of another
+     */
+    static final class AndNot extends MatchIterator {
+
+        private final MatchIterator include;    // the ids to keep
+        private final MatchIterator exclude;    // the ids to leave out
+
+        AndNot(MatchIterator include, MatchIterator exclude) {
+            this.include = include;
+            this.exclude = exclude;
+        }
+
+        @Override
+        int advance(int target) {
+            if (current >= target) {
+                return current;
+            }
+            int id = include.advance(target);
+            // The excluded iterator only moves to the ids that are kept so far
+            while (id != END && exclude.advance(id) == id) {
+                id = include.next();
+            }
+            return current = id;
+        }
+
+        @Override
+        int cost() {
+            return include.cost();
+        }
+
+        @Override
+        public String toString() {
+            return "(" + include + " AND NOT " + exclude + ")";
+        }
+    }
+
+    /**
+     * @return the sub iterators joined by an operator, e.g. "(king:20 AND crown:35)"
+     */
+    private static String join(String operator, MatchIterator[] children) {
+        StringBuilder builder = new StringBuilder("(");
+        for (int i = 0; i < children.length; i++) {
+            if (i != 0) {
+                builder.append(' ').append(operator).append(' ');
+            }
+            builder.append(children[i]);
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,189 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.Triple;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of the results of a search: at most limit results, starting after offset results.
+ *
+ * A page is read from a cursor over the results (see HitCursor and MatchIterator), which is left as soon as
+ * the page is full and one more result has been found to tell whether there are more pages.
+ * Results before the page are skipped without creating objects for them.
+ *
+ * The total number of results is exact if the search ran out of results while reading the page.
+ * Otherwise it is an upper bound estimated from the postings without reading them (e.g. the occurrences of
+ * the rarest word of a phrase), or -1 if the search cannot estimate it.
+ *
+ * Memory usage: O(p) where p is the number of results of the page
+ *
+ * @param <T> the type of the results, e.g. a line number or a pair of line and column
+ */
+public class Page<T> {
+
+    private final List<T> items;        // the results of the page, in the order of the search
+    private final int offset;           // the number of results before the page
+    private final boolean more;         // true if there are results after the page
+    private final int total;            // the number of results, an upper bound of it or -1
+    private final boolean exact;        // true if total is the exact number of results
+
+    /**
+     * Constructor
+     *
+     * @param items the results of the page
+     * @param offset the number of results before the page
+     * @param more true if there are results after the page
+     * @param total the number of results, an upper bound of it or -1 if it is not known
+     * @param exact true if total is the exact number of results
+     */
+    Page(List<T> items, int offset, boolean more, int total, boolean exact) {
+        this.items = items;
+        this.offset = offset;
+        this.more = more;
+        this.total = total;
+        this.exact = exact;
+    }
+
+    /**
+     * Read a page of hits as pairs of line and column
+     *
+     * Run-time: O(o / s + p) for the hits of a prefix, where o is the offset, s is size of a block
+     *           and p is the limit. O(o + p) hits are decoded for other searches
+     *
+     * @param hits the hits of a search, before the first one
+     * @param offset the number of hits before the page
+     * @param limit the greatest number of hits in the page
+     * @return the page
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    static Page<Pair<Integer, Integer>> pairs(HitCursor hits, int offset, int limit)
+            throws IllegalArgumentException {
+        return read(hits, offset, limit, hit -> new Pair<>(hit.getLine(), hit.getCol()));
+    }
+
+    /**
+     * Read a page of hits as triples of line, column and word found, see pairs
+     */
+    static Page<Triple<Integer, Integer, String>> triples(HitCursor hits, int offset, int limit)
+            throws IllegalArgumentException {
+        return read(hits, offset, limit, hit -> new Triple<>(hit.getLine(), hit.getCol(), hit.getWord()));
+    }
+
+    /**
+     * Read a page of the ids of a compiled query, e.g. line numbers
+     *
+     * Run-time: O(o + p) ids are found, where o is the offset and p is the limit
+     *
+     * @param ids the ids of a query, before the first one
+     * @param offset the number of ids before the page
+     * @param limit the greatest number of ids in the page
+     * @return the page. The estimated total is the cost of the query (e.g. the lines of its rarest required word)
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    static Page<Integer> lines(MatchIterator ids, int offset, int limit) throws IllegalArgumentException {
+        checkRange(offset, limit);
+        int estimate = ids.cost();
+        int skipped = 0;
+        while (skipped < offset && ids.next() != MatchIterator.END) {
+            skipped++;
+        }
+        List<Integer> items = new ArrayList<>(Math.min(limit, 1024));
+        for (int id; items.size() < limit && (id = ids.next()) != MatchIterator.END; ) {
+            items.add(id);
+        }
+        boolean more = items.size() == limit && ids.next() != MatchIterator.END;
+        return finish(items, offset, skipped, more, estimate, false);
+    }
+
+    /**
+     * Read a page of hits, see pairs
+     *
+     * @param item creates the result of the current hit
+     */
+    private static <T> Page<T> read(HitCursor hits, int offset, int limit, Function<HitCursor, T> item) {
+        checkRange(offset, limit);
+        int skipped = hits.skip(offset);
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        while (items.size() < limit && hits.next()) {
+            items.add(item.apply(hits));
+        }
+        boolean more = items.size() == limit && hits.next();
+        return finish(items, offset, skipped, more, hits.estimate(), hits.isEstimateExact());
+    }
+
+    /**
+     * @param skipped the number of results skipped before the page
+     * @param estimate an upper bound of the number of results. -1 if it is not known
+     * @param exact true if the estimate is the exact number of results
+     * @return the page, with the exact total if the results ran out
+     */
+    private static <T> Page<T> finish(List<T> items, int offset, int skipped, boolean more, int estimate,
+                                      boolean exact) {
+        int read = skipped + items.size();
+        if (!more) {
+            return new Page<>(items, offset, false, read, true);
+        }
+        // One more result was found after the page
+        return new Page<>(items, offset, true, (estimate < 0) ? -1 : Math.max(estimate, read + 1), exact);
+    }
+
+    /**
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    private static void checkRange(int offset, int limit) throws IllegalArgumentException {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative offset or limit: " + offset + ", " + limit);
+        }
+    }
+
+    /**
+     * @return the results of the page, in the order of the search
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the number of results before the page
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return True if there are results after the page, i.e. a page at getOffset() + limit is not empty
+     */
+    public boolean hasMore() {
+        return more;
+    }
+
+    /**
+     * @return the number of results of the search if isTotalExact(). Otherwise an upper bound of it,
+     *         or -1 if it is not known
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return True if getTotal() is the exact number of results
+     */
+    public boolean isTotalExact() {
+        return exact;
+    }
+
+    /**
+     * @return The range and the total, e.g. "results 50-99 of at most 1200, more"
+     */
+    @Override
+    public String toString() {
+        String of = (total < 0) ? "unknown" : (exact ? "" : "at most ") + total;
+        if (items.isEmpty()) {
+            return "no results after " + offset + " of " + of;
+        }
+        return "results " + offset + "-" + (offset + items.size() - 1) + " of " + of + (more ? ", more" : "");
+    }
+}
@@ -0,0 +1,100 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Leaf;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Build the trie of a document on a fork-join pool.
+ *
+ * The lines are split into ranges of at least MIN_CHUNK_LINES lines, about four ranges per thread
+ * so that fewer tries need merging. Each range is inserted into its own trie
+ * and the tries of two neighbouring ranges are merged with the earlier range first,
+ * so every word's occurrences stay sorted by line and column.
+ * The last word of the earlier range is linked to the first word of the later range
+ * so phrases crossing the boundary are still found.
+ *
+ * Run-time: O(n/p + n log c) where n is total size of the document,
+ *           p is the number of threads and c is the number of ranges
+ */
+class ParallelTrieBuilder extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    // The smallest number of lines inserted into one trie by one task
+    static final int MIN_CHUNK_LINES = 4096;
+    // The number of ranges for each thread of the pool
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final List<String> lines;   // all lines of the document
+    private final int chunkLines;       // the largest number of lines inserted by one task
+    private final int from;             // index of the first line of the range
+    private final int to;               // index after the last line of the range
+
+    private TextTrie trie;              // the trie of the range
+    private Leaf first;                 // the first word in the range. Null if the range has no words
+    private Leaf last;                  // the last word in the range. Null if the range has no words
+
+    /**
+     * Constructor. Create a task for a range of lines
+     *
+     * @param lines all lines of the document
+     * @param from index of the first line
+     * @param to index after the last line
+     * @param chunkLines the largest number of lines inserted by one task
+     */
+    private ParallelTrieBuilder(List<String> lines, int from, int to, int chunkLines) {
+        this.lines = lines;
+        this.chunkLines = chunkLines;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Build the trie of all lines
+     *
+     * @param lines all lines of the document. Line number i + 1 is at index i
+     * @param pool the pool running the tasks
+     * @return the trie storing all words and their positions
+     */
+    static TextTrie build(List<String> lines, ForkJoinPool pool) {
+        int chunkLines = Math.max(MIN_CHUNK_LINES, lines.size() / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        ParallelTrieBuilder task = new ParallelTrieBuilder(lines, 0, lines.size(), chunkLines);
+        pool.invoke(task);
+        return task.trie;
+    }
+
+    /**
+     * Insert the range directly if it is small enough. Otherwise split it in halves and merge their tries
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= chunkLines) {
+            trie = new TextTrie();
+            // A placeholder before the first word, so the first word is linked from it
+            Leaf start = new Leaf(0, 0);
+            Leaf previous = start;
+            for (int i = from; i < to; i++) {
+                previous = trie.insertLine(lines.get(i).toLowerCase(), i + 1, previous);
+            }
+            first = start.getNextWord();
+            last = (previous != start) ? previous : null;
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        ParallelTrieBuilder earlier = new ParallelTrieBuilder(lines, from, middle, chunkLines);
+        ParallelTrieBuilder later = new ParallelTrieBuilder(lines, middle, to, chunkLines);
+        invokeAll(earlier, later);
+
+        earlier.trie.merge(later.trie);
+        trie = earlier.trie;
+        if (earlier.last != null) {
+            earlier.last.setNextWord(later.first);
+        }
+        first = (earlier.first != null) ? earlier.first : later.first;
+        last = (later.last != null) ? later.last : earlier.last;
+    }
+}
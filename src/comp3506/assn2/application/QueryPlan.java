@@ -0,0 +1,187 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.LinePostings;
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.PostingsCursor;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The plan for evaluating one group of words of a logic search (e.g. the required words or the excluded words).
+ *
+ * All words are resolved before any postings are read: stop-words are dropped, every other word is looked up
+ * in the dictionary and the number of lines it is on is read from the line postings. The kept words are then
+ * ordered from the fewest lines to the most, so an intersection starts from the rarest word and a check
+ * that a section contains every word fails on the rarest word first.
+ * A group of required words with a word that is not in the document can match nothing, and is marked as such
+ * before any postings are decoded.
+ *
+ * The words keep their original order as well, since occurrences are reported in the order the caller gave the words.
+ * toString() describes the decisions, e.g. for debugging a slow search.
+ *
+ * Memory usage: O(w) where w is the number of words in the group
+ */
+public class QueryPlan {
+
+    private final int asked;            // the number of words given, including stop-words
+    private final String[] words;       // lower case words kept, in the given order
+    private final int[] termIds;        // term id of each kept word. -1 if the word is not in the document
+    private final int[] lineCounts;     // the number of lines of each kept word. 0 if not in the document
+    private final int[] order;          // indices of the kept words, from the fewest lines to the most
+    private final String[] stopWords;   // words dropped as stop-words
+    private final boolean required;     // true if every kept word must be found
+
+    /**
+     * Constructor. Resolve and order a group of words
+     *
+     * Run-time: O(m + w log w) plus w dictionary look-ups, where m is total size of the words
+     *           and w is the number of words
+     *
+     * @param allWords the words of the group. Null for no words
+     * @param required true if every word must be found (AND), false if the words are alternatives or exclusions
+     * @param termIds gives the term id of a lower case word, or -1 if the word is not in the document
+     * @param isStopWord tells if a lower case word is a stop-word
+     * @param lines the line postings of the document
+     */
+    QueryPlan(String[] allWords, boolean required, ToIntFunction<String> termIds, Predicate<String> isStopWord,
+              LinePostings lines) {
+        this.required = required;
+        asked = (allWords == null) ? 0 : allWords.length;
+        String[] kept = new String[asked];
+        String[] dropped = new String[asked];
+        int[] ids = new int[asked];
+        int[] counts = new int[asked];
+        int size = 0;
+        int stopCount = 0;
+        for (int i = 0; i < asked; i++) {
+            String word = allWords[i].toLowerCase();
+            if (isStopWord.test(word)) {
+                dropped[stopCount++] = word;
+                continue;
+            }
+            ids[size] = termIds.applyAsInt(word);
+            counts[size] = (ids[size] < 0) ? 0 : lines.count(ids[size]);
+            kept[size++] = word;
+        }
+        words = new String[size];
+        System.arraycopy(kept, 0, words, 0, size);
+        this.termIds = new int[size];
+        System.arraycopy(ids, 0, this.termIds, 0, size);
+        lineCounts = new int[size];
+        System.arraycopy(counts, 0, lineCounts, 0, size);
+        stopWords = new String[stopCount];
+        System.arraycopy(dropped, 0, stopWords, 0, stopCount);
+
+        // Sort the indices by the number of lines. A stable sort keeps the given order between equal counts
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> Integer.compare(lineCounts[a], lineCounts[b]));
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = sorted[i];
+        }
+    }
+
+    /**
+     * @return True if no word was given, so that the group does not restrict the search
+     */
+    public boolean isUnrestricted() {
+        return asked == 0;
+    }
+
+    /**
+     * @return True if the group is required and one of its words is not in the document, so nothing can match
+     */
+    public boolean isEmpty() {
+        return required && size() != 0 && lineCounts[order[0]] == 0;
+    }
+
+    /**
+     * @return the number of kept words (the words that are not stop-words)
+     */
+    public int size() {
+        return words.length;
+    }
+
+    /**
+     * @param rank the rank of a word from the fewest lines, starting at 0
+     * @return the index of the word in the given order
+     */
+    public int wordAt(int rank) {
+        return order[rank];
+    }
+
+    /**
+     * @param i the index of a kept word in the given order
+     * @return the lower case word
+     */
+    public String getWord(int i) {
+        return words[i];
+    }
+
+    /**
+     * @param i the index of a kept word in the given order
+     * @return the term id of the word. -1 if the word is not in the document
+     */
+    public int getTermId(int i) {
+        return termIds[i];
+    }
+
+    /**
+     * @param i the index of a kept word in the given order
+     * @return the number of lines the word is on
+     */
+    public int getLineCount(int i) {
+        return lineCounts[i];
+    }
+
+    /**
+     * Create a cursor over the occurrences of each kept word, e.g. to reuse for every section of a search
+     *
+     * @param postings the postings of the document
+     * @return a cursor for each kept word in the given order. Null for a word not in the document
+     */
+    public PostingsCursor[] cursors(Postings postings) {
+        PostingsCursor[] cursors = new PostingsCursor[words.length];
+        for (int i = 0; i < words.length; i++) {
+            if (termIds[i] >= 0) {
+                cursors[i] = postings.cursor(termIds[i]);
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * @return the words dropped as stop-words
+     */
+    public String[] getStopWords() {
+        return stopWords.clone();
+    }
+
+    /**
+     * @return The decisions of the plan, e.g. "AND [king:120, the:8100] stop-words [a] empty=false"
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(required ? "AND [" : "ANY [");
+        for (int rank = 0; rank < size(); rank++) {
+            int i = order[rank];
+            if (rank != 0) {
+                builder.append(", ");
+            }
+            builder.append(words[i]).append(':').append((termIds[i] < 0) ? "missing" : lineCounts[i]);
+        }
+        builder.append("] stop-words [");
+        for (int i = 0; i < stopWords.length; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(stopWords[i]);
+        }
+        return builder.append("] empty=").append(isEmpty()).toString();
+    }
+}
@@ -0,0 +1,98 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.LinePostings;
+import comp3506.assn2.utils.Postings;
+
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * What a boolean query is evaluated over, and how its words are turned into iterators (see MatchIterator).
+ *
+ * In the line scope the ids are line numbers and a word matches the lines it is on.
+ * In the section scope the ids are section ids and a word matches the sections it is in.
+ * The document scope is the section scope of a table with one section covering the whole document.
+ *
+ * Stop-words are ignored: they have no iterator and leave the query as if they were not in it.
+ * A query of only stop-words matches no line, but does not restrict a section search,
+ * as the fixed searches of TextTrie have always done.
+ */
+class QueryScope {
+
+    private final ToIntFunction<String> termIds;    // term id of a lower case word. -1 if not in the document
+    private final Predicate<String> isStopWord;     // tells if a lower case word is a stop-word
+    private final LinePostings lines;               // the lines of each word
+    private final Postings postings;                // the occurrences of each word. Null in the line scope
+    private final SectionTable sections;            // the sections. Null in the line scope
+    private final int lineCount;                    // the number of lines of the document
+
+    private QueryScope(ToIntFunction<String> termIds, Predicate<String> isStopWord, LinePostings lines,
+                       Postings postings, SectionTable sections, int lineCount) {
+        this.termIds = termIds;
+        this.isStopWord = isStopWord;
+        this.lines = lines;
+        this.postings = postings;
+        this.sections = sections;
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * @param termIds gives the term id of a lower case word, or -1 if the word is not in the document
+     * @param isStopWord tells if a lower case word is a stop-word
+     * @param lines the line postings of the document
+     * @param lineCount the number of lines of the document, which a NOT outside an AND is taken from
+     * @return the scope of the lines of the document
+     */
+    static QueryScope lines(ToIntFunction<String> termIds, Predicate<String> isStopWord, LinePostings lines,
+                            int lineCount) {
+        return new QueryScope(termIds, isStopWord, lines, null, null, lineCount);
+    }
+
+    /**
+     * @param termIds gives the term id of a lower case word, or -1 if the word is not in the document
+     * @param isStopWord tells if a lower case word is a stop-word
+     * @param lines the line postings of the document, for the costs of the words
+     * @param postings the postings of the document
+     * @param sections the sections to search, e.g. SectionTable.document for the whole document
+     * @return the scope of the sections
+     */
+    static QueryScope sections(ToIntFunction<String> termIds, Predicate<String> isStopWord, LinePostings lines,
+                               Postings postings, SectionTable sections) {
+        return new QueryScope(termIds, isStopWord, lines, postings, sections, 0);
+    }
+
+    /**
+     * @param word a word of the query
+     * @return the ids that match the word. Null if the word is a stop-word.
+     *         An iterator without ids (cost 0) if the word is not in the document
+     */
+    MatchIterator term(String word) {
+        word = word.toLowerCase();
+        if (isStopWord.test(word)) {
+            return null;
+        }
+        int termId = termIds.applyAsInt(word);
+        if (termId < 0) {
+            return MatchIterator.empty();
+        }
+        if (sections == null) {
+            return new MatchIterator.Lines(word, lines.cursor(termId));
+        }
+        return new MatchIterator.Sections(word, postings.cursor(termId), sections, lines.count(termId));
+    }
+
+    /**
+     * @return every id of the scope, e.g. to take a NOT from
+     */
+    MatchIterator all() {
+        return (sections == null) ? new MatchIterator.Range(1, lineCount)
+                                  : new MatchIterator.Range(0, sections.size() - 1);
+    }
+
+    /**
+     * @return the ids matched by a query without any word but stop-words
+     */
+    MatchIterator neutral() {
+        return (sections == null) ? MatchIterator.empty() : all();
+    }
+}
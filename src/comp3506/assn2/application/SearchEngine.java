@@ -0,0 +1,427 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.LinePostings;
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.Triple;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * The searches of an indexed document that only need its dictionary and postings, shared by the tries
+ * (see TextTrie and FrozenTrie) and the mapped snapshot (see MappedIndex), so both give the same results.
+ *
+ * Logic searches are BooleanQuery objects compiled for the lines or the sections of the document
+ * (see QueryScope), and a section search reads the occurrences of its words only in the matching sections.
+ * Wildcard, fuzzy, infix and suffix searches find their words in the dictionary (see TermDictionary),
+ * then read the occurrences of the words from the postings.
+ *
+ * An engine is a view of an index and keeps no state of its own, so it is cheap to create.
+ *
+ * Memory usage: O(1) besides the index it searches
+ */
+class SearchEngine {
+
+    private final TermDictionary dictionary;    // the words of the document
+    private final Postings postings;            // the occurrences of each word
+    private final LinePostings lines;           // the lines of each word without repeats
+    private final Predicate<String> isStopWord; // tells if a lower case word is a stop-word
+    private final SectionTable sections;        // the sections of the document. Null if it has none to search
+    private final int lineCount;                // the number of lines of the document
+
+    /**
+     * @param dictionary the words of the document
+     * @param postings the occurrences of the words, indexed by term id
+     * @param lines the lines of the words, indexed by term id
+     * @param isStopWord tells if a lower case word is a stop-word, to ignore in logic searches
+     * @param sections the sections searched by title. Null if no section is searched by title
+     * @param lineCount the number of lines of the document, which the entire document and a NOT
+     *                  outside an AND are taken from
+     */
+    SearchEngine(TermDictionary dictionary, Postings postings, LinePostings lines, Predicate<String> isStopWord,
+                 SectionTable sections, int lineCount) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.lines = lines;
+        this.isStopWord = isStopWord;
+        this.sections = sections;
+        this.lineCount = lineCount;
+    }
+
+    /* ----------------------- Line searches ---------------- */
+
+    /**
+     * Search for lines that match a boolean query
+     *
+     * Run-time: O(m + q) plus the iterators of the query (see MatchIterator), where m is total size
+     *           of the words of the query and q is the number of nodes of the query
+     *
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @return The matching line numbers, sorted and without repeats
+     */
+    List<Integer> lines(BooleanQuery query) {
+        int[] matched = compileLines(query).toArray();
+        List<Integer> result = new ArrayList<>(matched.length);
+        for (int line : matched) {
+            result.add(line);
+        }
+        return result;
+    }
+
+    /**
+     * Search for lines that match a boolean query, one line at a time
+     *
+     * Run-time: O(m + q) to construct, see lines. Each line is then found only when the stream reaches it
+     *
+     * @param query The query
+     * @return A lazy stream of the matching line numbers, sorted and without repeats
+     */
+    IntStream lineStream(BooleanQuery query) {
+        return compileLines(query).stream();
+    }
+
+    /**
+     * Search for one page of the lines that match a boolean query, see Page
+     *
+     * Run-time: O(m + q) to construct, see lines, then the iterators stop once the page is full
+     *
+     * @param query The query
+     * @param offset The number of matching lines before the page
+     * @param limit The greatest number of lines in the page
+     * @return The page of the matching line numbers, sorted and without repeats
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    Page<Integer> linePage(BooleanQuery query, int offset, int limit) throws IllegalArgumentException {
+        return Page.lines(compileLines(query), offset, limit);
+    }
+
+    /**
+     * @param query The query
+     * @return The query compiled for the lines of the document
+     */
+    MatchIterator compileLines(BooleanQuery query) {
+        return query.compile(QueryScope.lines(dictionary::termId, isStopWord, lines, lineCount));
+    }
+
+    /**
+     * Plan a group of words of a logic search without reading their postings
+     *
+     * Run-time: O(m + w log w) where m is total size of the words and w is the number of words
+     *
+     * @param allWords Array of words of the group. Null for no words
+     * @param required True if every word must be found (AND), false for alternatives or exclusions
+     * @return The plan, which describes its decisions in toString()
+     */
+    QueryPlan plan(String[] allWords, boolean required) {
+        return new QueryPlan(allWords, required, dictionary::termId, isStopWord, lines);
+    }
+
+    /* ----------------------- Section searches ---------------- */
+
+    /**
+     * Search sections (or the entire document) for a boolean query
+     *
+     * Run-time: O(t + m + q) plus the iterators of the query (see MatchIterator) and reading the occurrences
+     *           of the words in the matching sections, where t is total size of the titles, m is total size
+     *           of the words of the query and q is the number of nodes of the query
+     *
+     * @param allTitles Array of titles of the sections to search within
+     *                  The entire document is searched as one section if allTitles is null or an empty array.
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @return Triples for each occurrence, in the matching sections, of the words that are not inside a NOT.
+     *         The occurrences are in the order of the titles, then of the words in the query.
+     *         The list is empty if no section matches
+     * @throws IllegalArgumentException if any of the titles are null or empty
+     */
+    List<Triple<Integer, Integer, String>> sections(String[] allTitles, BooleanQuery query)
+            throws IllegalArgumentException {
+        checkArgArray(allTitles, false);
+        List<Triple<Integer, Integer, String>> result = new ArrayList<>();
+        SectionTable table = tableOf(allTitles);
+        String[] titles = titlesOf(allTitles, table);
+        MatchIterator matches = compileSections(query, table);
+        boolean[] isMatched = new boolean[table.size()];
+        int[] matched = Arrays.stream(table.sectionsOf(titles)).filter(id -> matches.advance(id) == id).toArray();
+        if (matched.length == 0) {
+            return result;
+        }
+        for (int id : matched) {
+            isMatched[id] = true;
+        }
+
+        // Read the occurrences of the reported words in the matching sections only
+        QueryPlan words = plan(query.getWords(), false);
+        SectionHits hits = new SectionHits(words, words.cursors(postings), table, matched);
+        for (String title : titles) {
+            // The document may have sections that have the same title
+            for (int id : table.sectionsOf(title)) {
+                if (isMatched[id]) {
+                    for (int i = 0; i < words.size(); i++) {
+                        for (int hit = hits.from(i, id); hit < hits.to(i, id); hit++) {
+                            result.add(new Triple<>(hits.getLine(i, hit), hits.getCol(i, hit), words.getWord(i)));
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Search sections (or the entire document) for a boolean query, reading the occurrences one at a time
+     *
+     * Run-time: O(t + m + q + s) plus the iterators of the query to construct, where t is total size of the titles,
+     *           m is total size of the words, q is the number of nodes of the query and s is the number of sections
+     *           searched. The occurrences in a matching section are read only when the cursor reaches them
+     *
+     * @param allTitles Array of titles of the sections to search within, see sections
+     * @param query The query
+     * @return A cursor over the same occurrences as sections, in the same order. getWord() gives the word found
+     * @throws IllegalArgumentException if any of the titles are null or empty
+     */
+    HitCursor sectionCursor(String[] allTitles, BooleanQuery query) throws IllegalArgumentException {
+        checkArgArray(allTitles, false);
+        SectionTable table = tableOf(allTitles);
+        return HitCursor.sections(compileSections(query, table), plan(query.getWords(), false), postings, table,
+                titlesOf(allTitles, table));
+    }
+
+    /**
+     * Search for one page of the occurrences of a section search, see Page and sectionCursor
+     *
+     * @param allTitles Array of titles of the sections to search within, see sections
+     * @param query The query
+     * @param offset The number of occurrences before the page
+     * @param limit The greatest number of occurrences in the page
+     * @return The page of triples of line and column number and word found
+     * @throws IllegalArgumentException if any of the titles are null or empty, or offset or limit is negative
+     */
+    Page<Triple<Integer, Integer, String>> sectionPage(String[] allTitles, BooleanQuery query, int offset, int limit)
+            throws IllegalArgumentException {
+        return Page.triples(sectionCursor(allTitles, query), offset, limit);
+    }
+
+    /**
+     * @return The sections searched for the titles. One section of the entire document if there is no title
+     */
+    private SectionTable tableOf(String[] allTitles) {
+        return (allTitles == null || allTitles.length == 0) ? SectionTable.document(lineCount) : sections;
+    }
+
+    /**
+     * @return The titles to search in the table, see tableOf
+     */
+    private static String[] titlesOf(String[] allTitles, SectionTable table) {
+        return (allTitles == null || allTitles.length == 0) ? new String[] {table.getTitle(0)} : allTitles;
+    }
+
+    /**
+     * @return The query compiled for the sections of a table
+     */
+    private MatchIterator compileSections(BooleanQuery query, SectionTable table) {
+        return query.compile(QueryScope.sections(dictionary::termId, isStopWord, lines, postings, table));
+    }
+
+    /* ----------------------- Term searches ---------------- */
+
+    /**
+     * Find the occurrences of the words containing a string, e.g. "speare" for "shakespeare"
+     *
+     * Run-time: O(m log c + w log w) to construct, where m is size of the string, c is the number of characters
+     *           of all words and w is the number of words found, see TermSuffixArray.
+     *           The first infix or suffix search builds the suffix array
+     *
+     * @param infix The string to search for
+     * @param documentOrder True to merge the occurrences of the words by line and column,
+     *                      false for word by word in lexicographic order
+     * @return A cursor over the occurrences of the words containing the string
+     * @throws IllegalArgumentException if infix is null or empty
+     */
+    HitCursor infixCursor(String infix, boolean documentOrder) throws IllegalArgumentException {
+        checkString(infix);
+        int[] termIds = dictionary.getSuffixArray().containing(infix.toLowerCase());
+        return documentOrder ? HitCursor.merged(postings, termIds) : HitCursor.terms(postings, termIds);
+    }
+
+    /**
+     * Find the occurrences of the words ending with a string, e.g. "eth" for "seeth" and "doeth",
+     * see infixCursor
+     *
+     * @param suffix The string to search for
+     * @param documentOrder True to merge the occurrences of the words by line and column,
+     *                      false for word by word in lexicographic order
+     * @return A cursor over the occurrences of the words ending with the string
+     * @throws IllegalArgumentException if suffix is null or empty
+     */
+    HitCursor suffixCursor(String suffix, boolean documentOrder) throws IllegalArgumentException {
+        checkString(suffix);
+        int[] termIds = dictionary.getSuffixArray().ending(suffix.toLowerCase());
+        return documentOrder ? HitCursor.merged(postings, termIds) : HitCursor.terms(postings, termIds);
+    }
+
+    /**
+     * Find the occurrences of the words matching a wildcard pattern, see WildcardPattern
+     *
+     * Run-time: O(v + c log w) where v is the cost of matchTerms, c is the number of occurrences read
+     *           and w is the number of words matched
+     *
+     * @param pattern The pattern, e.g. "wor?d" or "*ness"
+     * @param maxTerms The greatest number of words to expand the pattern to
+     * @return A cursor over the occurrences of the first maxTerms matching words, in the order of the document
+     * @throws IllegalArgumentException if the pattern is not valid or maxTerms is negative
+     */
+    HitCursor wildcardCursor(String pattern, int maxTerms) throws IllegalArgumentException {
+        return HitCursor.merged(postings, matchTerms(WildcardPattern.compile(pattern), maxTerms));
+    }
+
+    /**
+     * Find the words matching a wildcard pattern, see TermDictionary.matchAutomaton.
+     * A pattern "*abc*" or "*abc" rejects no prefix, so its words are found in the suffix array instead
+     *
+     * Run-time: the words visited by the dictionary, see FrozenTrie.matchAutomaton and MappedIndex.matchAutomaton.
+     *           O(m log c + w log w) from the suffix array, see TermSuffixArray
+     *
+     * @param pattern The compiled pattern
+     * @param maxTerms The greatest number of words to find. The search stops once it has found them
+     * @return The ids of the first maxTerms matching words in lexicographic order
+     * @throws IllegalArgumentException if maxTerms is negative
+     */
+    int[] matchTerms(WildcardPattern pattern, int maxTerms) throws IllegalArgumentException {
+        if (maxTerms < 0) {
+            throw new IllegalArgumentException("Negative number of words: " + maxTerms);
+        }
+        if (pattern.getInfix() != null || pattern.getSuffix() != null) {
+            TermSuffixArray suffixes = dictionary.getSuffixArray();
+            int[] termIds = (pattern.getInfix() != null) ? suffixes.containing(pattern.getInfix())
+                    : suffixes.ending(pattern.getSuffix());
+            return Arrays.copyOf(termIds, Math.min(termIds.length, maxTerms));
+        }
+        return termIdsOf(dictionary.matchAutomaton(pattern, maxTerms));
+    }
+
+    /**
+     * Find the words close to a word, e.g. the words a misspelled word may have meant
+     *
+     * Run-time: the words visited by the dictionary with the automaton of the word, plus O(w log w)
+     *           where w is the number of words found
+     *
+     * @param word The word
+     * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE
+     * @return Triples of each close word, its edit distance and its number of occurrences,
+     *         the closest first and then the most frequent
+     * @throws IllegalArgumentException if word is null or empty, or maxDistance is out of range
+     */
+    List<Triple<String, Integer, Integer>> fuzzyTerms(String word, int maxDistance) throws IllegalArgumentException {
+        return LevenshteinAutomaton.rank(matchFuzzy(LevenshteinAutomaton.compile(word, maxDistance)), postings);
+    }
+
+    /**
+     * Find the occurrences of the words close to a word, see fuzzyTerms
+     *
+     * @param word The word
+     * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE
+     * @return A cursor over the occurrences of the close words in the order of the document
+     * @throws IllegalArgumentException if word is null or empty, or maxDistance is out of range
+     */
+    HitCursor fuzzyCursor(String word, int maxDistance) throws IllegalArgumentException {
+        return HitCursor.merged(postings, termIdsOf(matchFuzzy(LevenshteinAutomaton.compile(word, maxDistance))));
+    }
+
+    /**
+     * @param automaton The automaton of a word
+     * @return Triples of each close word, its edit distance and its term id, in lexicographic order
+     */
+    private List<Triple<String, Integer, Integer>> matchFuzzy(LevenshteinAutomaton automaton) {
+        List<Triple<String, Integer, Integer>> matches = dictionary.matchAutomaton(automaton, Integer.MAX_VALUE);
+        for (int i = 0; i < matches.size(); i++) {
+            Triple<String, Integer, Integer> match = matches.get(i);
+            matches.set(i, new Triple<>(match.getLeftValue(), automaton.distance(match.getCentreValue()),
+                    match.getRightValue()));
+        }
+        return matches;
+    }
+
+    /**
+     * @param matches Triples of words found in the dictionary, with their term ids on the right
+     * @return The term ids in the same order
+     */
+    private static int[] termIdsOf(List<Triple<String, Integer, Integer>> matches) {
+        int[] termIds = new int[matches.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = matches.get(i).getRightValue();
+        }
+        return termIds;
+    }
+
+    /* ----------------------- Checking arguments ---------------- */
+
+    /**
+     * Check the words of a fixed line search (wordsOnLine, someWordsOnLine or wordsNotOnLine)
+     * and build its query, see BooleanQuery.of
+     *
+     * @param wordsRequired Array of the required words, or the alternatives in OR mode
+     * @param otherWords Array of the excluded words in NOT mode. Null in the other modes
+     * @param mode AND, OR or NOT (see TextTrie)
+     * @return The query of the search
+     * @throws IllegalArgumentException if wordsRequired is null or an empty array, otherWords is null
+     *                                  or an empty array in NOT mode, or any of the Strings in the arrays
+     *                                  are null or empty
+     */
+    static BooleanQuery fixedLineQuery(String[] wordsRequired, String[] otherWords, int mode)
+            throws IllegalArgumentException {
+        checkArgArray(wordsRequired, true);
+        checkArgArray(otherWords, mode == TextTrie.NOT);
+        return BooleanQuery.of(wordsRequired, otherWords, mode);
+    }
+
+    /**
+     * Check the words of a fixed section search (simpleAndSearch, simpleOrSearch, simpleNotSearch
+     * or compoundAndOrSearch) and build its query, see BooleanQuery.of
+     *
+     * @param wordsRequired Array of the required words, or the alternatives in OR mode
+     * @param otherWords Array of the excluded words or the "or words". May be null or empty
+     * @param mode AND, OR, NOT or COMPOUND (see TextTrie)
+     * @return The query of the search
+     * @throws IllegalArgumentException if wordsRequired is null or an empty array
+     *                                  or any of the Strings in the arrays are null or empty
+     */
+    static BooleanQuery fixedSectionQuery(String[] wordsRequired, String[] otherWords, int mode)
+            throws IllegalArgumentException {
+        checkArgArray(wordsRequired, true);
+        checkArgArray(otherWords, false);
+        return BooleanQuery.of(wordsRequired, otherWords, mode);
+    }
+
+    /**
+     * Check whether the string is valid
+     *
+     * @param arg the string to check
+     * @throws IllegalArgumentException if the string is null or an empty string
+     */
+    static void checkString(String arg) throws IllegalArgumentException {
+        if (arg == null || arg.equals("")) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Check whether the string Array is valid
+     *
+     * @param words the array to check
+     * @param mustExist true is the array cannot be null or an empty array
+     * @throws IllegalArgumentException if any string in the array is null or an empty string
+     *                                  if mustExist is true and the array is null or an empty array
+     */
+    static void checkArgArray(String[] words, boolean mustExist) throws IllegalArgumentException {
+        if (words != null && words.length > 0) {
+            for (String word : words) {
+                checkString(word);
+            }
+        } else if (mustExist) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
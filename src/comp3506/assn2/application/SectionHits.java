@@ -0,0 +1,183 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.PostingsCursor;
+
+import java.util.Arrays;
+
+/**
+ * The occurrences of a group of planned words in some sections, grouped by section.
+ *
+ * Each word's postings are read in one forward pass over the searched sections. When the sections are disjoint,
+ * each occurrence is tagged with the id of its section by the line lookup of the section table,
+ * and the cursor jumps over the lines between searched sections. Overlapping sections are read one at a time.
+ * The occurrences of a word in a section are then next to each other, so a section keeps only the range
+ * of each word's occurrences.
+ *
+ * Memory usage: O(w s + k) where w is the number of words, s is the number of sections
+ *               and k is the number of occurrences in the searched sections
+ */
+class SectionHits {
+
+    private final QueryPlan plan;       // the planned words
+    private final int[][] lines;        // line of each occurrence found, for each word in the given order
+    private final int[][] cols;         // column of each occurrence found, for each word
+    private final int[][] from;         // index of each section's first occurrence, for each word
+    private final int[][] to;           // index after each section's last occurrence, for each word
+
+    /**
+     * Constructor. Read the occurrences of the words in the sections
+     *
+     * Run-time: O(w (t log(n / b) + k)) where w is the number of words, t is the number of sections searched,
+     *           n is the number of occurrences of the most common word, b is size of a block
+     *           and k is the number of occurrences in the sections
+     *
+     * @param plan the planned words
+     * @param cursors a cursor for each word in the given order, before its first occurrence.
+     *                Null for a word not in the document
+     * @param table the sections of the document
+     * @param targets ids of the sections to search, sorted and without repeats
+     */
+    SectionHits(QueryPlan plan, PostingsCursor[] cursors, SectionTable table, int[] targets) {
+        this.plan = plan;
+        int words = plan.size();
+        lines = new int[words][];
+        cols = new int[words][];
+        from = new int[words][table.size()];
+        to = new int[words][table.size()];
+        boolean[] isTarget = new boolean[table.size()];
+        for (int id : targets) {
+            isTarget[id] = true;
+        }
+        for (int i = 0; i < words; i++) {
+            lines[i] = new int[16];
+            cols[i] = new int[16];
+            if (cursors[i] == null || targets.length == 0) {
+                continue;
+            }
+            if (table.isDisjoint()) {
+                scan(i, cursors[i], table, targets, isTarget);
+            } else {
+                int size = 0;
+                for (int id : targets) {
+                    from[i][id] = size;
+                    PostingsCursor cursor = cursors[i];
+                    boolean found = cursor.seekLine(table.getStartLine(id));
+                    while (found && cursor.getLine() <= table.getEndLine(id)) {
+                        size = add(i, size, cursor);
+                        found = cursor.next();
+                    }
+                    to[i][id] = size;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read one word's occurrences in disjoint sections in a single forward pass
+     *
+     * @param i the index of the word in the given order
+     * @param cursor the word's cursor, before its first occurrence
+     * @param table the sections of the document
+     * @param targets ids of the sections to search, sorted
+     * @param isTarget true for each section to search
+     */
+    private void scan(int i, PostingsCursor cursor, SectionTable table, int[] targets, boolean[] isTarget) {
+        int size = 0;
+        int next = 0;           // index of the next searched section that the cursor has not passed
+        boolean found = cursor.skipToLine(table.getStartLine(targets[0]));
+        while (found) {
+            int line = cursor.getLine();
+            int id = table.sectionAt(line);
+            if (id >= 0 && isTarget[id]) {
+                if (to[i][id] == 0) {
+                    // The first occurrence in the section
+                    from[i][id] = size;
+                }
+                size = add(i, size, cursor);
+                to[i][id] = size;
+                found = cursor.next();
+                continue;
+            }
+            // Jump over the lines before the next searched section
+            while (next < targets.length && table.getStartLine(targets[next]) <= line) {
+                next++;
+            }
+            if (next == targets.length) {
+                break;
+            }
+            found = cursor.skipToLine(table.getStartLine(targets[next]));
+        }
+    }
+
+    /**
+     * @return the number of occurrences of the word after adding the cursor's occurrence
+     */
+    private int add(int i, int size, PostingsCursor cursor) {
+        if (size == lines[i].length) {
+            lines[i] = Arrays.copyOf(lines[i], size * 2);
+            cols[i] = Arrays.copyOf(cols[i], size * 2);
+        }
+        lines[i][size] = cursor.getLine();
+        cols[i][size] = cursor.getCol();
+        return size + 1;
+    }
+
+    /**
+     * Check a section against the logic of the words
+     *
+     * Run-time: O(w) where w is the number of words
+     *
+     * @param id the id of a searched section
+     * @param mode AND, OR or NOT (see TextTrie)
+     * @return True if (AND mode) all words are in the section, (OR mode) at least one of the words is,
+     *         (NOT mode) none of the words is. OR and NOT also accept a group without any word
+     */
+    boolean matches(int id, int mode) {
+        if (mode != TextTrie.AND && plan.isUnrestricted()) {
+            return true;
+        }
+        for (int i = 0; i < plan.size(); i++) {
+            boolean inSection = to[i][id] > from[i][id];
+            if (mode == TextTrie.AND && !inSection) {
+                return false;
+            }
+            if (mode != TextTrie.AND && inSection) {
+                // Found a word: OR passes and NOT fails
+                return mode == TextTrie.OR;
+            }
+        }
+        return mode != TextTrie.OR;
+    }
+
+    /**
+     * @param i the index of a word in the given order
+     * @param id the id of a section
+     * @return the index of the word's first occurrence in the section
+     */
+    int from(int i, int id) {
+        return from[i][id];
+    }
+
+    /**
+     * @param i the index of a word in the given order
+     * @param id the id of a section
+     * @return the index after the word's last occurrence in the section
+     */
+    int to(int i, int id) {
+        return to[i][id];
+    }
+
+    /**
+     * @return the line of an occurrence of a word
+     */
+    int getLine(int i, int hit) {
+        return lines[i][hit];
+    }
+
+    /**
+     * @return the column of an occurrence of a word
+     */
+    int getCol(int i, int hit) {
+        return cols[i][hit];
+    }
+}
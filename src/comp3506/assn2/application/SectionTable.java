@@ -0,0 +1,273 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.PostingsCursor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sections of a document, as a table of line intervals.
+ *
+ * Each section has an id: its index in the order of first lines. The table keeps:
+ *      the title, first line and last line of each section by id,
+ *      the id of the section of each line of the document, so a line's section is found in O(1)
+ *      (a table made for searching the whole document as one section finds it by binary search instead),
+ *      and a hash table from each title to the ids of its sections, sorted by first line.
+ *
+ * The sections of an index file follow each other, so a line is in at most one section.
+ * If an index gives sections out of order they may overlap; isDisjoint() is then false
+ * and a line is assigned to the last section starting on or before it.
+ *
+ * Memory usage: O(s + l) where s is the number of sections and l is the last line of the last section
+ */
+public class SectionTable {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] titles;          // title of each section by id
+    private final int[] startLines;         // first line of each section by id, sorted
+    private final int[] endLines;           // last line of each section by id
+    private final int[] lineSections;       // the id of the section of each line. -1 if the line is in no section.
+                                            // Null to find the section by binary search instead
+    private final Map<String, int[]> ids;   // ids of the sections of each title, sorted by first line
+    private final boolean disjoint;         // true if no two sections share a line
+
+    /**
+     * Constructor. Build the table from sections sorted by their first lines
+     *
+     * Run-time: O(s + l) where s is the number of sections and l is the last line of the last section
+     *
+     * @param titles title of each section
+     * @param startLines first line of each section, sorted
+     * @param endLines last line of each section
+     */
+    SectionTable(String[] titles, int[] startLines, int[] endLines) {
+        this(titles, startLines, endLines, true);
+    }
+
+    /**
+     * Constructor. Build the table from sections sorted by their first lines
+     *
+     * @param titles title of each section
+     * @param startLines first line of each section, sorted
+     * @param endLines last line of each section
+     * @param lineLookup true to keep the section of each line, false to find it by binary search
+     */
+    private SectionTable(String[] titles, int[] startLines, int[] endLines, boolean lineLookup) {
+        this.titles = titles;
+        this.startLines = startLines;
+        this.endLines = endLines;
+        int lastLine = 0;
+        boolean noOverlap = true;
+        for (int i = 0; i < titles.length; i++) {
+            lastLine = Math.max(lastLine, endLines[i]);
+            if (i > 0 && startLines[i] <= endLines[i - 1]) {
+                noOverlap = false;
+            }
+        }
+        disjoint = noOverlap;
+        if (lineLookup) {
+            lineSections = new int[lastLine + 1];
+            Arrays.fill(lineSections, -1);
+            for (int i = 0; i < titles.length; i++) {
+                for (int line = Math.max(startLines[i], 0); line <= endLines[i]; line++) {
+                    lineSections[line] = i;
+                }
+            }
+        } else {
+            lineSections = null;
+        }
+
+        // Stable, so the sections of a title stay sorted by first line
+        Integer[] byTitle = new Integer[titles.length];
+        for (int i = 0; i < titles.length; i++) {
+            byTitle[i] = i;
+        }
+        Arrays.sort(byTitle, (a, b) -> titles[a].compareTo(titles[b]));
+        ids = new HashMap<>();
+        for (int i = 0, j; i < byTitle.length; i = j) {
+            String title = titles[byTitle[i]];
+            for (j = i; j < byTitle.length && titles[byTitle[j]].equals(title); j++) {
+                // Find the end of the sections with the same title
+            }
+            int[] sameTitle = new int[j - i];
+            for (int k = i; k < j; k++) {
+                sameTitle[k - i] = byTitle[k];
+            }
+            ids.put(title, sameTitle);
+        }
+    }
+
+    /**
+     * Build the table from a frozen index trie, where each title's occurrences hold
+     * the first line of a section as the line and the last line as the column
+     *
+     * Run-time: O(s log s) where s is the number of sections
+     *
+     * @param index the frozen trie storing the sections
+     * @return the table of the sections
+     */
+    static SectionTable of(FrozenTrie index) {
+        String[] terms = index.getTerms();
+        Postings sections = index.getPostings();
+        Integer[] order = new Integer[sections.getSize()];
+        int[] titleIds = new int[order.length];
+        int[] starts = new int[order.length];
+        int[] ends = new int[order.length];
+        int j = 0;
+        for (int i = 0; i < terms.length; i++) {
+            PostingsCursor section = sections.cursor(i);
+            while (section.next()) {
+                order[j] = j;
+                titleIds[j] = i;
+                starts[j] = section.getLine();
+                ends[j++] = section.getCol();
+            }
+        }
+        // Stable, so sections starting on the same line keep the order of their titles
+        Arrays.sort(order, (a, b) -> Integer.compare(starts[a], starts[b]));
+        String[] titles = new String[order.length];
+        int[] startLines = new int[order.length];
+        int[] endLines = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            titles[i] = terms[titleIds[order[i]]];
+            startLines[i] = starts[order[i]];
+            endLines[i] = ends[order[i]];
+        }
+        return new SectionTable(titles, startLines, endLines);
+    }
+
+    /**
+     * Create a table with one untitled section covering the whole document, to search the document as a section
+     *
+     * @param lineCount the number of lines of the document
+     * @return the table of the one section, with id 0
+     */
+    static SectionTable document(int lineCount) {
+        return new SectionTable(new String[] {""}, new int[] {1}, new int[] {lineCount}, false);
+    }
+
+    /**
+     * @return the number of sections
+     */
+    public int size() {
+        return titles.length;
+    }
+
+    /**
+     * @return True if no two sections share a line, so each line is in at most one section
+     */
+    public boolean isDisjoint() {
+        return disjoint;
+    }
+
+    /**
+     * Find the section of a line
+     *
+     * Run-time: O(1). O(log s) for the table of a whole document
+     *
+     * @param line a line of the document
+     * @return the id of the section containing the line. -1 if the line is in no section
+     */
+    public int sectionAt(int line) {
+        if (lineSections != null) {
+            return (line >= 0 && line < lineSections.length) ? lineSections[line] : -1;
+        }
+        int id = nextSection(line) - 1;
+        return (id >= 0 && line <= endLines[id]) ? id : -1;
+    }
+
+    /**
+     * Find the first section after a line
+     *
+     * Run-time: O(log s) where s is the number of sections
+     *
+     * @param line a line of the document
+     * @return the id of the first section starting after the line. The number of sections if there is none
+     */
+    public int nextSection(int line) {
+        int low = 0;
+        int high = startLines.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (startLines[mid] <= line) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the sections of a title
+     *
+     * Run-time: O(t) where t is size of the title, to hash it
+     *
+     * @param title the exact title of the sections
+     * @return the ids of the sections with the title, sorted by first line. Empty if there is none
+     */
+    public int[] sectionsOf(String title) {
+        int[] sameTitle = ids.get(title);
+        return (sameTitle == null) ? NONE : sameTitle.clone();
+    }
+
+    /**
+     * Find the sections of some titles
+     *
+     * Run-time: O(t + s log s) where t is total size of the titles and s is the number of sections found
+     *
+     * @param allTitles the exact titles of the sections
+     * @return the ids of the sections with any of the titles, sorted and without repeats
+     */
+    int[] sectionsOf(String[] allTitles) {
+        int size = 0;
+        for (String title : allTitles) {
+            int[] sameTitle = ids.get(title);
+            size += (sameTitle == null) ? 0 : sameTitle.length;
+        }
+        int[] result = new int[size];
+        size = 0;
+        for (String title : allTitles) {
+            int[] sameTitle = ids.get(title);
+            if (sameTitle != null) {
+                System.arraycopy(sameTitle, 0, result, size, sameTitle.length);
+                size += sameTitle.length;
+            }
+        }
+        Arrays.sort(result);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || result[distinct - 1] != result[i]) {
+                result[distinct++] = result[i];
+            }
+        }
+        return Arrays.copyOf(result, distinct);
+    }
+
+    /**
+     * @param id the id of a section
+     * @return the title of the section
+     */
+    public String getTitle(int id) {
+        return titles[id];
+    }
+
+    /**
+     * @param id the id of a section
+     * @return the first line of the section
+     */
+    public int getStartLine(int id) {
+        return startLines[id];
+    }
+
+    /**
+     * @param id the id of a section
+     * @return the last line of the section
+     */
+    public int getEndLine(int id) {
+        return endLines[id];
+    }
+}
@@ -0,0 +1,44 @@
+package comp3506.assn2.application;
+
+/**
+ * A deterministic automaton (DFA) over the characters of words, run over a dictionary to find the words
+ * it accepts, e.g. a WildcardPattern or a LevenshteinAutomaton.
+ *
+ * A dictionary is walked in lexicographic order with the automaton (see FrozenTrie.matchAutomaton and
+ * MappedIndex.matchAutomaton). Once a prefix leads to the dead state, no word with that prefix is accepted,
+ * so the walk skips all of them at once.
+ *
+ * Characters that the automaton does not tell apart share a class, so a state has a transition per class
+ * rather than per character.
+ */
+interface TermAutomaton {
+
+    // Returned by step() for the dead state
+    int DEAD = -1;
+
+    /**
+     * @return The start state of the DFA
+     */
+    int start();
+
+    /**
+     * @param c a character of a word
+     * @return the class of the character, to give to step()
+     */
+    int classOf(char c);
+
+    /**
+     * Follow a transition of the DFA
+     *
+     * @param state a state of the DFA, not DEAD
+     * @param charClass the class of the next character, see classOf
+     * @return the next state. DEAD if no word continuing with the character is accepted
+     */
+    int step(int state, int charClass);
+
+    /**
+     * @param state a state of the DFA, not DEAD
+     * @return True if a word ending in this state is accepted
+     */
+    boolean isAccepting(int state);
+}
@@ -0,0 +1,35 @@
+package comp3506.assn2.application;
+
+import comp3506.assn2.utils.Triple;
+
+import java.util.List;
+
+/**
+ * The words of an indexed document, each with a term id in lexicographic order, as the postings index them.
+ *
+ * A FrozenTrie walks its states and a MappedIndex searches the sorted words of its file,
+ * and the searches built on the words (see SearchEngine) work the same over either.
+ */
+interface TermDictionary {
+
+    /**
+     * @param word a lower case word
+     * @return the term id of the word. -1 if the word is not in the document
+     */
+    int termId(String word);
+
+    /**
+     * Find the words an automaton accepts, leaving a prefix as soon as the automaton rejects it
+     *
+     * @param automaton the automaton, e.g. a WildcardPattern or a LevenshteinAutomaton
+     * @param maxTerms the greatest number of words to find. The search stops once it has found them
+     * @return Triples of each accepted word, the state of the automaton after it and its term id,
+     *         for the first maxTerms accepted words in lexicographic order
+     */
+    List<Triple<String, Integer, Integer>> matchAutomaton(TermAutomaton automaton, int maxTerms);
+
+    /**
+     * @return the suffix array of all words, built the first time
+     */
+    TermSuffixArray getSuffixArray();
+}
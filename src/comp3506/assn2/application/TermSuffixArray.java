@@ -0,0 +1,295 @@
+package comp3506.assn2.application;
+
+import java.util.Arrays;
+
+/**
+ * A suffix array over the words of a dictionary, to find the words containing a string (e.g. "speare")
+ * or ending with it (e.g. "eth") without reading every word.
+ *
+ * The words are joined into one text, each followed by a separator that is never in a word.
+ * Every character of a word starts a suffix running to the end of its word, and the array holds the positions
+ * of the suffixes sorted by their characters (a suffix is before the longer suffixes it starts, as the separator
+ * is the smallest character). The suffixes starting with a string are one range of the array, found by two
+ * binary searches, and their words are the words containing the string. The words ending with a string are
+ * those of the suffixes starting with the string followed by the separator.
+ *
+ * The array is sorted by a three-way radix quicksort, which compares one character of all suffixes at a time.
+ *
+ * Memory usage: O(c) where c is the number of characters of all words:
+ *               2 bytes for each character and 8 bytes for each suffix (its position and its word)
+ */
+public class TermSuffixArray {
+
+    // Follows every word in the text. The same as the end of a word in the tries
+    private static final char SEPARATOR = '\0';
+    // Ranges of suffixes smaller than this are sorted by insertion
+    private static final int INSERTION_SORT_SIZE = 16;
+    // The words of more suffixes than one in this many words are collected in a set rather than sorted
+    private static final int BITSET_RATIO = 64;
+
+    private final char[] text;          // the words, each followed by the separator
+    private final int[] suffixes;       // the position in text of each suffix, sorted by the suffixes
+    private final int[] suffixTerms;    // the term id of the word of each suffix, in the same order
+    private final int termCount;        // the number of words
+    private final long buildNanos;      // the time taken to build the array
+
+    /**
+     * Constructor. Build the suffix array of some words
+     *
+     * Run-time: O(c log c) expected, where c is the number of characters of all words.
+     *           A comparison reads one character, and the characters a range of suffixes shares are read once
+     *
+     * @param terms the words, indexed by term id
+     */
+    TermSuffixArray(String[] terms) {
+        long start = System.nanoTime();
+        int size = 0;
+        for (String term : terms) {
+            size += term.length() + 1;
+        }
+        text = new char[size];
+        suffixes = new int[size - terms.length];
+        int[] positionTerms = new int[size];
+        int position = 0;
+        int suffix = 0;
+        for (int termId = 0; termId < terms.length; termId++) {
+            for (int i = 0; i < terms[termId].length(); i++) {
+                text[position] = terms[termId].charAt(i);
+                positionTerms[position] = termId;
+                suffixes[suffix++] = position++;
+            }
+            text[position++] = SEPARATOR;
+        }
+        sort(0, suffixes.length, 0);
+        suffixTerms = new int[suffixes.length];
+        for (int i = 0; i < suffixes.length; i++) {
+            suffixTerms[i] = positionTerms[suffixes[i]];
+        }
+        termCount = terms.length;
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Find the words containing a string, anywhere from their start to their end
+     *
+     * Run-time: O(m log c + min(w log w, w + t / 64)) where m is size of the string, c is the number of suffixes,
+     *           w is the number of suffixes found and t is the number of words
+     *
+     * @param infix the string, in lower case
+     * @return the ids of the words containing the string, sorted and without repeats
+     */
+    int[] containing(String infix) {
+        return termsStartingWith(infix);
+    }
+
+    /**
+     * Find the words ending with a string
+     *
+     * Run-time: O(m log c + min(w log w, w + t / 64)) where m is size of the string, c is the number of suffixes,
+     *           w is the number of words found and t is the number of words
+     *
+     * @param suffix the string, in lower case
+     * @return the ids of the words ending with the string, sorted
+     */
+    int[] ending(String suffix) {
+        return termsStartingWith(suffix + SEPARATOR);
+    }
+
+    /**
+     * @param key the start of the suffixes to find
+     * @return the ids of the words of the suffixes starting with the key, sorted and without repeats
+     */
+    private int[] termsStartingWith(String key) {
+        int first = bound(key, false);
+        int end = bound(key, true);
+        if ((long) (end - first) * BITSET_RATIO > termCount) {
+            return termsOfRange(first, end);
+        }
+        int[] termIds = Arrays.copyOfRange(suffixTerms, first, end);
+        Arrays.sort(termIds);
+        // A word containing the key more than once has a suffix for each
+        int distinct = 0;
+        for (int i = 0; i < termIds.length; i++) {
+            if (distinct == 0 || termIds[distinct - 1] != termIds[i]) {
+                termIds[distinct++] = termIds[i];
+            }
+        }
+        return Arrays.copyOf(termIds, distinct);
+    }
+
+    /**
+     * Collect the words of a large range of suffixes by marking them in a set of all term ids,
+     * which is faster than sorting them when the range holds many words
+     *
+     * Run-time: O(w + t / 64) where w is the number of suffixes of the range and t is the number of words
+     *
+     * @param first the index of the first suffix of the range
+     * @param end the index after the last suffix of the range
+     * @return the ids of the words of the suffixes, sorted and without repeats
+     */
+    private int[] termsOfRange(int first, int end) {
+        long[] marked = new long[(termCount + 63) >>> 6];
+        int distinct = 0;
+        for (int i = first; i < end; i++) {
+            int termId = suffixTerms[i];
+            long bit = 1L << termId;
+            if ((marked[termId >>> 6] & bit) == 0) {
+                marked[termId >>> 6] |= bit;
+                distinct++;
+            }
+        }
+        int[] termIds = new int[distinct];
+        int size = 0;
+        for (int word = 0; word < marked.length; word++) {
+            for (long bits = marked[word]; bits != 0; bits &= bits - 1) {
+                termIds[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return termIds;
+    }
+
+    /**
+     * @param key the start of the suffixes to find
+     * @param after false for the index of the first suffix starting with the key or greater than it,
+     *              true for the index of the first suffix greater than the key and not starting with it
+     * @return the index in the array
+     */
+    private int bound(String key, boolean after) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(suffixes[mid], key);
+            if (cmp < 0 || (after && cmp == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param position the position of a suffix
+     * @param key the string to compare with
+     * @return negative or positive if the suffix is smaller or greater than the key, zero if it starts with the key
+     */
+    private int compare(int position, String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = text[position + i];
+            if (c != key.charAt(i)) {
+                return c - key.charAt(i);
+            }
+            if (c == SEPARATOR) {
+                // The key runs past the end of the word
+                return (i + 1 == key.length()) ? 0 : -1;
+            }
+        }
+        return 0;
+    }
+
+    /* ----------------------- Sorting ---------------- */
+
+    /**
+     * Sort a range of suffixes sharing their first characters by a three-way radix quicksort
+     *
+     * @param low the index of the first suffix of the range
+     * @param high the index after the last suffix of the range
+     * @param depth the number of characters the suffixes of the range share
+     */
+    private void sort(int low, int high, int depth) {
+        while (high - low > INSERTION_SORT_SIZE) {
+            char pivot = text[suffixes[(low + high) >>> 1] + depth];
+            int less = low;
+            int greater = high - 1;
+            int i = low;
+            while (i <= greater) {
+                char c = text[suffixes[i] + depth];
+                if (c < pivot) {
+                    swap(less++, i++);
+                } else if (c > pivot) {
+                    swap(i, greater--);
+                } else {
+                    i++;
+                }
+            }
+            sort(low, less, depth);
+            if (pivot != SEPARATOR) {
+                // Suffixes ending at the depth are equal, so only longer ones compare the next character
+                sort(less, greater + 1, depth + 1);
+            }
+            low = greater + 1;
+        }
+        insertionSort(low, high, depth);
+    }
+
+    /**
+     * Sort a small range of suffixes sharing their first characters
+     */
+    private void insertionSort(int low, int high, int depth) {
+        for (int i = low + 1; i < high; i++) {
+            int suffix = suffixes[i];
+            int j = i;
+            while (j > low && compareSuffixes(suffixes[j - 1], suffix, depth) > 0) {
+                suffixes[j] = suffixes[j - 1];
+                j--;
+            }
+            suffixes[j] = suffix;
+        }
+    }
+
+    /**
+     * @return negative, zero or positive if the first suffix is smaller, equal or greater,
+     *         comparing from the depth on
+     */
+    private int compareSuffixes(int first, int second, int depth) {
+        for (int i = depth; ; i++) {
+            char a = text[first + i];
+            char b = text[second + i];
+            if (a != b) {
+                return a - b;
+            }
+            if (a == SEPARATOR) {
+                return 0;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        int suffix = suffixes[i];
+        suffixes[i] = suffixes[j];
+        suffixes[j] = suffix;
+    }
+
+    /* ----------------------- Report ---------------- */
+
+    /**
+     * @return the number of suffixes, i.e. the number of characters of all words
+     */
+    public int getSuffixCount() {
+        return suffixes.length;
+    }
+
+    /**
+     * @return the bytes taken by the arrays: the text, the suffixes and their words
+     */
+    public long getMemoryBytes() {
+        return 2L * text.length + 4L * suffixes.length + 4L * suffixTerms.length;
+    }
+
+    /**
+     * @return the time taken to build the array, in milliseconds
+     */
+    public double getBuildMillis() {
+        return buildNanos / 1e6;
+    }
+
+    /**
+     * @return The size, memory and build time, e.g. "85000 suffixes of 12000 words, 850 KB, built in 40.0 ms"
+     */
+    @Override
+    public String toString() {
+        return String.format("%d suffixes of %d words, %d KB, built in %.1f ms", suffixes.length, termCount,
+                getMemoryBytes() / 1024, getBuildMillis());
+    }
+}
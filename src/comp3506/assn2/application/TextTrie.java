@@ -2,6 +2,9 @@ package comp3506.assn2.application;
 
 import comp3506.assn2.utils.*;
 
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
 /**
  * A standard trie structure storing texts and their positions in the searched document.
  *
@@ -11,8 +14,10 @@ import comp3506.assn2.utils.*;
  */
 public class TextTrie {
 
-    // The root node of the trie
+    // The root node of the trie. Null once the trie is frozen
     private Internal root;
+    // The compiled form of the trie used by all searches once the trie is frozen
+    private FrozenTrie frozen;
     // A special character representing the end of a word
     private static final char END = '\0';
     // Regx to ignore punctuations except apostrophes within a word
@@ -29,6 +34,68 @@ public class TextTrie {
      */
     TextTrie() {
         root = new Internal(END, null);
+        frozen = null;
+    }
+
+    /**
+     * Compile the trie into double arrays. No more words can be inserted afterwards.
+     * Searches then follow the arrays instead of the internal nodes.
+     *
+     * Run-time: O(nd) where n is the number of nodes in the trie and d is size of the alphabet
+     */
+    public void freeze() {
+        if (frozen == null) {
+            frozen = new FrozenTrie(root);
+            root = null;
+        }
+    }
+
+    /**
+     * Compile a trie of words inserted without occurrences, using occurrences that are already packed,
+     * e.g. read from a saved index
+     *
+     * Run-time: O(nd) where n is the number of nodes in the trie and d is size of the alphabet
+     *
+     * @param postings The occurrences of the words, indexed by their lexicographic order
+     * @param lines The lines of the words, in the same order
+     * @throws IllegalStateException if the trie is already frozen
+     */
+    void freeze(Postings postings, LinePostings lines) {
+        frozen = new FrozenTrie(getRoot(), postings, lines);
+        root = null;
+    }
+
+    /**
+     * Index the pairs of frequent words next to each other with a new threshold, see BigramIndex.
+     * By default the first phrase search indexes the words that are at least one in a thousand words of the document
+     *
+     * Run-time: O(t + p log p) where t is the number of distinct words and p is the number of positions
+     *           of the pairs
+     *
+     * @param minCount The fewest occurrences of a frequent word. 0 to search phrases without the pairs
+     * @throws IllegalStateException if the trie is not frozen
+     * @throws IllegalArgumentException if minCount is negative
+     */
+    public void indexBigrams(int minCount) throws IllegalStateException, IllegalArgumentException {
+        getFrozen().indexBigrams(minCount);
+    }
+
+    /**
+     * @return True if the trie has been compiled and no more words can be inserted
+     */
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    /**
+     * @return The compiled form of the trie
+     * @throws IllegalStateException if the trie is not frozen
+     */
+    FrozenTrie getFrozen() {
+        if (frozen == null) {
+            throw new IllegalStateException("The trie is not frozen");
+        }
+        return frozen;
     }
 
     /* -------------------------- Methods related to insertion --------------------- */
@@ -36,13 +103,13 @@ public class TextTrie {
     /**
      * Insert a string of words with their positions
      *
-     * Run-time: O(dn) where d is size of the alphabet, n is total size of the string
+     * Run-time: O(n) where n is total size of the string
      *
      *           When storing a text file, n is total size of the file since insertLine is called for each line
      *           The method calls "insertWithPos" for each word in the string
-     *           "insertWithPos" calls "insertOneWord" which loops through each character of the word
-     *           For each character, "contains" goes through all of its next characters to find a match
-     *           which will be in the size of the alphabet in the worst case
+     *           "insertWithPos" loops through each character of the word
+     *           For each character, the child table of the current node finds the next character in O(1)
+     *           (direct-indexed table) or O(log d) (binary search) where d is size of the alphabet
      *
      * @param line The string containing one or more words
      * @param lineNo The line number
@@ -67,12 +134,13 @@ public class TextTrie {
      *
      * Still use the Leaf as the end node of the title string. Set "col" to store the last line of the section.
      *
-     * Run-time: O(dn) where d is size of the alphabet and n is total size of the string
+     * Run-time: O(n log d) where d is size of the alphabet and n is total size of the string
      *
      *           When storing an index file, "insertIndex" is called for each line
-     *           so the whole insertion takes O(dn) where d is size of the alphabet and n is total size of the file.
-     *           Similar to "insertLine", "insertIndex" calls "insertWithPos", "insertOneWord", and "contains"
-     *           to loop through each character of each word (takes n) and each next characters (takes d)
+     *           so the whole insertion takes O(n log d) where n is total size of the file.
+     *           Similar to "insertLine", "insertIndex" calls "insertWithPos"
+     *           to loop through each character of each word (takes n) and find each next character.
+     *           Titles contain upper case letters and spaces which are found by binary search (takes log d)
      *
      * @param indexLine a line in the index file
      */
@@ -87,6 +155,103 @@ public class TextTrie {
         return currentSection;
     }
 
+    /**
+     * Move all words of another trie into this trie.
+     * The other trie must have been built from the lines that follow the lines of this trie
+     * so that every word's occurrences stay sorted. The other trie must not be used afterwards
+     *
+     * Run-time: O(n + k) where n is the number of nodes in the other trie
+     *           and k is the number of occurrences of the other trie's words that are also in this trie.
+     *           Sub trees that are only in the other trie are moved without visiting them
+     *
+     * @param later the trie storing the following lines
+     */
+    void merge(TextTrie later) {
+        if (frozen != null || later.frozen != null) {
+            throw new IllegalStateException("Cannot merge a frozen trie");
+        }
+        mergeNode(root, later.root);
+    }
+
+    /**
+     * Move the next characters of a node in another trie under the matching node of this trie
+     *
+     * @param target the node in this trie
+     * @param source the node representing the same characters in the other trie
+     */
+    private void mergeNode(Internal target, Internal source) {
+        ChildTable nextChars = source.getNextChars();
+        for (int i = 0; i < nextChars.getSize(); i++) {
+            Internal child = nextChars.getAt(i);
+            Internal existing = target.getNextChar(child.getChar());
+            if (child.getChar() == END) {
+                // Occurrences of the word point to the last character which is now the target
+                Leaf leaf = (Leaf) child.getChildren().getHead();
+                while (leaf != null) {
+                    leaf.setLastChar(target);
+                    leaf = (Leaf) leaf.getNext();
+                }
+            }
+            if (existing == null) {
+                child.setPreChar(target);
+                target.addNextChar(child);
+            } else if (child.getChar() == END) {
+                existing.getChildren().append(child.getChildren());
+            } else {
+                mergeNode(existing, child);
+            }
+        }
+    }
+
+    /**
+     * Insert a section with its first and last lines.
+     * Used when the last line is already known, e.g. when loading a saved index
+     *
+     * @param title The title of the section
+     * @param startLine The first line of the section
+     * @param endLine The last line of the section
+     */
+    void insertSection(String title, int startLine, int endLine) {
+        insertWithPos(title, startLine, endLine, null);
+    }
+
+    /**
+     * Insert a word without any occurrence.
+     * Used when loading a saved index whose occurrences are already compressed, see freeze(Postings, LinePostings)
+     *
+     * @param word The word to insert
+     */
+    void insertTerm(String word) {
+        Internal current = getRoot();
+        for (int i = 0; i < word.length(); i++) {
+            current = insertChar(current, word.charAt(i));
+        }
+        insertChar(current, END);
+    }
+
+    /**
+     * Insert one word stored in a range of a character array, with a leaf node for its position.
+     * The characters must already be in lower case.
+     * Used by readers that split the document themselves without creating strings
+     *
+     * Run-time: O(m) where m is size of the word
+     *
+     * @param word The array holding the word
+     * @param from Index of the first character of the word
+     * @param to Index after the last character of the word
+     * @param line The line number
+     * @param col The column number of the first character
+     * @param previous The leaf node of the previous word
+     * @return The leaf node of the current word
+     */
+    public Leaf insertWord(char[] word, int from, int to, int line, int col, Leaf previous) {
+        Internal current = getRoot();
+        for (int i = from; i < to; i++) {
+            current = insertChar(current, word[i]);
+        }
+        return insertOccurrence(current, line, col, previous);
+    }
+
     /**
      * Insert one word with leaf nodes for positions
      *
@@ -97,59 +262,58 @@ public class TextTrie {
      * @return The leaf node of the current word
      */
     private Leaf insertWithPos(String word, int line, int col, Leaf previous) {
-        Pair<Internal, Internal> inserted = insertOneWord(word);
+        Internal current = getRoot();
+        for (int i = 0; i < word.length(); i++) {
+            current = insertChar(current, word.charAt(i));
+        }
+        return insertOccurrence(current, line, col, previous);
+    }
+
+    /**
+     * Add an occurrence to the word ending at a node
+     *
+     * @param lastChar The node of the last character of the word
+     * @param line The line number
+     * @param col The column number of the first character
+     * @param previous The leaf node of the previous word
+     * @return The leaf node of the current word
+     */
+    private Leaf insertOccurrence(Internal lastChar, int line, int col, Leaf previous) {
+        Internal end = insertChar(lastChar, END);
         Leaf index = new Leaf(line, col);
-        index.setLastChar(inserted.getLeftValue());
+        index.setLastChar(lastChar);
         if (previous != null) {
             previous.setNextWord(index);
         }
-        inserted.getRightValue().getChildren().addNode(index);
+        end.getChildren().addNode(index);
         return index;
     }
 
     /**
-     * Insert one word without leaf nodes for positions
+     * Find the next character of a node and create it if it does not exist
      *
-     * @param word The word to insert
-     * @return A pair of two internal nodes.
-     *         The left one represents the last character and the right one represents the end
+     * @param current The node of the current character
+     * @param letter The next character
+     * @return The node of the next character
      */
-    private Pair<Internal, Internal> insertOneWord(String word) {
-        Internal current = root;
-        Internal next;
-        for (int i = 0; i < word.length(); i++) {
-            next = contains(word.charAt(i), current.getChildren());
-            if (next == null) {
-                next = new Internal(word.charAt(i), current);
-                current.getChildren().addNode(next);
-            }
-            current = next;
-        }
-        next = contains(END, current.getChildren());
+    private Internal insertChar(Internal current, char letter) {
+        Internal next = current.getNextChar(letter);
         if (next == null) {
-            next = new Internal(END, current);
-            current.getChildren().addNode(next);
+            next = new Internal(letter, current);
+            current.addNextChar(next);
         }
-        return new Pair<>(current, next);
+        return next;
     }
 
     /**
-     * Find the internal node than contains a specific character
-     *
-     * @param item The character to search for
-     * @param nodeList The list of internal nodes
-     * @return The internal node for the character
-     *         Null if no node contains the character
+     * @return The root for insertion
+     * @throws IllegalStateException if the trie is frozen
      */
-    private Internal contains(char item, LinkedList nodeList) {
-        Internal node = (Internal)nodeList.getHead();
-        while (node != null) {
-            if (node.getChar() == item) {
-                return  node;
-            }
-            node =(Internal)node.getNext();
+    private Internal getRoot() {
+        if (frozen != null) {
+            throw new IllegalStateException("Cannot insert into a frozen trie");
         }
-        return null;
+        return root;
     }
 
     /* ----------------------- Methods related to basic searches ---------------- */
@@ -157,20 +321,23 @@ public class TextTrie {
     /**
      * Get all occurrences of one word
      *
-     * Run-time: O(dm) where d is size of the alphabet and m is size of the word to search for
+     * Run-time: O(m) where m is size of the word to search for
      *
      *           Call "search" which goes through each character --> m
-     *           For each character, "search" calls "contains" which loops through all children i.e. next characters
-     *           which have size of the alphabet in the worst case --> d
+     *           For each character, the child table finds the next character in O(1) for a-z and apostrophes
+     *           and O(log d) for other characters where d is size of the alphabet
      *
      * @param word the word to search for
-     * @return A linked list of leaf node for occurrences
+     * @return A linked list of leaf node for occurrences. New leaf nodes once the trie is frozen
      *         The list is empty if the word is not found
      */
     public LinkedList getPos(String word) {
+        if (frozen != null) {
+            return frozen.getPos(word);
+        }
         Internal current = search(word);
         if (current != null) {
-            Internal end = contains(END, current.getChildren());
+            Internal end = current.getNextChar(END);
             if (end != null) {
                 return end.getChildren();
             }
@@ -178,6 +345,38 @@ public class TextTrie {
         return new LinkedList();
     }
 
+    /**
+     * Count the occurrences of one word without copying them
+     *
+     * Run-time: O(m) where m is size of the word to count
+     *
+     * @param word the word to count
+     * @return the number of occurrences. 0 if the word is not found
+     */
+    public int count(String word) {
+        if (frozen != null) {
+            return frozen.count(word);
+        }
+        return getPos(word).getSize();
+    }
+
+    /**
+     * Count the occurrences of all words having a prefix without copying them
+     *
+     * Run-time: O(m) where m is size of the prefix once the trie is frozen, see FrozenTrie.prefixCount.
+     *           Before, O(m + w) where w is the number of nodes below the prefix
+     *
+     * @param prefix the prefix to count
+     * @return the number of occurrences. 0 if the prefix is not found
+     */
+    public int prefixCount(String prefix) {
+        if (frozen != null) {
+            return frozen.prefixCount(prefix);
+        }
+        Internal prefixEnd = search(prefix.toLowerCase());
+        return (prefixEnd == null) ? 0 : countLeaves(prefixEnd);
+    }
+
     /**
      * Find all occurrence of a prefix
      *
@@ -187,15 +386,13 @@ public class TextTrie {
      *           all words in the file are distinct and have the same prefix
      *           so the method reaches every node in the trie.
      *
-     *           In a more common case, it takes O(dm) to reach the end of the prefix in the trie
-     *           where d is size of the alphabet and m is size of the prefix
+     *           In a more common case, it takes O(m) to reach the end of the prefix in the trie
+     *           where m is size of the prefix
      *           Then getting all leaf nodes of the subtree takes O(s)
      *           where s is total size of words that have the prefix
-     *           so the run-time is O(dm+s)
+     *           so the run-time is O(m+s)
      *
-     *           In the context, the file will be large,
-     *           the size of the alphabet is 27 (English characters and apostrophe) which is relatively small
-     *           and size of the prefix is usually small
+     *           In the context, the file will be large and size of the prefix is usually small
      *           so the first case might be worse
      *
      * @param prefix the prefix to search for
@@ -203,10 +400,13 @@ public class TextTrie {
      *         The list is empty if the prefix is not found
      */
     public LinkedList searchPrefix (String prefix) {
+        if (frozen != null) {
+            return frozen.searchPrefix(prefix);
+        }
         LinkedList indices = new LinkedList();
         Internal prefixEnd = search(prefix.toLowerCase());
         if (prefixEnd != null) {
-            indices = getAllLeaves(prefixEnd);
+            getAllLeaves(prefixEnd, indices);
         }
         return indices;
     }
@@ -214,12 +414,11 @@ public class TextTrie {
     /**
      * Find all occurrences of a phrase
      *
-     * Run-time: O(df + kr) where d is size of size of the alphabet,
-     *          f is size of the first word of the phrase,
+     * Run-time: O(f + kr) where f is size of the first word of the phrase,
      *          k is the number of occurrences of the first word,
      *          r is size of the rest of the phrase
      *
-     *          In the worst case, it takes O(df) to search the file for the first word of the phrase
+     *          It takes O(f) to search the trie for the first word of the phrase
      *          For each occurrence, "checkReverseWord" goes through each character of the rest of the phrase
      *
      * @param phrase The phrase to search for
@@ -227,6 +426,9 @@ public class TextTrie {
      *         The list is empty if the phrase is not found
      */
     public LinkedList phraseIndices(String phrase) {
+        if (frozen != null) {
+            return frozen.phraseIndices(phrase);
+        }
         int i = 0;
         String[] allWords = phrase.toLowerCase().split(" ");
         LinkedList occurrence = getPos(allWords[i]);
@@ -263,7 +465,7 @@ public class TextTrie {
         Internal current = root;
         Internal next;
         for (int i = 0; i < word.length(); i++) {
-            next = contains(word.charAt(i), current.getChildren());
+            next = current.getNextChar(word.charAt(i));
             if (next == null) {
                 return null;
             }
@@ -273,24 +475,37 @@ public class TextTrie {
     }
 
     /**
-     * Recursive function to get all leaf nodes of the sub tree starting from an internal node
+     * Recursive function to get all leaf nodes of the sub tree starting from an internal node.
+     * Every level adds to the same list, so each leaf node is copied once
      *
      * @param current The root of the sub tree i.e. the last character of the prefix
-     * @return A linked list of all leaf nodes i.e. Occurrences of all words having the prefix
-     *         The list is empty if no leaf node is found
+     * @param indices The list to add copies of all leaf nodes to i.e. Occurrences of all words having the prefix
      */
-    private LinkedList getAllLeaves(Internal current) {
-        LinkedList indices  = new LinkedList();
+    private void getAllLeaves(Internal current, LinkedList indices) {
         if (current.getChar() == END) {
             indices.addAll(current.getChildren());
         } else {
-            Internal nextChar = (Internal) current.getChildren().getHead();
-            while (nextChar != null) {
-                indices.addAll(getAllLeaves(nextChar));
-                nextChar = (Internal)nextChar.getNext();
+            ChildTable nextChars = current.getNextChars();
+            for (int i = 0; i < nextChars.getSize(); i++) {
+                getAllLeaves(nextChars.getAt(i), indices);
             }
         }
-        return indices;
+    }
+
+    /**
+     * @param current The root of a sub tree
+     * @return The number of leaf nodes of the sub tree i.e. Occurrences of all words in it
+     */
+    private int countLeaves(Internal current) {
+        if (current.getChar() == END) {
+            return current.getChildren().getSize();
+        }
+        int count = 0;
+        ChildTable nextChars = current.getNextChars();
+        for (int i = 0; i < nextChars.getSize(); i++) {
+            count += countLeaves(nextChars.getAt(i));
+        }
+        return count;
     }
 
     /**
@@ -315,59 +530,44 @@ public class TextTrie {
 
     /* ----------------------- Methods related to logic searches ----------------- */
 
+    /*
+     * Logic searches decode the compressed postings of the frozen tries, so this trie, the stop-word trie
+     * and the index trie must be frozen. The occurrences are not copied into leaf nodes.
+     * Line searches only read the line postings, section searches read the occurrences.
+     * Every logic search is a BooleanQuery compiled into iterators over the postings (see MatchIterator)
+     * by the search engine of the frozen trie, which MappedIndex shares (see SearchEngine)
+     */
+
     /**
      * Search for lines that contain all (in AND mode) or at least one (in OR mode) of required words
      *
-     * Run-time: O(dm + k) where d is size of the alphabet,
-     *           m is total size of all words to search for,
-     *           and k is sum of the occurrences of all searched words.
+     * Run-time: AND: O(m + ws log(n / s)), OR: O(m + k log w) where m is total size of all words to search for,
+     *           w is the number of searched words, s and n are the numbers of lines of the rarest
+     *           and the most common word, and k is total number of lines of the words
      *
-     *           The method searches each word in both the stop-word trie and the document trie --> O(dn)
-     *           Every word's all occurrences may need to be checked to get intersection or union. --> O(k)
+     *           The method searches each word in both the stop-word trie and the document trie --> O(m)
+     *           The words are joined into a query and evaluated by "lineQuery"
      *
      * @param allWords Array of words to search for
      * @param mode AND or OR mode
      * @param stopWords Trie storing words to ignore in logic searches
-     * @return A linked list of line numbers that meet the requirement
+     * @return A linked list of line numbers that meet the requirement, sorted and without repeats
      *         The list is empty if no such line is found
      */
     public LinkedList andOrLine(String[] allWords, int mode, TextTrie stopWords) {
-        LinkedList occurrence = new LinkedList();
-        LinkedList index;
-        for (String word : allWords) {
-            if (stopWords != null && stopWords.getPos(word.toLowerCase()).getSize() != 0) {
-                // The word is a stop-word
-                continue;
-            }
-            index = getPos(word.toLowerCase());
-            if (mode == AND && index.getSize() == 0) {
-                return new LinkedList();
-            }
-            if (occurrence.getSize() != 0) {
-                /* In AND mode: get the intersection of all searched words' line numbers
-                                so that the result is list of lines that contain all of the words
-
-                   In OR mode: get the union of all searched words's line numbers
-                                so that the result is list of lines that contain at least one of the words
-                 */
-                occurrence = (mode == AND) ? intersect(occurrence, index) : union(occurrence, index);
-            } else {
-                // The occurrences of the first word to search for
-                occurrence.addAll(index);
-            }
-        }
-        return occurrence;
+        // The query has no NOT, so the number of lines is not needed
+        return lineQuery(BooleanQuery.of(allWords, null, mode), stopWords, 0);
     }
 
     /**
      * Search for lines that contain all required words and none of excluded words
      *
-     * Run-time: O(dm + k) where d is size of the alphabet,
-     *          m is total size of all words to search for (including required words and excluded words),
-     *          and k is sum of occurrences of all searched words
+     * Run-time: O(m + ws log(n / s)) where m is total size of all words to search for
+     *          (including required words and excluded words), w is the number of searched words,
+     *          s is the number of lines of the rarest required word
+     *          and n is the number of lines of the most common word
      *
-     *          Calls "andOrLine" for both required words and excluded words
-     *          "subtract" may goes through every occurrence
+     *          The excluded words are only checked on the lines that contain all the required words
      *
      * @param wordsRequired Array of the required words
      * @param wordsExcluded Array of the excluded words
@@ -376,13 +576,54 @@ public class TextTrie {
      *         The list is empty if no such line is found
      */
     public LinkedList andNotLine(String[] wordsRequired, String[] wordsExcluded, TextTrie stopWords) {
-        LinkedList required = andOrLine(wordsRequired, AND, stopWords);
-        if (required.getSize() != 0) {
-            // There exist lines that contain all the required words
-            LinkedList excluded = andOrLine(wordsExcluded, OR, stopWords);
-            return subtract(required, excluded);
-        }
-        return new LinkedList();
+        // The NOT is inside an AND, so the number of lines is not needed
+        return lineQuery(BooleanQuery.of(wordsRequired, wordsExcluded, NOT), stopWords, 0);
+    }
+
+    /**
+     * Search for lines that match a boolean query
+     *
+     * Run-time: O(m + q) plus the iterators of the query (see MatchIterator), where m is total size
+     *           of the words of the query and q is the number of nodes of the query
+     *
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @param stopWords Trie storing the stop-words to ignore
+     * @param allLine The total line number of the document. Only used by a NOT that is not inside an AND
+     * @return Linked list of the matching line numbers, sorted and without repeats
+     * @throws IllegalStateException if the trie is not frozen
+     */
+    public LinkedList lineQuery(BooleanQuery query, TextTrie stopWords, int allLine) {
+        return toList(searchEngine(stopWords, null, allLine).compileLines(query).toArray());
+    }
+
+    /**
+     * Search for lines that match a boolean query, one line at a time
+     *
+     * Run-time: O(m + q) to construct, see lineQuery. Each line is then found only when the stream reaches it
+     *
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @param stopWords Trie storing the stop-words to ignore
+     * @param allLine The total line number of the document. Only used by a NOT that is not inside an AND
+     * @return A lazy stream of the matching line numbers, sorted and without repeats
+     * @throws IllegalStateException if the trie is not frozen
+     */
+    public IntStream lineStream(BooleanQuery query, TextTrie stopWords, int allLine) {
+        return searchEngine(stopWords, null, allLine).lineStream(query);
+    }
+
+    /**
+     * Plan a group of words of a logic search without reading their postings
+     *
+     * Run-time: O(m + w log w) where m is total size of the words and w is the number of words
+     *
+     * @param allWords Array of words of the group. Null for no words
+     * @param required True if every word must be found (AND), false for alternatives or exclusions
+     * @param stopWords Trie storing words to ignore in logic searches
+     * @return The plan, which describes its decisions in toString()
+     * @throws IllegalStateException if the trie is not frozen
+     */
+    public QueryPlan plan(String[] allWords, boolean required, TextTrie stopWords) {
+        return searchEngine(stopWords, null, 0).plan(allWords, required);
     }
 
     /**
@@ -394,15 +635,13 @@ public class TextTrie {
      *      COMPOUND: Search for sections containing all the required words
      *                and at least one of the words in the "otherWords" parameter
      *
-     * Run-time: O(dt + s(dm + k)) where d is size of the alphabet,
-     *           t is total size of the titles,
-     *           s is the number of sections,
-     *           m is total size of the searched words (including required and "other words")
+     * Run-time: O(t + m + w (s log(n / b) + k)) where t is total size of the titles,
+     *           m is total size of the searched words (including required and "other words"),
+     *           w is the number of searched words, s is the number of sections searched,
+     *           n is the number of occurrences of the most common word, b is size of a block
+     *           and k is the number of occurrences in the sections
      *
-     *           For each section, its title is searched in the index trie --> O(dt) for all sections
-     *           "logicSearches" calls "SectionLogic"
-     *           "SectionLogic" searches both stop-word trie and the doc trie for each word
-     *           then goes through all occurrences to check their line numbers
+     *           The words are joined into a query and evaluated by "sectionQuery"
      *
      * @param allTitles Array of titles of the sections to search within
      *                  The entire document is searched if allTitles is null or an empty array.
@@ -410,269 +649,102 @@ public class TextTrie {
      * @param otherWords Array of "or words" or excluded words
      * @param mode The specific logic: AND, OR, NOT, or COMPOUND
      * @param stopWords Trie storing the stop-words to ignore
-     * @param indexTrie Trie storing the titles and their starting and ending line numbers
+     * @param sections The sections of the document, see SectionTable
      * @param allLine The total line number of the document
      * @return Linked list of triples for each occurrence of words found in all sections
      *         Left value: the line number. Center value: the column number. Right value: word found
-     *         The list is empty if no word found or all indicated titles are not part of the document
+     *         The list is empty if no section meets the searching criteria
+     *         or all indicated titles are not part of the document
      */
     public LinkedList searchForSections(String[] allTitles, String[] wordsRequired, String[] otherWords, int mode,
-                                        TextTrie stopWords, TextTrie indexTrie, int allLine) {
-        LinkedList result = new LinkedList();
-        LinkedList newList;
-        if (allTitles == null || allTitles.length == 0) {
-            // Search the entire document
-            return logicSearches(wordsRequired, otherWords, stopWords, 1, allLine, mode);
-        }
-
-        int startLine, endLine;
-        LinkedList titleOccurrence;
-        Leaf end;
-        for (String title : allTitles) {
-            titleOccurrence = indexTrie.getPos(title);
-            end = (Leaf) titleOccurrence.getHead();
-            // The document may have sections that have the same title
-            while (end != null) {
-                startLine = end.getLine();
-                endLine = end.getCol();
-                newList = logicSearches(wordsRequired, otherWords, stopWords, startLine, endLine, mode);
-                if (newList != null) {
-                    /* newList is created in logicSearches not the list of leaf nodes in the trie
-                       so it can be directly added to the result
-                     */
-                    result.addNode(newList.getHead());
-                    result.setTail(newList.getTail());
-                }
-                end = (Leaf) end.getNext();
-            }
-        }
-        return result;
+                                        TextTrie stopWords, SectionTable sections, int allLine) {
+        return sectionQuery(BooleanQuery.of(wordsRequired, otherWords, mode), allTitles, stopWords, sections, allLine);
     }
 
     /**
-     * Direct the searches within one section
-     * Call the sectionLogic method in different ways according to the logic mode
+     * Search sections (or the entire document) for a boolean query
      *
-     * @param wordsRequired The required words to search for
-     * @param otherWords The "or words" or excluded words
-     * @param stopWords The trie storing stop-words to ignore
-     * @param startLine The first line of the section
-     * @param endLine The last line of the section
-     * @param mode The specific logic: AND, OR, NOT, or COMPOUND
-     * @return Searching result returned by the sectionLogic method.
-     *         A linked list of triples for each valid occurrence of searched word in the section
-     *         Left value: the line number. Center value: the column number. Right value: word found
-     *         Null if the section does not meet the searching criteria
-     */
-    private LinkedList logicSearches (String[] wordsRequired, String[]otherWords, TextTrie stopWords,
-                                      int startLine, int endLine, int mode) {
-        if (mode == AND || mode == OR) {
-            return sectionLogic(wordsRequired, startLine, endLine, stopWords, mode);
-        }
-        if (mode == NOT && sectionLogic(otherWords, startLine, endLine, stopWords, NOT) != null) {
-            return sectionLogic(wordsRequired, startLine, endLine, stopWords, AND);
-        }
-        if (mode == COMPOUND) {
-            LinkedList andList = sectionLogic(wordsRequired, startLine, endLine, stopWords, AND);
-            LinkedList orList = sectionLogic(otherWords, startLine, endLine, stopWords, OR);
-            if (andList != null && orList != null) {
-                andList.addNode(orList.getHead());
-                andList.setTail(orList.getTail());
-                return andList;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Conduct the logic searches within one section
+     * Run-time: O(t + m + q) plus the iterators of the query (see MatchIterator) and reading the occurrences
+     *           of the words in the matching sections, where t is total size of the titles, m is total size
+     *           of the words of the query and q is the number of nodes of the query
      *
-     * @param allWords List of words to search for
-     * @param startLine The first line of the section
-     * @param endLine The last line of the section
-     * @param stopWords The trie storing stop-words to ignore
-     * @param mode The specific logic: AND, OR, or NOT
-     * @return A linked list of triples for each valid occurrence of searched word in the section
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @param allTitles Array of titles of the sections to search within
+     *                  The entire document is searched as one section if allTitles is null or an empty array.
+     * @param stopWords Trie storing the stop-words to ignore
+     * @param sections The sections of the document, see SectionTable
+     * @param allLine The total line number of the document
+     * @return Linked list of triples for each occurrence, in the matching sections, of the words that are not
+     *         inside a NOT. The occurrences are in the order of the titles, then of the words in the query.
      *         Left value: the line number. Center value: the column number. Right value: word found
-     *         Null if (OR mode) all words are not found
-     *                 (AND mode) at least one of the words is not found
-     *                 (NOT mode) at least one of the words is found
+     *         The list is empty if no section matches
+     * @throws IllegalStateException if the trie is not frozen
      */
-    private LinkedList sectionLogic(String[] allWords, int startLine, int endLine, TextTrie stopWords, int mode) {
+    public LinkedList sectionQuery(BooleanQuery query, String[] allTitles, TextTrie stopWords, SectionTable sections,
+                                   int allLine) {
+        SearchEngine engine = searchEngine(stopWords, sections, allLine);
         LinkedList result = new LinkedList();
-        LinkedList index;
-        Leaf end;
-        boolean hasThisWord;
-
-        if ((mode == NOT || mode == OR) && (allWords == null || allWords.length == 0)) {
-            // the excludedWords in not search or the orWords in compound search is empty or null
-            return result;
-        }
-
-        for (String word : allWords) {
-            word = word.toLowerCase();
-            if (stopWords != null && stopWords.getPos(word).getSize() != 0) {
-                // The word is a stop-word
-                continue;
-            }
-
-            hasThisWord = false;
-            index = getPos(word);
-            end = (Leaf) index.getHead();
-            while (end != null) {
-                if (end.getLine() >= startLine && end.getLine() <= endLine) {
-                    if (mode == NOT) {
-                        return null;
-                    }
-                    result.addNode(new Node(new Triple<>(end.getLine(), end.getCol(), word)));
-                    hasThisWord = true;
-                } else if (end.getLine() > endLine) {
-                    break;
-                }
-                end = (Leaf) end.getNext();
-            }
-            if (mode == AND && !hasThisWord) {
-                return null;
-            }
-        }
-        if (mode == OR && result.getSize() == 0) {
-            return null;
+        for (Triple<Integer, Integer, String> hit : engine.sections(allTitles, query)) {
+            result.addNode(new Node(hit));
         }
         return result;
     }
 
-    /*
-     * Intersect, union, subtract: both lists as parameters are sorted increasingly
+    /**
+     * Search sections (or the entire document) for a boolean query, reading the occurrences one at a time
+     *
+     * Run-time: O(t + m + q + s) plus the iterators of the query to construct, where t is total size of the titles,
+     *           m is total size of the words, q is the number of nodes of the query and s is the number of sections
+     *           searched. The occurrences in a matching section are read only when the cursor reaches them
      *
-     * The reader reads the file and the trie inserts nodes from the first word to the last
-     * so that in the occurrence list (singly linked list of leaf nodes)
-     * the previous node's line number is smaller than the next one's
-     * or they have the same line numbers but the previous column number is smaller.
+     * @param query The query, e.g. BooleanQuery.parse("king AND (crown OR throne) AND NOT fool")
+     * @param allTitles Array of titles of the sections to search within
+     *                  The entire document is searched as one section if allTitles is null or an empty array.
+     * @param stopWords Trie storing the stop-words to ignore
+     * @param sections The sections of the document, see SectionTable
+     * @param allLine The total line number of the document
+     * @return A cursor over the same occurrences as sectionQuery, in the same order. getWord() gives the word found
+     * @throws IllegalStateException if the trie is not frozen
      */
+    public HitCursor sectionCursor(BooleanQuery query, String[] allTitles, TextTrie stopWords, SectionTable sections,
+                                   int allLine) {
+        return searchEngine(stopWords, sections, allLine).sectionCursor(allTitles, query);
+    }
 
     /**
-     * Get the intersection of two lists
+     * The searches of the frozen trie that only need its dictionary and postings, see SearchEngine
      *
-     * @param lineSet The current set of line numbers which contain all of words that have been searched
-     *                or the first searched word's occurrences (leaf nodes)
-     * @param nextWord Occurrences of the next searched word. A linked list of its leaf nodes
-     * @return Intersection set of two lists: lines that contain all of previously and currently searched words
+     * Run-time: O(1)
+     *
+     * @param stopWords Trie storing the stop-words to ignore. May be null
+     * @param sections The sections of the document, see SectionTable. Null if no section is searched by title
+     * @param allLine The total line number of the document
+     * @return The searches of this trie
+     * @throws IllegalStateException if the trie is not frozen
      */
-    private LinkedList intersect(LinkedList lineSet, LinkedList nextWord) {
-        LinkedList result = new LinkedList();
-        Node first = lineSet.getHead();
-        Leaf second = (Leaf) nextWord.getHead();
-        int value, line;
-        while (first != null && second != null) {
-            value = (int)first.getValue();
-            line = second.getLine();
-            if ( value < line) {
-                first = first.getNext();
-            } else if(value > line) {
-                second = (Leaf)second.getNext();
-            } else {
-                if (result.getTail() == null || (int)result.getTail().getValue() != line) {
-                    /* The list of occurrences may contain duplicate line numbers
-                       which means the word appears more than once in the line.
-                       To make the result a set, only add values that are not in the result
-                    */
-                    result.addNode(new Node(line));
-                }
-                first = first.getNext();
-                second = (Leaf)second.getNext();
-            }
-        }
-        return result;
+    SearchEngine searchEngine(TextTrie stopWords, SectionTable sections, int allLine) {
+        FrozenTrie doc = getFrozen();
+        return new SearchEngine(doc, doc.getPostings(), doc.getLinePostings(), stopWordTest(stopWords), sections,
+                allLine);
     }
 
     /**
-     * Get the union of two lists
-     *
-     * @param lineSet The current set of lines numbers which contain at least on of words that have been searched
-     *                or the first searched word's occurrences (leaf nodes)
-     * @param nextWord Occurrences of the next searched word. A linked list of its leaf nodes
-     * @return Union set of two lists: lines that contain at least one of previously and currently searched words
+     * @param stopWords Trie storing the stop-words. May be null
+     * @return Tells if a lower case word is a stop-word
      */
-    private LinkedList union (LinkedList lineSet, LinkedList nextWord) {
-        LinkedList result = new LinkedList();
-        Node first = lineSet.getHead();
-        Leaf second = (Leaf) nextWord.getHead();
-        int value, line;
-        while (first != null && second != null) {
-            value = (int)first.getValue();
-            line = second.getLine();
-            if (value < line) {
-                if (result.getTail() == null || (int)result.getTail().getValue() != value) {
-                    result.addNode(new Node(value));
-                }
-                first = first.getNext();
-            } else if(value > line) {
-                if (result.getTail() == null || (int)result.getTail().getValue() != line) {
-                    result.addNode(new Node(line));
-                }
-                second = (Leaf)second.getNext();
-            } else {
-                if (result.getTail() == null || (int)result.getTail().getValue() != value) {
-                    result.addNode(new Node(value));
-                }
-                first = first.getNext();
-                second = (Leaf)second.getNext();
-            }
-        }
-        while (first != null) {
-            value = (int)first.getValue();
-            if (result.getTail() == null || (int)result.getTail().getValue() != value) {
-                result.addNode(new Node(value));
-            }
-            first = first.getNext();
-        }
-        while (second != null) {
-            line = second.getLine();
-            if (result.getTail() == null || (int)result.getTail().getValue() != line) {
-                result.addNode(new Node(line));
-            }
-            second = (Leaf)second.getNext();
-        }
-        return result;
+    private static Predicate<String> stopWordTest(TextTrie stopWords) {
+        return word -> stopWords != null && stopWords.count(word) != 0;
     }
 
     /**
-     * Get the set of lines that are in the required list but not in the excluded list
-     * The two lists are created in the andOrLine method, not the original list of leaf nodes (occurrences) in the trie
-     * so they can be manipulated directly without creating new copies
-     *
-     * @param requiredList A linked list (set) of line numbers that contain all required words
-     * @param excludeList A linked list (set) of line numbers that contain at least one excluded word
-     * @return Set of lines that contain all required words but none of excluded words
+     * @param lines Sorted line numbers
+     * @return A linked list of the line numbers in the same order
      */
-    private LinkedList subtract(LinkedList requiredList, LinkedList excludeList) {
+    private static LinkedList toList(int[] lines) {
         LinkedList result = new LinkedList();
-        Node required = requiredList.getHead();
-        Node exclude = excludeList.getHead();
-        int requiredLine, excludeLine;
-
-        while (required != null && exclude != null) {
-            requiredLine = (int) required.getValue();
-            excludeLine = (int) exclude.getValue();
-            if (requiredLine < excludeLine) {
-                result.addNode(required);
-                required = required.getNext();
-            } else if (requiredLine > excludeLine) {
-                exclude = exclude.getNext();
-            } else {
-                // The line includes all required words and at least one excluded word
-                required = required.getNext();
-                exclude = exclude.getNext();
-            }
+        for (int line : lines) {
+            result.addNode(new Node(line));
         }
-
-        if (required != null) {
-            // More lines contain all required words while no line contains excluded words
-            result.addNode(required);
-            // The rest of nodes in the required list are linked by the current node "required"
-            result.setTail(requiredList.getTail());
-        }
-
         return result;
     }
 }
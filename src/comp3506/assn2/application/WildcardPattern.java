@@ -0,0 +1,331 @@
+package comp3506.assn2.application;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A wildcard pattern for words, compiled into a deterministic automaton (DFA) over characters.
+ *
+ * Syntax:
+ *      ?       any one character
+ *      *       any sequence of characters, including none
+ *      [abc]   one of the characters. Ranges are allowed, e.g. [a-z], and [^abc] or [!abc] is any other character
+ *      \c      the character c itself, e.g. \* or \?
+ * Letters are matched in lower case, as the words of the document are. E.g. "wor?d", "*ness", "[bcr]at*".
+ *
+ * The pattern is first a non-deterministic automaton whose states are the positions between its elements,
+ * with the position after a "*" reachable from the position before it. A state of the DFA is a set of those
+ * positions, so the DFA is built lazily one transition at a time while a dictionary is walked (see
+ * FrozenTrie.matchAutomaton). Characters that no element tells apart are one class, so a DFA state has a
+ * transition for each class rather than each character. A DFA state without a position is dead: no word with
+ * the characters read so far can match, which lets the walk prune the whole sub tree of a prefix.
+ *
+ * A pattern keeps its DFA, so it is not thread-safe. Compile a pattern for each search.
+ *
+ * Memory usage: O(p + s c) where p is size of the pattern, s is the number of DFA states built
+ *               and c is the number of character classes
+ */
+public class WildcardPattern implements TermAutomaton {
+
+    /* --- The kinds of elements --- */
+    private static final int LITERAL = 0;
+    private static final int ANY = 1;
+    private static final int STAR = 2;
+    private static final int CLASS = 3;
+
+    // The number of words a pattern is expanded to by default, to bound the time of a search
+    public static final int DEFAULT_MAX_TERMS = 1024;
+    // The greatest number of elements, so that a set of positions fits in a long
+    private static final int MAX_ELEMENTS = 63;
+    // Marks a transition of the DFA that is not built yet
+    private static final int UNKNOWN = -2;
+
+    private final String pattern;           // the pattern as given
+    private final int[] kinds;              // the kind of each element
+    private final char[][] ranges;          // for LITERAL and CLASS: the first and last character of each range
+    private final boolean[] negated;        // for CLASS: true if the class is any character outside its ranges
+    private final char[] boundaries;        // the first character of each character class after the first, sorted
+
+    private final Map<Long, Integer> stateIds = new HashMap<>();    // the DFA state of each set of positions
+    private long[] stateSets = new long[8];                         // the set of positions of each DFA state
+    private int[][] transitions = new int[8][];                     // the next DFA state by state and class
+    private int stateCount;                                         // the number of DFA states built
+
+    private WildcardPattern(String pattern, int[] kinds, char[][] ranges, boolean[] negated) {
+        this.pattern = pattern;
+        this.kinds = kinds;
+        this.ranges = ranges;
+        this.negated = negated;
+
+        // A character class starts at every character where some element starts or stops matching,
+        // so each range gives at most two starts
+        int rangeChars = 0;
+        for (char[] elementRanges : ranges) {
+            rangeChars += (elementRanges == null) ? 0 : elementRanges.length;
+        }
+        char[] starts = new char[rangeChars];
+        int size = 0;
+        for (char[] elementRanges : ranges) {
+            for (int i = 0; elementRanges != null && i < elementRanges.length; i += 2) {
+                starts[size++] = elementRanges[i];
+                if (elementRanges[i + 1] != Character.MAX_VALUE) {
+                    starts[size++] = (char) (elementRanges[i + 1] + 1);
+                }
+            }
+        }
+        Arrays.sort(starts, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (starts[i] != 0 && (distinct == 0 || starts[distinct - 1] != starts[i])) {
+                starts[distinct++] = starts[i];
+            }
+        }
+        boundaries = Arrays.copyOf(starts, distinct);
+        addState(close(1L));
+    }
+
+    /**
+     * Compile a wildcard pattern
+     *
+     * Run-time: O(p log p) where p is size of the pattern. The DFA is built later, while it is used
+     *
+     * @param pattern the pattern, e.g. "wor?d" or "*ness"
+     * @return the compiled pattern
+     * @throws IllegalArgumentException if pattern is null or empty, has an unclosed or empty "[...]",
+     *                                  ends with "\" or has more than 63 elements
+     */
+    public static WildcardPattern compile(String pattern) throws IllegalArgumentException {
+        if (pattern == null || pattern.isEmpty()) {
+            throw new IllegalArgumentException("The pattern is empty");
+        }
+        String lower = pattern.toLowerCase();
+        int[] kinds = new int[lower.length()];
+        char[][] ranges = new char[lower.length()][];
+        boolean[] negated = new boolean[lower.length()];
+        int size = 0;
+        for (int i = 0; i < lower.length(); i++) {
+            if (size == MAX_ELEMENTS) {
+                throw new IllegalArgumentException("The pattern has more than " + MAX_ELEMENTS + " elements: "
+                        + pattern);
+            }
+            char c = lower.charAt(i);
+            if (c == '*') {
+                if (size > 0 && kinds[size - 1] == STAR) {
+                    // "**" is the same as "*"
+                    continue;
+                }
+                kinds[size++] = STAR;
+            } else if (c == '?') {
+                kinds[size++] = ANY;
+            } else if (c == '[') {
+                i = parseClass(lower, i, size, ranges, negated);
+                kinds[size++] = CLASS;
+            } else {
+                if (c == '\\') {
+                    if (++i == lower.length()) {
+                        throw new IllegalArgumentException("The pattern ends with \"\\\": " + pattern);
+                    }
+                    c = lower.charAt(i);
+                }
+                ranges[size] = new char[] {c, c};
+                kinds[size++] = LITERAL;
+            }
+        }
+        return new WildcardPattern(pattern, Arrays.copyOf(kinds, size), Arrays.copyOf(ranges, size),
+                Arrays.copyOf(negated, size));
+    }
+
+    /**
+     * Parse a "[...]" class
+     *
+     * @param pattern the lower case pattern
+     * @param open the index of the "["
+     * @param element the index of the element to store the class as
+     * @param ranges the ranges of the elements
+     * @param negated the negation of the elements
+     * @return the index of the "]"
+     */
+    private static int parseClass(String pattern, int open, int element, char[][] ranges, boolean[] negated) {
+        int i = open + 1;
+        if (i < pattern.length() && (pattern.charAt(i) == '^' || pattern.charAt(i) == '!')) {
+            negated[element] = true;
+            i++;
+        }
+        StringBuilder pairs = new StringBuilder();
+        // A "]" right after the "[" (or the negation) is a character of the class
+        for (boolean first = true; i < pattern.length() && (first || pattern.charAt(i) != ']'); first = false) {
+            char low = pattern.charAt(i++);
+            if (low == '\\' && i < pattern.length()) {
+                low = pattern.charAt(i++);
+            }
+            char high = low;
+            if (i + 1 < pattern.length() && pattern.charAt(i) == '-' && pattern.charAt(i + 1) != ']') {
+                high = pattern.charAt(i + 1);
+                i += 2;
+                if (high == '\\' && i < pattern.length()) {
+                    high = pattern.charAt(i++);
+                }
+                if (high < low) {
+                    throw new IllegalArgumentException("Reversed range " + low + "-" + high + " in: " + pattern);
+                }
+            }
+            pairs.append(low).append(high);
+        }
+        if (i >= pattern.length()) {
+            throw new IllegalArgumentException("Missing \"]\" in the pattern: " + pattern);
+        }
+        ranges[element] = pairs.toString().toCharArray();
+        return i;
+    }
+
+    /* ----------------------- The DFA ---------------- */
+
+    @Override
+    public int start() {
+        return 0;
+    }
+
+    @Override
+    public int classOf(char c) {
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid] <= c) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Follow a transition of the DFA, building it the first time
+     *
+     * Run-time: O(1) for a transition already built. O(e) to build one, where e is the number of elements
+     *
+     * @param state a state of the DFA, not DEAD
+     * @param charClass the class of the next character, see classOf
+     * @return the next state. DEAD if no word continuing with the character can match
+     */
+    @Override
+    public int step(int state, int charClass) {
+        int next = transitions[state][charClass];
+        if (next == UNKNOWN) {
+            char c = (charClass == 0) ? 0 : boundaries[charClass - 1];
+            long positions = stateSets[state];
+            long moved = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                if ((positions & (1L << i)) != 0 && matches(i, c)) {
+                    // A "*" stays at its position after a character
+                    moved |= 1L << ((kinds[i] == STAR) ? i : i + 1);
+                }
+            }
+            next = (moved == 0) ? DEAD : addState(close(moved));
+            transitions[state][charClass] = next;
+        }
+        return next;
+    }
+
+    /**
+     * @param state a state of the DFA, not DEAD
+     * @return True if a word ending in this state matches the pattern
+     */
+    @Override
+    public boolean isAccepting(int state) {
+        return (stateSets[state] & (1L << kinds.length)) != 0;
+    }
+
+    /**
+     * @return True if the element matches the character
+     */
+    private boolean matches(int element, char c) {
+        if (kinds[element] == ANY || kinds[element] == STAR) {
+            return true;
+        }
+        char[] elementRanges = ranges[element];
+        boolean inside = false;
+        for (int i = 0; i < elementRanges.length && !inside; i += 2) {
+            inside = elementRanges[i] <= c && c <= elementRanges[i + 1];
+        }
+        return inside != negated[element];
+    }
+
+    /**
+     * @param positions a set of positions
+     * @return the set with every position reachable by skipping a "*"
+     */
+    private long close(long positions) {
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] == STAR && (positions & (1L << i)) != 0) {
+                positions |= 1L << (i + 1);
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * @param positions a set of positions
+     * @return the DFA state of the set, added if it is new
+     */
+    private int addState(long positions) {
+        Integer id = stateIds.get(positions);
+        if (id != null) {
+            return id;
+        }
+        if (stateCount == stateSets.length) {
+            stateSets = Arrays.copyOf(stateSets, stateCount * 2);
+            transitions = Arrays.copyOf(transitions, stateCount * 2);
+        }
+        stateSets[stateCount] = positions;
+        transitions[stateCount] = new int[boundaries.length + 1];
+        Arrays.fill(transitions[stateCount], UNKNOWN);
+        stateIds.put(positions, stateCount);
+        return stateCount++;
+    }
+
+    /* ----------------------- Literal patterns ---------------- */
+
+    /**
+     * @return the characters of a pattern "*abc*" (any word containing them), e.g. "abc".
+     *         Null if the pattern is not of this form
+     */
+    String getInfix() {
+        int last = kinds.length - 1;
+        return (last >= 2 && kinds[0] == STAR && kinds[last] == STAR) ? literal(1, last) : null;
+    }
+
+    /**
+     * @return the characters of a pattern "*abc" (any word ending with them), e.g. "abc".
+     *         Null if the pattern is not of this form
+     */
+    String getSuffix() {
+        return (kinds.length >= 2 && kinds[0] == STAR) ? literal(1, kinds.length) : null;
+    }
+
+    /**
+     * @param from the index of the first element
+     * @param to the index after the last element
+     * @return the characters of the elements. Null if any of them is not a single character
+     */
+    private String literal(int from, int to) {
+        StringBuilder characters = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (kinds[i] != LITERAL) {
+                return null;
+            }
+            characters.append(ranges[i][0]);
+        }
+        return characters.toString();
+    }
+
+    /**
+     * @return the pattern as given
+     */
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,156 @@
+package comp3506.assn2.utils;
+
+/**
+ * The next characters of an internal node in the trie.
+ *
+ * Children are kept in an array sorted by character so a lookup is a binary search.
+ * Once a node has more than SPARSE_LIMIT children (e.g. the root and the first few levels of the trie)
+ * a table indexed directly by character is added for a-z, apostrophes and the end of a word,
+ * so the lookup of those characters takes O(1). Other characters (digits, underscores, characters in titles)
+ * are still found by the binary search.
+ *
+ * The table replaced a linked list of the children to make loading faster, but that was not achieved:
+ * LoadBenchmark on documents the size of the Bible and Shakespeare showed no consistent gain in load time,
+ * the differences were within run-to-run noise. The searches of a loaded document use FrozenTrie instead.
+ *
+ * Memory usage: O(k) where k is the number of children
+ */
+public class ChildTable {
+
+    // The number of children a node can have before the direct-indexed table is built
+    private static final int SPARSE_LIMIT = 8;
+    // The size of the direct-indexed table: a-z, apostrophe and the end of a word
+    private static final int DENSE_SIZE = 28;
+
+    private char[] keys;        // characters of the children, sorted increasingly
+    private Internal[] nodes;   // children in the same order as the keys
+    private int size;           // the number of children
+    private Internal[] dense;   // direct-indexed children. Null while the node is sparse
+
+    /**
+     * Constructor. Create an empty table
+     */
+    public ChildTable() {
+        keys = new char[2];
+        nodes = new Internal[2];
+        size = 0;
+        dense = null;
+    }
+
+    /**
+     * Find the child representing a character
+     *
+     * Run-time: O(1) if the table is dense and the character is a-z, an apostrophe or the end of a word.
+     *           Otherwise O(log k) where k is the number of children
+     *
+     * @param letter the character to search for
+     * @return the child node for the character. Null if no child represents the character
+     */
+    public Internal get(char letter) {
+        if (dense != null) {
+            int slot = slot(letter);
+            if (slot >= 0) {
+                return dense[slot];
+            }
+        }
+        int index = indexOf(letter);
+        return (index >= 0) ? nodes[index] : null;
+    }
+
+    /**
+     * Add a child. The table must not have a child for the same character
+     *
+     * Run-time: O(k) where k is the number of children, to keep the array sorted
+     *
+     * @param node the new child
+     */
+    public void add(Internal node) {
+        char letter = node.getChar();
+        int index = -(indexOf(letter) + 1);
+        if (size == keys.length) {
+            char[] newKeys = new char[size * 2];
+            Internal[] newNodes = new Internal[size * 2];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(nodes, 0, newNodes, 0, size);
+            keys = newKeys;
+            nodes = newNodes;
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(nodes, index, nodes, index + 1, size - index);
+        keys[index] = letter;
+        nodes[index] = node;
+        size++;
+
+        if (dense != null) {
+            int slot = slot(letter);
+            if (slot >= 0) {
+                dense[slot] = node;
+            }
+        } else if (size > SPARSE_LIMIT) {
+            dense = new Internal[DENSE_SIZE];
+            for (int i = 0; i < size; i++) {
+                int slot = slot(keys[i]);
+                if (slot >= 0) {
+                    dense[slot] = nodes[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of children
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Children are ordered by their characters
+     *
+     * @param i the position of the child
+     * @return the i-th child
+     */
+    public Internal getAt(int i) {
+        return nodes[i];
+    }
+
+    /**
+     * Binary search for a character in the sorted keys
+     *
+     * @param letter the character to search for
+     * @return the index of the character if found. Otherwise (-(insertion point) - 1)
+     */
+    private int indexOf(char letter) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < letter) {
+                low = mid + 1;
+            } else if (keys[mid] > letter) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @param letter a character
+     * @return the position of the character in the direct-indexed table.
+     *         -1 if the character is not a-z, an apostrophe or the end of a word
+     */
+    private static int slot(char letter) {
+        if (letter >= 'a' && letter <= 'z') {
+            return letter - 'a';
+        }
+        if (letter == '\'') {
+            return 26;
+        }
+        if (letter == '\0') {
+            return 27;
+        }
+        return -1;
+    }
+}
@@ -6,7 +6,8 @@ package comp3506.assn2.utils;
 public class Internal extends Node {
 
     private Internal preChar;      // the previous character
-    private LinkedList children;   // all of the next characters in different words or the word's all occurrences
+    private ChildTable nextChars;  // all of the next characters in different words. Null if the word ends
+    private LinkedList children;   // the word's all occurrences if the word ends. Null otherwise
 
     /**
      * Constructor. Create an internal node
@@ -17,16 +18,45 @@ public class Internal extends Node {
     public Internal(char letter, Internal preChar) {
         super(letter); // Value: the character. a-z, Apostrophes in the middle of a word, or '\0' for the end
         this.preChar = preChar;
-        children = new LinkedList();
+        if (letter == '\0' && preChar != null) {
+            // The end of a word. The root also holds '\0' but has no previous character
+            children = new LinkedList();
+        } else {
+            nextChars = new ChildTable();
+        }
     }
 
     /**
-     * @return the children list
+     * @return the list of occurrences if the node indicates the word ends. Otherwise null
      */
     public LinkedList getChildren() {
         return children;
     }
 
+    /**
+     * @return the next characters. Null if the node indicates the word ends
+     */
+    public ChildTable getNextChars() {
+        return nextChars;
+    }
+
+    /**
+     * Find the next character in a word
+     *
+     * @param letter the character to search for
+     * @return the node representing the next character. Null if it is not found
+     */
+    public Internal getNextChar(char letter) {
+        return (nextChars == null) ? null : nextChars.get(letter);
+    }
+
+    /**
+     * @param node the node representing a new next character
+     */
+    public void addNextChar(Internal node) {
+        nextChars.add(node);
+    }
+
     /**
      * @return the previous character
      */
@@ -34,6 +64,13 @@ public class Internal extends Node {
         return preChar;
     }
 
+    /**
+     * @param preChar the new previous character when the node is moved to another trie
+     */
+    public void setPreChar(Internal preChar) {
+        this.preChar = preChar;
+    }
+
     /**
      * @return the character represented
      */
@@ -0,0 +1,175 @@
+package comp3506.assn2.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The lines on which each word of a document appears, without repeats and without columns or positions.
+ * Line searches only need to know whether a word is on a line, so they read these lists instead of the
+ * occurrences in Postings.
+ *
+ * Each word's lines are sorted and cut into blocks of Postings.BLOCK_SIZE. A block header keeps the byte offset
+ * of the block and its first line. Every later line of a block is stored as the difference from the previous line
+ * in the variable-byte encoding of Postings. The first line of a block is only in the header.
+ *
+ * Memory usage: O(l + t) where l is the number of distinct (word, line) pairs and t is the number of distinct words.
+ *               About 1 to 2 bytes for each pair in a natural text
+ */
+public class LinePostings {
+
+    private final ByteBuffer data;      // encoded lines of all blocks
+    private final IntBuffer offsets;    // index of each word's first line. offsets[t] is the number of pairs
+    private final IntBuffer termBlocks; // index of each word's first block. termBlocks[t] is the number of blocks
+    private final IntBuffer blocks;     // two ints for each block: byte offset, first line
+
+    /**
+     * Constructor. Wrap encoded lines without copying them
+     *
+     * @param data encoded lines of all blocks
+     * @param offsets index of each word's first line, followed by the number of pairs
+     * @param termBlocks index of each word's first block, followed by the number of blocks
+     * @param blocks the byte offset and first line of each block
+     */
+    public LinePostings(ByteBuffer data, IntBuffer offsets, IntBuffer termBlocks, IntBuffer blocks) {
+        this.data = data;
+        this.offsets = offsets;
+        this.termBlocks = termBlocks;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Encode the lines of all words
+     *
+     * Run-time: O(l) where l is the number of lines of all words
+     *
+     * @param lines the lines of every word, grouped by word, sorted and without repeats within a word
+     * @param offsets index of each word's first line, followed by the number of lines
+     * @return the compressed lines
+     */
+    public static LinePostings encode(int[] lines, int[] offsets) {
+        int termCount = offsets.length - 1;
+        int[] termBlocks = new int[termCount + 1];
+        for (int i = 0; i < termCount; i++) {
+            int size = offsets[i + 1] - offsets[i];
+            termBlocks[i + 1] = termBlocks[i] + (size + Postings.BLOCK_SIZE - 1) / Postings.BLOCK_SIZE;
+        }
+        int[] blocks = new int[termBlocks[termCount] * 2];
+        byte[] bytes = new byte[Math.max(16, lines.length)];
+        int size = 0;
+        int block = 0;
+        for (int t = 0; t < termCount; t++) {
+            for (int i = offsets[t]; i < offsets[t + 1]; i++) {
+                if (bytes.length - size < 5) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                if ((i - offsets[t]) % Postings.BLOCK_SIZE == 0) {
+                    blocks[block * 2] = size;
+                    blocks[block * 2 + 1] = lines[i];
+                    block++;
+                } else {
+                    size = Postings.writeVByte(bytes, size, lines[i] - lines[i - 1]);
+                }
+            }
+        }
+        return new LinePostings(ByteBuffer.wrap(Arrays.copyOf(bytes, size)), IntBuffer.wrap(offsets),
+                IntBuffer.wrap(termBlocks), IntBuffer.wrap(blocks));
+    }
+
+    /**
+     * @param termId the id of a word
+     * @return a cursor before the first line of the word
+     */
+    public LinePostingsCursor cursor(int termId) {
+        return new LinePostingsCursor(this, termId);
+    }
+
+    /**
+     * @return the number of distinct words
+     */
+    public int getTermCount() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * @return the number of distinct (word, line) pairs
+     */
+    public int getSize() {
+        return offsets.get(offsets.limit() - 1);
+    }
+
+    /**
+     * @param termId the id of a word
+     * @return the number of lines on which the word appears
+     */
+    public int count(int termId) {
+        return offsets.get(termId + 1) - offsets.get(termId);
+    }
+
+    /* --- The encoded arrays, e.g. to save them. The buffers share the content but not the positions --- */
+
+    /**
+     * @return the encoded lines of all blocks
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * @return index of each word's first line, followed by the number of pairs
+     */
+    public IntBuffer getOffsets() {
+        return offsets.duplicate();
+    }
+
+    /**
+     * @return index of each word's first block, followed by the number of blocks
+     */
+    public IntBuffer getTermBlocks() {
+        return termBlocks.duplicate();
+    }
+
+    /**
+     * @return the byte offset and first line of each block
+     */
+    public IntBuffer getBlocks() {
+        return blocks.duplicate();
+    }
+
+    /* --- Used by the cursors --- */
+
+    /**
+     * @return the index of the word's first line
+     */
+    int start(int termId) {
+        return offsets.get(termId);
+    }
+
+    /**
+     * @return the index of the word's first block
+     */
+    int firstBlock(int termId) {
+        return termBlocks.get(termId);
+    }
+
+    /**
+     * @return the byte offset of a block
+     */
+    int blockOffset(int block) {
+        return blocks.get(block * 2);
+    }
+
+    /**
+     * @return the first line of a block
+     */
+    int blockLine(int block) {
+        return blocks.get(block * 2 + 1);
+    }
+
+    /**
+     * @return the encoded byte at an offset
+     */
+    byte byteAt(int offset) {
+        return data.get(offset);
+    }
+}
@@ -0,0 +1,142 @@
+package comp3506.assn2.utils;
+
+/**
+ * Decode the lines of one word from the first to the last.
+ *
+ * A cursor starts before the first line. next() decodes the following line,
+ * and skipTo jumps over whole blocks before decoding. The block headers act as skip pointers:
+ * the block to jump to is found by an exponential (galloping) search from the current block,
+ * followed by a binary search, so a far jump costs the logarithm of the distance.
+ *
+ * Memory usage: O(1)
+ */
+public class LinePostingsCursor {
+
+    private final LinePostings lines;   // the lines to decode
+    private final int start;            // index of the word's first line
+    private final int end;              // index after the word's last line
+    private final int firstBlock;       // index of the word's first block
+    private final int lastBlock;        // index after the word's last block
+
+    private int index;                  // index of the current line. start - 1 before the first
+    private int offset;                 // byte offset of the next encoded number
+    private int line;                   // the current line
+
+    /**
+     * Constructor. Create a cursor before the first line of a word
+     *
+     * @param lines the lines to decode
+     * @param termId the id of the word
+     */
+    LinePostingsCursor(LinePostings lines, int termId) {
+        this.lines = lines;
+        start = lines.start(termId);
+        end = lines.start(termId + 1);
+        firstBlock = lines.firstBlock(termId);
+        lastBlock = lines.firstBlock(termId + 1);
+        index = start - 1;
+    }
+
+    /**
+     * Move to the next line
+     *
+     * Run-time: O(1)
+     *
+     * @return True if there is a next line. False if the cursor has passed the last line
+     */
+    public boolean next() {
+        if (index + 1 >= end) {
+            index = end;
+            return false;
+        }
+        index++;
+        if ((index - start) % Postings.BLOCK_SIZE == 0) {
+            int block = firstBlock + (index - start) / Postings.BLOCK_SIZE;
+            offset = lines.blockOffset(block);
+            line = lines.blockLine(block);
+        } else {
+            line += readVByte();
+        }
+        return true;
+    }
+
+    /**
+     * Move forward to the first line that is not before a line
+     *
+     * Run-time: O(log b + s) where b is the number of blocks skipped and s is size of a block
+     *
+     * @param target the line to move to
+     * @return True if there is such a line. False if the cursor has passed the last line
+     */
+    public boolean skipTo(int target) {
+        if (index >= end) {
+            return false;
+        }
+        if (index >= start && line >= target) {
+            return true;
+        }
+        int block = findBlock(target);
+        int before = start + (block - firstBlock) * Postings.BLOCK_SIZE - 1;
+        if (before > index) {
+            index = before;
+        }
+        while (next()) {
+            if (line >= target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gallop from the current block to the last block starting on or before a line
+     *
+     * @param target the line to move to
+     * @return the block to decode from
+     */
+    private int findBlock(int target) {
+        int low = firstBlock + Math.max(0, index - start) / Postings.BLOCK_SIZE;
+        int step = 1;
+        while (low + step < lastBlock && lines.blockLine(low + step) <= target) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, lastBlock) - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (lines.blockLine(mid) <= target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of lines of the word
+     */
+    public int getCount() {
+        return end - start;
+    }
+
+    /**
+     * @return the current line
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the number at the current byte offset, moving past it
+     */
+    private int readVByte() {
+        byte b = lines.byteAt(offset++);
+        int value = b & 0x7f;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = lines.byteAt(offset++);
+            value |= (b & 0x7f) << shift;
+        }
+        return value;
+    }
+}
@@ -67,6 +67,24 @@ public class LinkedList {
         return size;
     }
 
+    /**
+     * Move all nodes of another list to the end of the current list without copying them.
+     * The other list must not be used afterwards
+     *
+     * @param newList the list to move
+     */
+    public void append(LinkedList newList) {
+        if (newList != null && newList.getHead() != null) {
+            if (tail == null) {
+                head = newList.getHead();
+            } else {
+                tail.setNext(newList.getHead());
+            }
+            tail = newList.getTail();
+            size += newList.getSize();
+        }
+    }
+
     /**
      * Add all elements in a list into the current list
      * Create a copy of the new linked list to avoid changing the other list's structure
@@ -0,0 +1,240 @@
+package comp3506.assn2.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The occurrences of all words in a document, compressed with delta and variable-byte encoding.
+ *
+ * Occurrences are grouped by word (term id) and sorted by line and column within a word.
+ * Every occurrence has a line, a column and a position: its index among all words of the document
+ * in reading order, which replaces the links from each word to the next word.
+ *
+ * Each word's occurrences are cut into blocks of BLOCK_SIZE. A block header keeps the byte offset of the block
+ * and the line and position of its first occurrence, so a block can be decoded without the blocks before it.
+ * Inside a block every occurrence after the first stores the differences from the previous occurrence:
+ *      line difference, then the column difference if the line is the same or the column otherwise,
+ *      then the position difference.
+ * The first occurrence of a block stores only its column.
+ * Each number is written in 7-bit groups, lowest first, with the high bit set on all groups but the last,
+ * so small differences take one byte. Differences are unsigned 32-bit values, so unsorted occurrences
+ * (e.g. sections of an index given out of order) still decode correctly, only larger.
+ *
+ * The arrays are buffers so that the postings can be decoded from the heap or from a memory-mapped file.
+ *
+ * Memory usage: O(k + t) where k is the number of occurrences and t is the number of distinct words.
+ *               About 3 to 5 bytes for each occurrence in a natural text
+ */
+public class Postings {
+
+    // The number of occurrences in a full block
+    public static final int BLOCK_SIZE = 128;
+
+    private final ByteBuffer data;      // encoded occurrences of all blocks
+    private final IntBuffer offsets;    // index of each word's first occurrence. offsets[t] is the number of occurrences
+    private final IntBuffer termBlocks; // index of each word's first block. termBlocks[t] is the number of blocks
+    private final IntBuffer blocks;     // three ints for each block: byte offset, first line, first position
+
+    /**
+     * Constructor. Wrap encoded postings without copying them
+     *
+     * @param data encoded occurrences of all blocks
+     * @param offsets index of each word's first occurrence, followed by the number of occurrences
+     * @param termBlocks index of each word's first block, followed by the number of blocks
+     * @param blocks the byte offset, first line and first position of each block
+     */
+    public Postings(ByteBuffer data, IntBuffer offsets, IntBuffer termBlocks, IntBuffer blocks) {
+        this.data = data;
+        this.offsets = offsets;
+        this.termBlocks = termBlocks;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Encode occurrences
+     *
+     * Run-time: O(k) where k is the number of occurrences
+     *
+     * @param packed line and column of every occurrence packed by pack(), grouped by word
+     * @param positions position of every occurrence in the document, in the same order
+     * @param offsets index of each word's first occurrence, followed by the number of occurrences
+     * @return the compressed postings
+     */
+    public static Postings encode(long[] packed, int[] positions, int[] offsets) {
+        int termCount = offsets.length - 1;
+        int[] termBlocks = new int[termCount + 1];
+        for (int i = 0; i < termCount; i++) {
+            termBlocks[i + 1] = termBlocks[i] + (offsets[i + 1] - offsets[i] + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        }
+        int[] blocks = new int[termBlocks[termCount] * 3];
+        byte[] bytes = new byte[Math.max(16, packed.length * 3)];
+        int size = 0;
+        int block = 0;
+        for (int t = 0; t < termCount; t++) {
+            int line = 0;
+            int col = 0;
+            int position = 0;
+            for (int i = offsets[t]; i < offsets[t + 1]; i++) {
+                if (bytes.length - size < 15) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int nextLine = (int) (packed[i] >>> 32);
+                int nextCol = (int) packed[i];
+                if ((i - offsets[t]) % BLOCK_SIZE == 0) {
+                    blocks[block * 3] = size;
+                    blocks[block * 3 + 1] = nextLine;
+                    blocks[block * 3 + 2] = positions[i];
+                    block++;
+                    size = writeVByte(bytes, size, nextCol);
+                } else {
+                    size = writeVByte(bytes, size, nextLine - line);
+                    size = writeVByte(bytes, size, (nextLine == line) ? nextCol - col : nextCol);
+                    size = writeVByte(bytes, size, positions[i] - position);
+                }
+                line = nextLine;
+                col = nextCol;
+                position = positions[i];
+            }
+        }
+        return new Postings(ByteBuffer.wrap(Arrays.copyOf(bytes, size)), IntBuffer.wrap(offsets),
+                IntBuffer.wrap(termBlocks), IntBuffer.wrap(blocks));
+    }
+
+    /**
+     * @param bytes the array to write to, with at least 5 free bytes
+     * @param size the number of bytes already written
+     * @param value the number to write, as an unsigned 32-bit value
+     * @return the number of bytes written after the number
+     */
+    static int writeVByte(byte[] bytes, int size, int value) {
+        while ((value & ~0x7f) != 0) {
+            bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        return size;
+    }
+
+    /**
+     * @param line a line number
+     * @param col a column number
+     * @return the position packed into one long
+     */
+    public static long pack(int line, int col) {
+        return ((long) line << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * @param termId the id of a word
+     * @return a cursor before the first occurrence of the word
+     */
+    public PostingsCursor cursor(int termId) {
+        return new PostingsCursor(this, termId);
+    }
+
+    /**
+     * @return the number of distinct words
+     */
+    public int getTermCount() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * @return the number of occurrences of all words
+     */
+    public int getSize() {
+        return offsets.get(offsets.limit() - 1);
+    }
+
+    /**
+     * @param termId the id of a word
+     * @return the number of occurrences of the word
+     */
+    public int count(int termId) {
+        return offsets.get(termId + 1) - offsets.get(termId);
+    }
+
+    /**
+     * @param firstTermId the id of the first word of a range, e.g. of the words having a prefix
+     * @param endTermId the id after the last word of the range
+     * @return the number of occurrences of all words of the range
+     */
+    public int count(int firstTermId, int endTermId) {
+        return offsets.get(endTermId) - offsets.get(firstTermId);
+    }
+
+    /* --- The encoded arrays, e.g. to save them. The buffers share the content but not the positions --- */
+
+    /**
+     * @return the encoded occurrences of all blocks
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+
+    /**
+     * @return index of each word's first occurrence, followed by the number of occurrences
+     */
+    public IntBuffer getOffsets() {
+        return offsets.duplicate();
+    }
+
+    /**
+     * @return index of each word's first block, followed by the number of blocks
+     */
+    public IntBuffer getTermBlocks() {
+        return termBlocks.duplicate();
+    }
+
+    /**
+     * @return the byte offset, first line and first position of each block
+     */
+    public IntBuffer getBlocks() {
+        return blocks.duplicate();
+    }
+
+    /* --- Used by the cursors --- */
+
+    /**
+     * @return the index of the word's first occurrence
+     */
+    int start(int termId) {
+        return offsets.get(termId);
+    }
+
+    /**
+     * @return the index of the word's first block
+     */
+    int firstBlock(int termId) {
+        return termBlocks.get(termId);
+    }
+
+    /**
+     * @return the byte offset of a block
+     */
+    int blockOffset(int block) {
+        return blocks.get(block * 3);
+    }
+
+    /**
+     * @return the line of the first occurrence in a block
+     */
+    int blockLine(int block) {
+        return blocks.get(block * 3 + 1);
+    }
+
+    /**
+     * @return the position of the first occurrence in a block
+     */
+    int blockPosition(int block) {
+        return blocks.get(block * 3 + 2);
+    }
+
+    /**
+     * @return the encoded byte at an offset
+     */
+    byte byteAt(int offset) {
+        return data.get(offset);
+    }
+}
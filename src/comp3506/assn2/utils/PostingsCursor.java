@@ -0,0 +1,253 @@
+package comp3506.assn2.utils;
+
+/**
+ * Decode one word's compressed occurrences from the first to the last.
+ *
+ * A cursor starts before the first occurrence. next() decodes the following occurrence,
+ * and the skip methods jump over whole blocks before decoding. The block headers act as skip pointers:
+ * the block to jump to is found by an exponential (galloping) search from the current block,
+ * followed by a binary search, so a far jump costs the logarithm of the distance.
+ *
+ * Memory usage: O(1)
+ */
+public class PostingsCursor {
+
+    private final Postings postings;    // the postings to decode
+    private final int start;            // index of the word's first occurrence
+    private final int end;              // index after the word's last occurrence
+    private final int firstBlock;       // index of the word's first block
+    private final int lastBlock;        // index after the word's last block
+
+    private int index;                  // index of the current occurrence. start - 1 before the first
+    private int offset;                 // byte offset of the next encoded number
+    private int line;                   // line of the current occurrence
+    private int col;                    // column of the current occurrence
+    private int position;               // position of the current occurrence in the document
+
+    /**
+     * Constructor. Create a cursor before the first occurrence of a word
+     *
+     * @param postings the postings to decode
+     * @param termId the id of the word
+     */
+    PostingsCursor(Postings postings, int termId) {
+        this.postings = postings;
+        start = postings.start(termId);
+        end = postings.start(termId + 1);
+        firstBlock = postings.firstBlock(termId);
+        lastBlock = postings.firstBlock(termId + 1);
+        index = start - 1;
+    }
+
+    /**
+     * Move to the next occurrence
+     *
+     * Run-time: O(1)
+     *
+     * @return True if there is a next occurrence. False if the cursor has passed the last occurrence
+     */
+    public boolean next() {
+        if (index + 1 >= end) {
+            index = end;
+            return false;
+        }
+        index++;
+        if ((index - start) % Postings.BLOCK_SIZE == 0) {
+            int block = firstBlock + (index - start) / Postings.BLOCK_SIZE;
+            offset = postings.blockOffset(block);
+            line = postings.blockLine(block);
+            position = postings.blockPosition(block);
+            col = readVByte();
+        } else {
+            int lineDelta = readVByte();
+            col = (lineDelta == 0) ? col + readVByte() : readVByte();
+            line += lineDelta;
+            position += readVByte();
+        }
+        return true;
+    }
+
+    /**
+     * Move forward by a number of occurrences, e.g. to the first occurrence of a page of results.
+     * skip(1) is the same as next()
+     *
+     * Run-time: O(s) where s is size of a block. The blocks before the one holding the target are not decoded
+     *
+     * @param count the number of occurrences to move forward by, at least 1
+     * @return True if there is such an occurrence. False if the cursor has passed the last occurrence
+     */
+    public boolean skip(int count) {
+        long target = (long) index + count;
+        if (target >= end) {
+            index = end;
+            return false;
+        }
+        seekBlock(firstBlock + (int) (target - start) / Postings.BLOCK_SIZE);
+        while (index < target) {
+            next();
+        }
+        return true;
+    }
+
+    /**
+     * Move forward to the first occurrence on or after a line.
+     * The occurrences must be sorted by line, as the occurrences of a document are
+     *
+     * Run-time: O(log b + s) where b is the number of blocks skipped and s is size of a block
+     *
+     * @param target the line to move to
+     * @return True if there is such an occurrence. False if the cursor has passed the last occurrence
+     */
+    public boolean skipToLine(int target) {
+        if (index >= end) {
+            return false;
+        }
+        if (index >= start && line >= target) {
+            return true;
+        }
+        // A block can be skipped only if the next block starts before the target,
+        // since lines repeat and the target line may start at the end of a block
+        seekBlock(findBlock(target, false));
+        while (next()) {
+            if (line >= target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Move to the first occurrence on or after a line, forwards or backwards.
+     * Locates a range of lines, e.g. a section, with one cursor in any order of the ranges
+     *
+     * Run-time: O(log b + s) where b is the number of blocks of the word and s is size of a block
+     *
+     * @param target the line to move to
+     * @return True if there is such an occurrence. False if all occurrences are before the line
+     */
+    public boolean seekLine(int target) {
+        if (index >= end || (index >= start && line >= target)) {
+            // An earlier occurrence may be on or after the line. Search again from the first block
+            index = start - 1;
+        }
+        return skipToLine(target);
+    }
+
+    /**
+     * Move forward to the first occurrence at or after a position of the document
+     *
+     * Run-time: O(log b + s) where b is the number of blocks skipped and s is size of a block
+     *
+     * @param target the position to move to
+     * @return True if there is such an occurrence. False if the cursor has passed the last occurrence
+     */
+    public boolean skipToPosition(int target) {
+        if (index >= end) {
+            return false;
+        }
+        if (index >= start && position >= target) {
+            return true;
+        }
+        if (index >= start && (index + 1 - start) % Postings.BLOCK_SIZE != 0) {
+            // A near target, e.g. the next word of a phrase, is often the next occurrence in the block,
+            // which is decoded without reading the block headers
+            if (!next() || position >= target) {
+                return index < end;
+            }
+        }
+        seekBlock(findBlock(target, true));
+        while (next()) {
+            if (position >= target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the line of the current occurrence
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column of the current occurrence
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return the position of the current occurrence among all words of the document
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the block of the current occurrence, or the first block before the first occurrence
+     */
+    private int currentBlock() {
+        return firstBlock + Math.max(0, index - start) / Postings.BLOCK_SIZE;
+    }
+
+    /**
+     * Gallop from the current block to the last block that may hold the first occurrence on or after a target
+     *
+     * @param target the line or the position to move to
+     * @param byPosition true to compare the positions of the blocks, false to compare their lines
+     * @return the block to decode from
+     */
+    private int findBlock(int target, boolean byPosition) {
+        int low = currentBlock();
+        int step = 1;
+        while (low + step < lastBlock && startsBefore(low + step, target, byPosition)) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, lastBlock) - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startsBefore(mid, target, byPosition)) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return True if all blocks before the block can be skipped to reach the target
+     */
+    private boolean startsBefore(int block, int target, boolean byPosition) {
+        // Positions never repeat, so a block starting at the target position is the one to decode
+        return byPosition ? postings.blockPosition(block) <= target : postings.blockLine(block) < target;
+    }
+
+    /**
+     * Move to just before the first occurrence of a later block, so that next() decodes its header
+     *
+     * @param block the block to move to
+     */
+    private void seekBlock(int block) {
+        int before = start + (block - firstBlock) * Postings.BLOCK_SIZE - 1;
+        if (before > index) {
+            index = before;
+        }
+    }
+
+    /**
+     * @return the number at the current byte offset, moving past it
+     */
+    private int readVByte() {
+        byte b = postings.byteAt(offset++);
+        int value = b & 0x7f;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = postings.byteAt(offset++);
+            value |= (b & 0x7f) << shift;
+        }
+        return value;
+    }
+}
@@ -2,6 +2,10 @@ package comp3506.assn2.application;
 
 import comp3506.assn2.utils.*;
 import static comp3506.assn2.application.TextTrie.*;
+import static comp3506.assn2.application.SearchEngine.checkArgArray;
+import static comp3506.assn2.application.SearchEngine.checkString;
+import static comp3506.assn2.application.SearchEngine.fixedLineQuery;
+import static comp3506.assn2.application.SearchEngine.fixedSectionQuery;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
@@ -9,6 +13,9 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Hook class used by automated testing tool.
@@ -23,6 +30,8 @@ public class AutoTester implements Search {
 	private int lineNo;					// The total line number of the document
     private TextTrie indexTrie;			// The trie storing the index (titles and line numbers)
     private TextTrie stopWordsTrie;		// The trie storing the stop-words to ignore in logic searches
+	private SectionTable sections;		// The sections of the index, by first line and by title
+	private SearchEngine engine;		// The searches of the document trie shared with MappedIndex
 
 	/**
 	 * Create an object that performs search operations on a document.
@@ -41,6 +50,23 @@ public class AutoTester implements Search {
 	 */
 	public AutoTester(String documentFileName, String indexFileName, String stopWordsFileName) 
 			throws FileNotFoundException, IllegalArgumentException {
+		this(documentFileName, indexFileName, stopWordsFileName, false);
+	}
+
+	/**
+	 * Create an object that performs search operations on a document.
+	 * Same as the constructor above, but the document may be indexed by several threads.
+	 *
+	 * @param documentFileName  Name of the file containing the text of the document to be searched.
+	 * @param indexFileName     Name of the file containing the index of sections in the document.
+	 * @param stopWordsFileName Name of the file containing the stop words ignored by most searches.
+	 * @param parallelLoad      True to split the document into ranges of lines that are indexed
+	 *                          on the common fork-join pool and then merged.
+	 * @throws FileNotFoundException if any of the files cannot be loaded.
+	 * @throws IllegalArgumentException if documentFileName is null or an empty string.
+	 */
+	public AutoTester(String documentFileName, String indexFileName, String stopWordsFileName, boolean parallelLoad)
+			throws FileNotFoundException, IllegalArgumentException {
         checkString(documentFileName);
         docTrie = new TextTrie();
         indexTrie = new TextTrie();
@@ -50,13 +76,19 @@ public class AutoTester implements Search {
 
 		// Build the document trie
 		try {
-			reader = new BufferedReader(new FileReader(documentFileName));
-			Leaf previous = null;
-			while ((line = reader.readLine()) != null) {
-				lineNo++;
-				previous = docTrie.insertLine(line.toLowerCase(), lineNo, previous);
+			if (parallelLoad) {
+				reader = new BufferedReader(new FileReader(documentFileName));
+				List<String> lines = new ArrayList<>();
+				while ((line = reader.readLine()) != null) {
+					lines.add(line);
+				}
+				reader.close();
+				lineNo = lines.size();
+				docTrie = ParallelTrieBuilder.build(lines, ForkJoinPool.commonPool());
+			} else {
+				// Scan the mapped file without creating a string for each line or word
+				lineNo = MappedDocumentReader.load(documentFileName, docTrie);
 			}
-			reader.close();
 		} catch (IOException e) {
 			throw new FileNotFoundException(documentFileName);
 		}
@@ -89,6 +121,82 @@ public class AutoTester implements Search {
 				throw new FileNotFoundException(stopWordsFileName);
 			}
 		}
+
+		// The tries are not changed after loading, so compile them for faster searches
+		docTrie.freeze();
+		indexTrie.freeze();
+		stopWordsTrie.freeze();
+		sections = SectionTable.of(indexTrie.getFrozen());
+		engine = docTrie.searchEngine(stopWordsTrie, sections, lineNo);
+	}
+
+	/**
+	 * Create an object from an index snapshot written by writeSnapshot.
+	 * The document, index and stop words files are not read again.
+	 *
+	 * @param snapshotFileName Name of the snapshot file.
+	 * @return An object that performs search operations on the document stored in the snapshot.
+	 * @throws FileNotFoundException if the snapshot cannot be loaded, has another format version or is corrupted.
+	 * @throws IllegalArgumentException if snapshotFileName is null or an empty string.
+	 */
+	public static AutoTester fromSnapshot(String snapshotFileName)
+			throws FileNotFoundException, IllegalArgumentException {
+		if (snapshotFileName == null || snapshotFileName.equals("")) {
+			throw new IllegalArgumentException();
+		}
+		try {
+			return new AutoTester(IndexSnapshot.read(snapshotFileName));
+		} catch (IOException e) {
+			// Keep the reason, e.g. a wrong version or checksum
+			FileNotFoundException notLoaded = new FileNotFoundException(snapshotFileName);
+			notLoaded.initCause(e);
+			throw notLoaded;
+		}
+	}
+
+	/**
+	 * Create an object from the tries rebuilt from a snapshot
+	 *
+	 * @param snapshot the loaded snapshot
+	 */
+	private AutoTester(IndexSnapshot snapshot) {
+		docTrie = snapshot.getDocTrie();
+		indexTrie = snapshot.getIndexTrie();
+		stopWordsTrie = snapshot.getStopWordsTrie();
+		lineNo = snapshot.getLineCount();
+		sections = SectionTable.of(indexTrie.getFrozen());
+		engine = docTrie.searchEngine(stopWordsTrie, sections, lineNo);
+	}
+
+	/**
+	 * Save the loaded document, index and stop words to a snapshot file
+	 * so that later processes can start with fromSnapshot.
+	 *
+	 * @param snapshotFileName Name of the snapshot file to write.
+	 * @throws IOException if the file cannot be written.
+	 * @throws IllegalArgumentException if snapshotFileName is null or an empty string.
+	 */
+	public void writeSnapshot(String snapshotFileName) throws IOException, IllegalArgumentException {
+		checkString(snapshotFileName);
+		IndexSnapshot.write(snapshotFileName, docTrie, indexTrie, stopWordsTrie, lineNo);
+	}
+
+	/**
+	 * Describe how a logic search would be evaluated, for debugging.
+	 * Shows the words kept after dropping stop-words, in the order they are checked (the fewest lines first),
+	 * and whether the search stops early because a required word is not in the document.
+	 *
+	 * @param wordsRequired Array of the required words.
+	 * @param otherWords Array of "or words" or excluded words. May be null.
+	 * @return The plan of the required words, then the plan of the other words on a second line.
+	 * @throws IllegalArgumentException if wordsRequired is null or an empty array
+	 *                                  or any of the Strings in either of the arrays are null or empty.
+	 */
+	public String explain(String[] wordsRequired, String[] otherWords) throws IllegalArgumentException {
+		checkArgArray(wordsRequired, true);
+		checkArgArray(otherWords, false);
+		return docTrie.plan(wordsRequired, true, stopWordsTrie) + System.lineSeparator()
+				+ docTrie.plan(otherWords, false, stopWordsTrie);
 	}
 
 	/**
@@ -101,8 +209,20 @@ public class AutoTester implements Search {
 	@Override
 	public int wordCount(String word) throws IllegalArgumentException {
 		checkString(word);
-		LinkedList result = docTrie.getPos(word.toLowerCase());
-		return result.getSize();
+		return docTrie.count(word.toLowerCase());
+	}
+
+	/**
+	 * Determines the number of occurrences of all words having the prefix, without finding the occurrences.
+	 * The count is kept by the index, so it takes time proportional to the size of the prefix.
+	 *
+	 * @param prefix The prefix of the words to be counted in the document.
+	 * @return The number of occurrences of the prefix, i.e. prefixOccurrence(prefix).size().
+	 * @throws IllegalArgumentException if prefix is null or an empty String.
+	 */
+	public int prefixCount(String prefix) throws IllegalArgumentException {
+		checkString(prefix);
+		return docTrie.prefixCount(prefix);
 	}
 
 	/**
@@ -117,7 +237,7 @@ public class AutoTester implements Search {
 	@Override
 	public List<Pair<Integer, Integer>> phraseOccurrence(String phrase) throws IllegalArgumentException {
 	    checkString(phrase);
-		return getPosList(docTrie.phraseIndices(phrase));
+		return docTrie.getFrozen().phraseCursor(phrase).pairs().collect(Collectors.toList());
 	}
 
 	/**
@@ -133,7 +253,7 @@ public class AutoTester implements Search {
 	@Override
 	public List<Pair<Integer, Integer>> prefixOccurrence(String prefix) throws IllegalArgumentException {
 	    checkString(prefix);
-		return (getPosList(docTrie.searchPrefix(prefix)));
+		return docTrie.getFrozen().prefixCursor(prefix, false).pairs().collect(Collectors.toList());
 	}
 
 	/**
@@ -210,7 +330,7 @@ public class AutoTester implements Search {
 	public List<Triple<Integer, Integer, String>> simpleAndSearch(String[] titles, String[] words) throws IllegalArgumentException {
 		checkArgArray(words, true);
 		checkArgArray(titles, false);
-		return getTripleList(docTrie.searchForSections(titles, words, null, AND, stopWordsTrie, indexTrie, lineNo));
+		return getTripleList(docTrie.searchForSections(titles, words, null, AND, stopWordsTrie, sections, lineNo));
 	}
 
 	/**
@@ -233,7 +353,7 @@ public class AutoTester implements Search {
 		checkArgArray(words, true);
 		checkArgArray(titles, false);
 		return getTripleList(docTrie.searchForSections(titles, words, null,
-                OR, stopWordsTrie, indexTrie, lineNo));
+                OR, stopWordsTrie, sections, lineNo));
 	}
 
 	/**
@@ -259,7 +379,7 @@ public class AutoTester implements Search {
         checkArgArray(titles, false);
         checkArgArray(wordsExcluded, false);
         return getTripleList(docTrie.searchForSections(titles, wordsRequired, wordsExcluded,
-                NOT, stopWordsTrie, indexTrie, lineNo));
+                NOT, stopWordsTrie, sections, lineNo));
 	}
 
 	/**
@@ -285,37 +405,368 @@ public class AutoTester implements Search {
         checkArgArray(titles, false);
         checkArgArray(orWords, false);
 	    return getTripleList(docTrie.searchForSections(titles, wordsRequired, orWords,
-                COMPOUND, stopWordsTrie, indexTrie, lineNo));
+                COMPOUND, stopWordsTrie, sections, lineNo));
 	}
 
 	/**
-	 * Check whether the string is valid
+	 * Searches the document for lines that match a boolean query,
+	 * e.g. "(king AND (crown OR throne)) AND NOT fool".
+	 * The operators AND, OR and NOT must be in upper case, brackets group sub queries,
+	 * and words next to each other must all be on the line. Stop-words are ignored.
 	 *
-	 * @param arg the string to check
-	 * @throws IllegalArgumentException if the string is null or an empty string
+	 * @param query The query to match.
+	 * @return List of line numbers that match the query, sorted and without repeats.
+	 *         Returns an empty list if no lines match.
+	 * @throws IllegalArgumentException if query is null or is not a valid query.
 	 */
-	private void checkString (String arg) throws IllegalArgumentException {
-		if (arg == null || arg.equals("")) {
-			throw new IllegalArgumentException();
-		}
+	public List<Integer> queryLines(String query) throws IllegalArgumentException {
+		return getLineList(docTrie.lineQuery(BooleanQuery.parse(query), stopWordsTrie, lineNo));
 	}
 
 	/**
-	 * Check whether the string Array is valid
+	 * Searches the document for sections that match a boolean query, see queryLines.
+	 * A word matches a section if it is anywhere in the section.
 	 *
-	 * @param words the array to check
-	 * @param mustExist true is the array cannot be null or an empty array
-	 * @throws IllegalArgumentException if any string in the array is null or an empty string
-	 * 									if mustExist is true and the array is null or an empty array
+	 * @param titles Array of titles of the sections to search within,
+	 *               the entire document is searched as one section if titles is null or an empty array.
+	 * @param query The query to match.
+	 * @return List of triples, where each triple indicates the line and column number and word found,
+	 *         for each occurrence of a word of the query that is not inside a NOT, in the matching sections.
+	 *         Returns an empty list if no section matches.
+	 * @throws IllegalArgumentException if query is null or is not a valid query
+	 *                                  or any of the titles are null or empty.
 	 */
-	private void checkArgArray(String[] words, boolean mustExist) throws IllegalArgumentException {
-		if (words != null && words.length > 0) {
-			for (String word : words) {
-				checkString(word);
-			}
-		} else if (mustExist) {
-			throw new IllegalArgumentException();
-		}
+	public List<Triple<Integer, Integer, String>> querySections(String[] titles, String query)
+			throws IllegalArgumentException {
+		checkArgArray(titles, false);
+		return getTripleList(docTrie.sectionQuery(BooleanQuery.parse(query), titles, stopWordsTrie, sections, lineNo));
+	}
+
+	/**
+	 * Finds the occurrences of the phrase one at a time, see phraseOccurrence.
+	 * Only the hits the caller reads are decoded, e.g. phraseCursor(phrase).pairs().limit(10)
+	 * or phraseCursor(phrase).count() do not create an object for every occurrence.
+	 *
+	 * @param phrase The phrase to be found in the document.
+	 * @return Cursor over the line and column number of each occurrence, in the order of phraseOccurrence.
+	 * @throws IllegalArgumentException if phrase is null or an empty String.
+	 */
+	public HitCursor phraseCursor(String phrase) throws IllegalArgumentException {
+		checkString(phrase);
+		return docTrie.getFrozen().phraseCursor(phrase);
+	}
+
+	/**
+	 * Finds the occurrences of the prefix one at a time, see prefixOccurrence and phraseCursor.
+	 *
+	 * @param prefix The prefix of a word that is to be found in the document.
+	 * @return Cursor over the line and column number of each occurrence, in the order of prefixOccurrence.
+	 * @throws IllegalArgumentException if prefix is null or an empty String.
+	 */
+	public HitCursor prefixCursor(String prefix) throws IllegalArgumentException {
+		return prefixCursor(prefix, false);
+	}
+
+	/**
+	 * Finds the occurrences of the prefix one at a time, in the order of the document or word by word.
+	 * The words having the prefix have consecutive ids, so their occurrences are read from one slice
+	 * of the postings without visiting the words or copying their occurrences.
+	 *
+	 * @param prefix The prefix of a word that is to be found in the document.
+	 * @param documentOrder True to merge the occurrences of the words by line and column,
+	 *                      false for the order of prefixOccurrence (word by word in lexicographic order).
+	 * @return Cursor over the line and column number of each occurrence.
+	 * @throws IllegalArgumentException if prefix is null or an empty String.
+	 */
+	public HitCursor prefixCursor(String prefix, boolean documentOrder) throws IllegalArgumentException {
+		checkString(prefix);
+		return docTrie.getFrozen().prefixCursor(prefix, documentOrder);
+	}
+
+	/**
+	 * Finds all occurrences of the words matching a wildcard pattern, in the order of the document.
+	 * "?" is any one character, "*" is any sequence of characters and "[a-z]" is one of the characters,
+	 * e.g. "wor?d", "*ness" or "[bcr]at*". See WildcardPattern for the complete syntax.
+	 * At most WildcardPattern.DEFAULT_MAX_TERMS matching words are searched, see wildcardCursor.
+	 *
+	 * @param pattern The pattern of the words to be found in the document.
+	 * @return List of pairs, where each pair indicates the line and column number of an occurrence.
+	 *         Returns an empty list if no word of the document matches the pattern.
+	 * @throws IllegalArgumentException if pattern is null or an empty String, or is not a valid pattern.
+	 */
+	public List<Pair<Integer, Integer>> wildcardOccurrence(String pattern) throws IllegalArgumentException {
+		return wildcardCursor(pattern, WildcardPattern.DEFAULT_MAX_TERMS).pairs().collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the occurrences of the words matching a wildcard pattern one at a time, see wildcardOccurrence.
+	 * The pattern is compiled into an automaton that walks the trie alongside it, so a prefix no matching
+	 * word can start with is left without visiting the words below it.
+	 *
+	 * @param pattern The pattern of the words to be found in the document.
+	 * @param maxTerms The greatest number of matching words to search, in lexicographic order.
+	 * @return Cursor over the line and column number of each occurrence, in the order of the document.
+	 * @throws IllegalArgumentException if pattern is null or an empty String, or is not a valid pattern,
+	 *                                  or maxTerms is negative.
+	 */
+	public HitCursor wildcardCursor(String pattern, int maxTerms) throws IllegalArgumentException {
+		return engine.wildcardCursor(pattern, maxTerms);
+	}
+
+	/**
+	 * Finds all occurrences of the words containing a string, anywhere from their start to their end.
+	 * For example, "speare" would be found in "shakespeare" and "shakespeares".
+	 * The words are found in a suffix array of the vocabulary (built by the first infix or suffix search),
+	 * so the vocabulary is not read word by word.
+	 *
+	 * @param infix The string to be found in the words of the document.
+	 * @return List of pairs, where each pair indicates the line and column number of an occurrence,
+	 *         word by word in lexicographic order as prefixOccurrence.
+	 *         Returns an empty list if no word contains the string.
+	 * @throws IllegalArgumentException if infix is null or an empty String.
+	 */
+	public List<Pair<Integer, Integer>> infixOccurrence(String infix) throws IllegalArgumentException {
+		return infixCursor(infix, false).pairs().collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the occurrences of the words containing a string one at a time, see infixOccurrence and prefixCursor.
+	 *
+	 * @param infix The string to be found in the words of the document.
+	 * @param documentOrder True to merge the occurrences of the words by line and column,
+	 *                      false for the order of infixOccurrence.
+	 * @return Cursor over the line and column number of each occurrence.
+	 * @throws IllegalArgumentException if infix is null or an empty String.
+	 */
+	public HitCursor infixCursor(String infix, boolean documentOrder) throws IllegalArgumentException {
+		return engine.infixCursor(infix, documentOrder);
+	}
+
+	/**
+	 * Finds all occurrences of the words ending with a string, see infixOccurrence.
+	 * For example, "eth" would be found in "seeth" and "doeth", and "doeth" would be found in "doeth".
+	 *
+	 * @param suffix The end of the words to be found in the document.
+	 * @return List of pairs, where each pair indicates the line and column number of an occurrence,
+	 *         word by word in lexicographic order as prefixOccurrence.
+	 *         Returns an empty list if no word ends with the string.
+	 * @throws IllegalArgumentException if suffix is null or an empty String.
+	 */
+	public List<Pair<Integer, Integer>> suffixOccurrence(String suffix) throws IllegalArgumentException {
+		return suffixCursor(suffix, false).pairs().collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the occurrences of the words ending with a string one at a time, see suffixOccurrence and prefixCursor.
+	 *
+	 * @param suffix The end of the words to be found in the document.
+	 * @param documentOrder True to merge the occurrences of the words by line and column,
+	 *                      false for the order of suffixOccurrence.
+	 * @return Cursor over the line and column number of each occurrence.
+	 * @throws IllegalArgumentException if suffix is null or an empty String.
+	 */
+	public HitCursor suffixCursor(String suffix, boolean documentOrder) throws IllegalArgumentException {
+		return engine.suffixCursor(suffix, documentOrder);
+	}
+
+	/**
+	 * The suffix array of the vocabulary used by infix and suffix searches, built the first time.
+	 * Its toString() reports its size, memory and build time.
+	 *
+	 * @return The suffix array of the words of the document.
+	 */
+	public TermSuffixArray getSuffixArray() {
+		return docTrie.getFrozen().getSuffixArray();
+	}
+
+	/**
+	 * Finds the words of the document close to a word, e.g. the words a misspelled word may have meant.
+	 * A word is close if at most maxDistance characters are inserted, deleted or replaced to make it the other,
+	 * e.g. "wolrd" is at distance 2 of "world" (two replacements). The trie is walked with an automaton of the word,
+	 * leaving a branch as soon as no word below it can be close, so the vocabulary is not compared word by word.
+	 *
+	 * @param word The word to find the close words of.
+	 * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE.
+	 * @return List of triples of each close word, its edit distance and its number of occurrences,
+	 *         the closest first and then the most frequent. Returns an empty list if no word is close.
+	 * @throws IllegalArgumentException if word is null or an empty String, or maxDistance is out of range.
+	 */
+	public List<Triple<String, Integer, Integer>> fuzzyTerms(String word, int maxDistance)
+			throws IllegalArgumentException {
+		return engine.fuzzyTerms(word, maxDistance);
+	}
+
+	/**
+	 * Finds all occurrences of the words close to a word, see fuzzyTerms.
+	 *
+	 * @param word The word to find the close words of.
+	 * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE.
+	 * @return List of pairs, where each pair indicates the line and column number of an occurrence,
+	 *         in the order of the document. Returns an empty list if no word is close.
+	 * @throws IllegalArgumentException if word is null or an empty String, or maxDistance is out of range.
+	 */
+	public List<Pair<Integer, Integer>> fuzzyOccurrence(String word, int maxDistance)
+			throws IllegalArgumentException {
+		return fuzzyCursor(word, maxDistance).pairs().collect(Collectors.toList());
+	}
+
+	/**
+	 * Finds the occurrences of the words close to a word one at a time, see fuzzyOccurrence and phraseCursor.
+	 *
+	 * @param word The word to find the close words of.
+	 * @param maxDistance The greatest edit distance of a close word, from 0 to LevenshteinAutomaton.MAX_DISTANCE.
+	 * @return Cursor over the line and column number of each occurrence, in the order of the document.
+	 * @throws IllegalArgumentException if word is null or an empty String, or maxDistance is out of range.
+	 */
+	public HitCursor fuzzyCursor(String word, int maxDistance) throws IllegalArgumentException {
+		return engine.fuzzyCursor(word, maxDistance);
+	}
+
+	/**
+	 * Searches the document for lines that match a boolean query, see queryLines.
+	 * Each line is found only when the stream reaches it, e.g. lineStream(query).limit(10) stops after ten lines.
+	 *
+	 * @param query The query to match.
+	 * @return Lazy stream of the line numbers that match the query, sorted and without repeats.
+	 * @throws IllegalArgumentException if query is null or is not a valid query.
+	 */
+	public IntStream lineStream(String query) throws IllegalArgumentException {
+		return docTrie.lineStream(BooleanQuery.parse(query), stopWordsTrie, lineNo);
+	}
+
+	/**
+	 * Searches the document for sections that match a boolean query, see querySections.
+	 * The occurrences in a matching section are read only when the cursor reaches them.
+	 *
+	 * @param titles Array of titles of the sections to search within,
+	 *               the entire document is searched as one section if titles is null or an empty array.
+	 * @param query The query to match.
+	 * @return Cursor over the occurrences of querySections, in the same order. getWord() gives the word found.
+	 * @throws IllegalArgumentException if query is null or is not a valid query
+	 *                                  or any of the titles are null or empty.
+	 */
+	public HitCursor sectionCursor(String[] titles, String query) throws IllegalArgumentException {
+		checkArgArray(titles, false);
+		return docTrie.sectionCursor(BooleanQuery.parse(query), titles, stopWordsTrie, sections, lineNo);
+	}
+
+	/**
+	 * Finds one page of the occurrences of the phrase, see phraseOccurrence.
+	 * The search stops once the page is full and one more occurrence tells whether there are more pages.
+	 *
+	 * @param phrase The phrase to be found in the document.
+	 * @param offset The number of occurrences before the page, e.g. 50 for the second page of 50.
+	 * @param limit The greatest number of occurrences in the page.
+	 * @return The page of pairs of line and column number, with a "has more" flag and the total
+	 *         (exact for one word, otherwise at most the occurrences of the rarest word).
+	 * @throws IllegalArgumentException if phrase is null or an empty String, or offset or limit is negative.
+	 */
+	public Page<Pair<Integer, Integer>> phraseOccurrence(String phrase, int offset, int limit)
+			throws IllegalArgumentException {
+		return Page.pairs(phraseCursor(phrase), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of the prefix, see prefixOccurrence and phraseOccurrence.
+	 * The occurrences before the page are skipped by whole words and blocks without being decoded.
+	 *
+	 * @param prefix The prefix of a word that is to be found in the document.
+	 * @param offset The number of occurrences before the page.
+	 * @param limit The greatest number of occurrences in the page.
+	 * @return The page of pairs of line and column number, with a "has more" flag and the exact total.
+	 * @throws IllegalArgumentException if prefix is null or an empty String, or offset or limit is negative.
+	 */
+	public Page<Pair<Integer, Integer>> prefixOccurrence(String prefix, int offset, int limit)
+			throws IllegalArgumentException {
+		return Page.pairs(prefixCursor(prefix), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the lines of wordsOnLine.
+	 *
+	 * @param words Array of words to find on a single line in the document.
+	 * @param offset The number of lines before the page.
+	 * @param limit The greatest number of lines in the page.
+	 * @return The page of line numbers, with a "has more" flag and the total
+	 *         (at most the lines of the rarest word while there are more pages).
+	 * @throws IllegalArgumentException if words is null or an empty array, any of the Strings in the array
+	 *                                  are null or empty, or offset or limit is negative.
+	 */
+	public Page<Integer> wordsOnLine(String[] words, int offset, int limit) throws IllegalArgumentException {
+		return engine.linePage(fixedLineQuery(words, null, AND), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the lines of someWordsOnLine, see wordsOnLine.
+	 */
+	public Page<Integer> someWordsOnLine(String[] words, int offset, int limit) throws IllegalArgumentException {
+		return engine.linePage(fixedLineQuery(words, null, OR), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the lines of wordsNotOnLine, see wordsOnLine.
+	 */
+	public Page<Integer> wordsNotOnLine(String[] wordsRequired, String[] wordsExcluded, int offset, int limit)
+			throws IllegalArgumentException {
+		return engine.linePage(fixedLineQuery(wordsRequired, wordsExcluded, NOT), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of simpleAndSearch.
+	 * The occurrences of a matching section are read only if the page reaches the section.
+	 *
+	 * @param titles Array of titles of the sections to search within,
+	 *               the entire document is searched if titles is null or an empty array.
+	 * @param words Array of words to find within a defined section in the document.
+	 * @param offset The number of occurrences before the page.
+	 * @param limit The greatest number of occurrences in the page.
+	 * @return The page of triples of line and column number and word found, with a "has more" flag.
+	 *         The total is only known once there are no more pages, and is -1 before.
+	 * @throws IllegalArgumentException if words is null or an empty array, any of the Strings in either
+	 *                                  of the arrays are null or empty, or offset or limit is negative.
+	 */
+	public Page<Triple<Integer, Integer, String>> simpleAndSearch(String[] titles, String[] words, int offset,
+			int limit) throws IllegalArgumentException {
+		return engine.sectionPage(titles, fixedSectionQuery(words, null, AND), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of simpleOrSearch, see simpleAndSearch.
+	 */
+	public Page<Triple<Integer, Integer, String>> simpleOrSearch(String[] titles, String[] words, int offset,
+			int limit) throws IllegalArgumentException {
+		return engine.sectionPage(titles, fixedSectionQuery(words, null, OR), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of simpleNotSearch, see simpleAndSearch.
+	 */
+	public Page<Triple<Integer, Integer, String>> simpleNotSearch(String[] titles, String[] wordsRequired,
+			String[] wordsExcluded, int offset, int limit) throws IllegalArgumentException {
+		return engine.sectionPage(titles, fixedSectionQuery(wordsRequired, wordsExcluded, NOT), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of compoundAndOrSearch, see simpleAndSearch.
+	 */
+	public Page<Triple<Integer, Integer, String>> compoundAndOrSearch(String[] titles, String[] wordsRequired,
+			String[] orWords, int offset, int limit) throws IllegalArgumentException {
+		return engine.sectionPage(titles, fixedSectionQuery(wordsRequired, orWords, COMPOUND), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the lines of queryLines, see wordsOnLine.
+	 */
+	public Page<Integer> queryLines(String query, int offset, int limit) throws IllegalArgumentException {
+		return engine.linePage(BooleanQuery.parse(query), offset, limit);
+	}
+
+	/**
+	 * Finds one page of the occurrences of querySections, see simpleAndSearch.
+	 */
+	public Page<Triple<Integer, Integer, String>> querySections(String[] titles, String query, int offset, int limit)
+			throws IllegalArgumentException {
+		return engine.sectionPage(titles, BooleanQuery.parse(query), offset, limit);
 	}
 
 	/**
@@ -334,22 +785,6 @@ public class AutoTester implements Search {
 		return result;
 	}
 
-	/**
-	 * Turn the linked list of Leaf into an array list of Pair
-	 *
-	 * @param occurrence the linked list of Leaf nodes
-	 * @return an array list of Pair whose left value is the line number and right value is the column number
-	 */
-	private List<Pair<Integer, Integer>> getPosList (LinkedList occurrence) {
-		List<Pair<Integer, Integer>> result = new ArrayList<>();
-		Leaf node = (Leaf) occurrence.getHead();
-		while (node != null) {
-			result.add(new Pair<>(node.getLine(), node.getCol()));
-			node = (Leaf) node.getNext();
-		}
-		return result;
-	}
-
 	/**
 	 *
 	 * Turn the linked list into an array list
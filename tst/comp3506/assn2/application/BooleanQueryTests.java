@@ -0,0 +1,330 @@
+package comp3506.assn2.application;
+
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+
+/**
+ * Tests of the boolean queries of lines (see BooleanQuery and AutoTester.queryLines).
+ * The lines of each query are checked against set algebra over the lines of its single words:
+ * AND is an intersection, OR a union and NOT the complement in the lines of the document.
+ * A stop-word is left out of the query as if it were not in it, and a query left without a word matches no line,
+ * as does an AND whose only words outside a NOT are stop-words.
+ */
+public class BooleanQueryTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	// The lines of a document where the words of the queries overlap in every way
+	private static final String[] LINES = {
+			"the king and the queen",
+			"the king wears a crown",
+			"a queen on a throne",
+			"the fool and the king",
+			"crown and throne",
+			"a fool of a queen",
+			"the king of the crown and the throne",
+			"nothing here but words",
+			"queen crown fool",
+			"king queen crown throne fool"
+	};
+
+	private static final String[] STOP_WORDS = {"the", "a", "of", "and"};
+
+	// The words of the random queries: words of the document, stop-words and a word that is not in the document
+	private static final String[] WORDS = {"king", "queen", "crown", "throne", "fool", "the", "and", "zzz"};
+
+	private static AutoTester searchApplication;	// a search of LINES
+	private static MappedIndex mapped;				// a mapped snapshot of the same document
+	private static Map<String, TreeSet<Integer>> wordLines = new HashMap<>();	// the lines of each word
+
+	@BeforeClass
+	public static void buildDocument() throws IOException {
+		TestDocument document = new TestDocument(folder, "queries", LINES, STOP_WORDS);
+		searchApplication = document.getSearchApplication();
+		mapped = document.getMapped();
+		for (String word : WORDS) {
+			wordLines.put(word, new TreeSet<>(searchApplication.queryLines(word)));
+		}
+	}
+
+	@Test(timeout=500)
+	public void testSingleWords() {
+		assertThat("Lines of 'king'.", new ArrayList<>(wordLines.get("king")), is(equalTo(Arrays.asList(1, 2, 4, 7, 10))));
+		assertThat("Lines of 'fool'.", new ArrayList<>(wordLines.get("fool")), is(equalTo(Arrays.asList(4, 6, 9, 10))));
+		assertThat("Words are not case sensitive.", searchApplication.queryLines("KiNg"),
+				is(equalTo(searchApplication.queryLines("king"))));
+	}
+
+	@Test(timeout=500)
+	public void testAndBindsTighterThanOr() {
+		checkQuery("king OR queen AND crown", union(lines("king"), intersect(lines("queen"), lines("crown"))));
+		checkQuery("queen AND crown OR king", union(lines("king"), intersect(lines("queen"), lines("crown"))));
+		checkQuery("king AND queen OR crown AND throne",
+				union(intersect(lines("king"), lines("queen")), intersect(lines("crown"), lines("throne"))));
+	}
+
+	@Test(timeout=500)
+	public void testImplicitAnd() {
+		checkQuery("king queen", intersect(lines("king"), lines("queen")));
+		checkQuery("king queen OR fool", union(intersect(lines("king"), lines("queen")), lines("fool")));
+		checkQuery("king AND queen crown", intersect(lines("king"), intersect(lines("queen"), lines("crown"))));
+	}
+
+	@Test(timeout=500)
+	public void testParentheses() {
+		checkQuery("(king OR queen) AND crown", intersect(union(lines("king"), lines("queen")), lines("crown")));
+		checkQuery("(king OR queen)(crown OR throne)",
+				intersect(union(lines("king"), lines("queen")), union(lines("crown"), lines("throne"))));
+		checkQuery("((king))", lines("king"));
+		checkQuery("king AND (queen OR (crown AND fool))",
+				intersect(lines("king"), union(lines("queen"), intersect(lines("crown"), lines("fool")))));
+	}
+
+	@Test(timeout=500)
+	public void testTopLevelNot() {
+		checkQuery("NOT king", complement(lines("king")));
+		checkQuery("NOT king AND NOT queen", complement(union(lines("king"), lines("queen"))));
+		checkQuery("NOT (king OR queen)", complement(union(lines("king"), lines("queen"))));
+		checkQuery("NOT NOT king", lines("king"));
+		checkQuery("king AND NOT queen", minus(lines("king"), lines("queen")));
+	}
+
+	@Test(timeout=500)
+	public void testNestedNot() {
+		checkQuery("crown AND NOT (king AND NOT fool)",
+				minus(lines("crown"), minus(lines("king"), lines("fool"))));
+		checkQuery("king OR NOT queen", union(lines("king"), complement(lines("queen"))));
+		checkQuery("(NOT king) OR (NOT queen)", complement(intersect(lines("king"), lines("queen"))));
+		checkQuery("throne AND (NOT king OR fool)",
+				intersect(lines("throne"), union(complement(lines("king")), lines("fool"))));
+	}
+
+	@Test(timeout=500)
+	public void testStopWords() {
+		checkQuery("the", new TreeSet<>());
+		checkQuery("the OR a", new TreeSet<>());
+		checkQuery("the a", new TreeSet<>());
+		checkQuery("NOT the", new TreeSet<>());
+		checkQuery("king OR the", lines("king"));
+		checkQuery("the AND king", lines("king"));
+		checkQuery("(the OR a) AND king", lines("king"));
+		checkQuery("king AND NOT the", lines("king"));
+		checkQuery("king AND NOT (the OR a)", lines("king"));
+		checkQuery("king OR NOT the", lines("king"));
+		checkQuery("queen AND NOT (king OR the)", minus(lines("queen"), lines("king")));
+		checkQuery("NOT king AND NOT the", complement(lines("king")));
+		// The only required word is a stop-word, as in wordsNotOnLine(["the"], ["king"])
+		checkQuery("the AND NOT king", new TreeSet<>());
+		// Lower case operators are words, here stop-words
+		checkQuery("king and queen", intersect(lines("king"), lines("queen")));
+	}
+
+	@Test(timeout=500)
+	public void testMissingWords() {
+		checkQuery("zzz", new TreeSet<>());
+		checkQuery("king OR zzz", lines("king"));
+		checkQuery("king AND zzz", new TreeSet<>());
+		checkQuery("NOT zzz", complement(new TreeSet<>()));
+		checkQuery("king AND NOT zzz", lines("king"));
+		checkQuery("(zzz OR the) AND king", new TreeSet<>());
+	}
+
+	@Test(timeout=500)
+	public void testInvalidQueries() {
+		for (String query : new String[] {null, "", " ", "()", "king AND", "king OR", "AND king", "OR king",
+				"(king", "king)", "(king))", "NOT", "king NOT", "king AND OR queen", "king ()"}) {
+			try {
+				searchApplication.queryLines(query);
+				fail("Accepted the query '" + query + "'.");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+			try {
+				mapped.queryLines(query);
+				fail("The mapped index accepted the query '" + query + "'.");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testRandomNestedQueries() {
+		Random random = new Random(3506);
+		for (int i = 0; i < 500; i++) {
+			Node query = randomQuery(random, 4);
+			TreeSet<Integer> expected = query.evaluate();
+			checkQuery(query.toString(), (expected == null) ? new TreeSet<>() : expected);
+		}
+	}
+
+	/**
+	 * Check the lines of a query, loaded and mapped, and the lines of its stream
+	 */
+	private static void checkQuery(String query, TreeSet<Integer> expected) {
+		List<Integer> lines = new ArrayList<>(expected);
+		assertThat("Lines of '" + query + "'.", searchApplication.queryLines(query), is(equalTo(lines)));
+		assertThat("Lines of '" + query + "' in the mapped index.", mapped.queryLines(query), is(equalTo(lines)));
+		assertThat("Stream of the lines of '" + query + "'.",
+				searchApplication.lineStream(query).boxed().collect(Collectors.toList()), is(equalTo(lines)));
+	}
+
+	/* --- Set algebra over the lines of the document --- */
+
+	private static TreeSet<Integer> lines(String word) {
+		return new TreeSet<>(wordLines.get(word));
+	}
+
+	private static TreeSet<Integer> intersect(TreeSet<Integer> x, TreeSet<Integer> y) {
+		TreeSet<Integer> result = new TreeSet<>(x);
+		result.retainAll(y);
+		return result;
+	}
+
+	private static TreeSet<Integer> union(TreeSet<Integer> x, TreeSet<Integer> y) {
+		TreeSet<Integer> result = new TreeSet<>(x);
+		result.addAll(y);
+		return result;
+	}
+
+	private static TreeSet<Integer> minus(TreeSet<Integer> x, TreeSet<Integer> y) {
+		TreeSet<Integer> result = new TreeSet<>(x);
+		result.removeAll(y);
+		return result;
+	}
+
+	private static TreeSet<Integer> complement(TreeSet<Integer> x) {
+		TreeSet<Integer> all = new TreeSet<>();
+		for (int line = 1; line <= LINES.length; line++) {
+			all.add(line);
+		}
+		return minus(all, x);
+	}
+
+	/**
+	 * @param depth the greatest number of nested operators
+	 * @return a query of WORDS with AND, OR and NOT nested up to depth
+	 */
+	private static Node randomQuery(Random random, int depth) {
+		int kind = (depth == 0) ? 0 : random.nextInt(4);
+		if (kind == 0) {
+			return new Node(WORDS[random.nextInt(WORDS.length)], random);
+		}
+		if (kind == TextTrie.NOT) {
+			return new Node(kind, random, randomQuery(random, depth - 1));
+		}
+		Node[] children = new Node[2 + random.nextInt(2)];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = randomQuery(random, depth - 1);
+		}
+		return new Node(kind, random, children);
+	}
+
+	/**
+	 * A query built apart from BooleanQuery, which is written out as a query and evaluated with sets
+	 */
+	private static class Node {
+
+		private final int kind;				// 0 for a word, or TextTrie.AND, OR or NOT
+		private final String word;			// the word of a word node
+		private final Node[] children;		// the sub queries of AND, OR and NOT
+		private final boolean implicit;		// true to join the children of an AND without "AND"
+
+		Node(String word, Random random) {
+			this.kind = 0;
+			this.word = random.nextBoolean() ? word : capitalise(word);
+			this.children = null;
+			this.implicit = false;
+		}
+
+		Node(int kind, Random random, Node... children) {
+			this.kind = kind;
+			this.word = null;
+			this.children = children;
+			this.implicit = random.nextBoolean();
+		}
+
+		private static String capitalise(String word) {
+			return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+		}
+
+		/**
+		 * @return the lines of the query. Null if it has no word but stop-words, so that it is left out
+		 */
+		TreeSet<Integer> evaluate() {
+			if (kind == 0) {
+				return Arrays.asList(STOP_WORDS).contains(word.toLowerCase()) ? null : lines(word.toLowerCase());
+			}
+			if (kind == TextTrie.NOT) {
+				TreeSet<Integer> excluded = children[0].evaluate();
+				return (excluded == null) ? null : complement(excluded);
+			}
+			TreeSet<Integer> included = null;
+			TreeSet<Integer> excluded = new TreeSet<>();
+			int stopWords = 0;
+			boolean requiredStopWord = false;
+			for (Node child : children) {
+				boolean negated = kind == TextTrie.AND && child.kind == TextTrie.NOT;
+				TreeSet<Integer> lines = (negated ? child.children[0] : child).evaluate();
+				if (lines == null) {
+					stopWords++;
+					requiredStopWord |= !negated;
+				} else if (negated) {
+					excluded.addAll(lines);
+				} else if (included == null) {
+					included = lines;
+				} else {
+					included = (kind == TextTrie.AND) ? intersect(included, lines) : union(included, lines);
+				}
+			}
+			if (stopWords == children.length) {
+				return null;
+			}
+			if (included == null) {
+				// Only NOT: from every line, unless the required words were all stop-words
+				included = requiredStopWord ? new TreeSet<>() : complement(new TreeSet<>());
+			}
+			return minus(included, excluded);
+		}
+
+		@Override
+		public String toString() {
+			if (kind == 0) {
+				return word;
+			}
+			if (kind == TextTrie.NOT) {
+				return "NOT " + bracket(children[0]);
+			}
+			String operator = (kind == TextTrie.OR) ? " OR " : implicit ? " " : " AND ";
+			List<String> parts = new ArrayList<>();
+			for (Node child : children) {
+				parts.add(bracket(child));
+			}
+			return String.join(operator, parts);
+		}
+
+		private static String bracket(Node node) {
+			return (node.kind == 0) ? node.toString() : "(" + node + ")";
+		}
+	}
+
+}
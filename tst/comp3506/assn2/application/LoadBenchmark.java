@@ -0,0 +1,40 @@
+package comp3506.assn2.application;
+
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+
+/**
+ * Measures how long AutoTester takes to load a document, e.g. the Bible or the complete works of Shakespeare.
+ * The document is loaded a few times to warm up the JIT compiler, then timed over several loads.
+ *
+ * Usage: java comp3506.assn2.application.LoadBenchmark document index stop-words [loads]
+ */
+public class LoadBenchmark {
+
+	// The loads that are not timed, so that the timed loads run compiled code
+	private static final int WARM_UP_LOADS = 3;
+	// The number of timed loads when it is not given
+	private static final int DEFAULT_LOADS = 15;
+
+	public static void main(String[] args) throws FileNotFoundException {
+		if (args.length < 3) {
+			System.out.println("Usage: LoadBenchmark document index stop-words [loads]");
+			return;
+		}
+		int loads = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_LOADS;
+		for (int i = 0; i < WARM_UP_LOADS; i++) {
+			new AutoTester(args[0], args[1], args[2]);
+		}
+		long[] times = new long[loads];
+		for (int i = 0; i < loads; i++) {
+			System.gc();
+			long start = System.nanoTime();
+			new AutoTester(args[0], args[1], args[2]);
+			times[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		System.out.printf("%s: median %d ms, fastest %d ms over %d loads%n", args[0],
+				times[loads / 2] / 1000000, times[0] / 1000000, loads);
+	}
+}
@@ -0,0 +1,173 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingPair;
+import static comp3506.assn2.utils.TestingLists.makeTestingTriple;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.Triple;
+
+
+/**
+ * Tests of the paginated searches of AutoTester (see Page): every page is the same slice of the results
+ * of the search without pages, including empty pages at and past the end.
+ */
+public class PageTests {
+
+	private static AutoTester searchApplication;
+
+	private static final String[] WORDS = {"obscure", "death", "prince"};
+	private static final String[] EXCLUDED = {"burial"};
+	private static final String[] TITLES = {"first", "third"};
+
+	@BeforeClass
+	public static void openFiles() throws FileNotFoundException {
+		searchApplication = new AutoTester("files/new.txt", "files/new index.txt", "files/stop-words.txt");
+	}
+
+	@Test(timeout=2000)
+	public void testOccurrencePages() {
+		checkPages("Phrase 'obscure'", makeTestingPair(searchApplication.phraseOccurrence("obscure")),
+				(offset, limit) -> searchApplication.phraseOccurrence("obscure", offset, limit), true);
+		checkPages("Phrase 'the prince'", makeTestingPair(searchApplication.phraseOccurrence("the prince")),
+				(offset, limit) -> searchApplication.phraseOccurrence("the prince", offset, limit), false);
+		checkPages("Prefix 'obscur'", makeTestingPair(searchApplication.prefixOccurrence("obscur")),
+				(offset, limit) -> searchApplication.prefixOccurrence("obscur", offset, limit), true);
+		checkPages("Missing phrase", makeTestingPair(searchApplication.phraseOccurrence("no such phrase")),
+				(offset, limit) -> searchApplication.phraseOccurrence("no such phrase", offset, limit), true);
+	}
+
+	@Test(timeout=2000)
+	public void testLinePages() {
+		checkPages("Lines of all words", searchApplication.wordsOnLine(new String[] {"obscure", "his"}),
+				(offset, limit) -> searchApplication.wordsOnLine(new String[] {"obscure", "his"}, offset, limit), false);
+		checkPages("Lines of some words", searchApplication.someWordsOnLine(WORDS),
+				(offset, limit) -> searchApplication.someWordsOnLine(WORDS, offset, limit), false);
+		checkPages("Lines without a word", searchApplication.wordsNotOnLine(WORDS, EXCLUDED),
+				(offset, limit) -> searchApplication.wordsNotOnLine(WORDS, EXCLUDED, offset, limit), false);
+		checkPages("Lines of a query", searchApplication.queryLines("obscure OR death"),
+				(offset, limit) -> searchApplication.queryLines("obscure OR death", offset, limit), false);
+	}
+
+	@Test(timeout=2000)
+	public void testSectionPages() {
+		checkPages("Or search", makeTestingTriple(searchApplication.simpleOrSearch(TITLES, WORDS)),
+				(offset, limit) -> searchApplication.simpleOrSearch(TITLES, WORDS, offset, limit), false);
+		checkPages("Or search of the entire document", makeTestingTriple(searchApplication.simpleOrSearch(null, WORDS)),
+				(offset, limit) -> searchApplication.simpleOrSearch(null, WORDS, offset, limit), false);
+		checkPages("And search", makeTestingTriple(searchApplication.simpleAndSearch(TITLES, WORDS)),
+				(offset, limit) -> searchApplication.simpleAndSearch(TITLES, WORDS, offset, limit), false);
+		checkPages("Not search", makeTestingTriple(searchApplication.simpleNotSearch(TITLES, WORDS, EXCLUDED)),
+				(offset, limit) -> searchApplication.simpleNotSearch(TITLES, WORDS, EXCLUDED, offset, limit), false);
+		checkPages("And-or search", makeTestingTriple(searchApplication.compoundAndOrSearch(TITLES, EXCLUDED, WORDS)),
+				(offset, limit) -> searchApplication.compoundAndOrSearch(TITLES, EXCLUDED, WORDS, offset, limit), false);
+		checkPages("Query search", makeTestingTriple(searchApplication.querySections(TITLES, "obscure OR death")),
+				(offset, limit) -> searchApplication.querySections(TITLES, "obscure OR death", offset, limit), false);
+	}
+
+	@Test(timeout=500)
+	public void testNegativeOffsetOrLimit() {
+		List<PageSearch> searches = new ArrayList<>();
+		searches.add((offset, limit) -> searchApplication.phraseOccurrence("obscure", offset, limit));
+		searches.add((offset, limit) -> searchApplication.prefixOccurrence("obscur", offset, limit));
+		searches.add((offset, limit) -> searchApplication.wordsOnLine(WORDS, offset, limit));
+		searches.add((offset, limit) -> searchApplication.someWordsOnLine(WORDS, offset, limit));
+		searches.add((offset, limit) -> searchApplication.wordsNotOnLine(WORDS, EXCLUDED, offset, limit));
+		searches.add((offset, limit) -> searchApplication.queryLines("obscure", offset, limit));
+		searches.add((offset, limit) -> searchApplication.simpleAndSearch(TITLES, WORDS, offset, limit));
+		searches.add((offset, limit) -> searchApplication.simpleOrSearch(TITLES, WORDS, offset, limit));
+		searches.add((offset, limit) -> searchApplication.simpleNotSearch(TITLES, WORDS, EXCLUDED, offset, limit));
+		searches.add((offset, limit) -> searchApplication.compoundAndOrSearch(TITLES, WORDS, EXCLUDED, offset, limit));
+		searches.add((offset, limit) -> searchApplication.querySections(TITLES, "obscure", offset, limit));
+		for (int i = 0; i < searches.size(); i++) {
+			for (int[] range : new int[][] {{-1, 10}, {0, -1}, {Integer.MIN_VALUE, 0}, {-5, -5}}) {
+				try {
+					searches.get(i).run(range[0], range[1]);
+					fail("Paginated search " + i + " accepted offset " + range[0] + " and limit " + range[1] + ".");
+				} catch (IllegalArgumentException e) {
+					// Expected
+				}
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testPageTotals() {
+		int total = searchApplication.prefixOccurrence("obscur").size();
+		Page<Pair<Integer, Integer>> first = searchApplication.prefixOccurrence("obscur", 0, 5);
+		assertTrue("The first page should have more results.", first.hasMore());
+		assertThat("The total of prefix occurrences is known.", first.getTotal(), is(equalTo(total)));
+		Page<Pair<Integer, Integer>> last = searchApplication.prefixOccurrence("obscur", total - 1, 5);
+		assertThat("The last page should hold the last result.", last.getItems().size(), is(equalTo(1)));
+		assertFalse("The last page should not have more results.", last.hasMore());
+		assertTrue("The total should be exact on the last page.", last.isTotalExact());
+		assertThat("Wrong total on the last page.", last.getTotal(), is(equalTo(total)));
+	}
+
+	/**
+	 * A paginated search under test
+	 */
+	private interface PageSearch {
+		Page<?> run(int offset, int limit);
+	}
+
+	/**
+	 * Check the pages of a search at offsets and limits of 0, inside the results, at their size and past the end
+	 *
+	 * @param name the search, for the messages
+	 * @param results all results of the search without pages
+	 * @param search the paginated search
+	 * @param exactTotal true if a page of the search always knows the exact total
+	 */
+	private static void checkPages(String name, List<?> results, PageSearch search, boolean exactTotal) {
+		int size = results.size();
+		for (int offset : new int[] {0, 1, size / 2, size - 1, size, size + 1, size + 100}) {
+			if (offset < 0) {
+				continue;
+			}
+			for (int limit : new int[] {0, 1, 2, size, size + 1, Integer.MAX_VALUE}) {
+				Page<?> page = search.run(offset, limit);
+				String message = name + " page at " + offset + " of " + limit;
+				int from = Math.min(offset, size);
+				int to = (int) Math.min((long) offset + limit, size);
+				assertThat(message + ": wrong results.", convert(page.getItems()), is(equalTo(results.subList(from, to))));
+				assertThat(message + ": wrong offset.", page.getOffset(), is(equalTo(offset)));
+				assertThat(message + ": wrong more flag.", page.hasMore(), is((long) offset + limit < size));
+				if (!page.hasMore() || exactTotal) {
+					assertTrue(message + ": the total should be exact.", page.isTotalExact());
+					assertThat(message + ": wrong total.", page.getTotal(), is(equalTo(size)));
+				} else if (page.getTotal() >= 0) {
+					assertTrue(message + ": the total is less than the results.",
+							page.isTotalExact() ? page.getTotal() == size : page.getTotal() >= to + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param items the results of a page
+	 * @return the results as testing pairs or triples, so that they can be compared
+	 */
+	@SuppressWarnings("unchecked")
+	private static List<?> convert(List<?> items) {
+		// A Triple is also a Pair
+		if (!items.isEmpty() && items.get(0) instanceof Triple) {
+			return makeTestingTriple((List<Triple<Integer, Integer, String>>) items);
+		}
+		if (!items.isEmpty() && items.get(0) instanceof Pair) {
+			return makeTestingPair((List<Pair<Integer, Integer>>) items);
+		}
+		return items;
+	}
+
+}
@@ -0,0 +1,154 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingPair;
+import static comp3506.assn2.utils.TestingLists.makeTestingTriple;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Tests of loading a document in parallel (see ParallelTrieBuilder): a document of several ranges of lines,
+ * some of them without any word, gives the same results loaded in parallel as loaded line by line,
+ * including phrases that cross from one range into the next.
+ */
+public class ParallelLoadTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	// The number of lines of the document, split into four ranges whatever the parallelism of the pool
+	private static final int LINE_COUNT = 14000;
+	// The lines without any word, which cover the two middle ranges
+	private static final int FIRST_EMPTY_LINE = 2500;
+	private static final int LAST_EMPTY_LINE = 11000;
+	// The lines of each section of the index
+	private static final int SECTION_LINES = 1000;
+
+	private static final String[] VOCABULARY = {"the", "and", "king", "queen", "crown", "throne", "fool", "to", "be",
+			"or", "not", "o'er", "king's", "sleep", "dream", "death", "life", "night", "day", "sword", "word", "world"};
+
+	private static AutoTester serial;		// loaded line by line
+	private static AutoTester parallel;		// loaded in parallel
+	private static List<String> lines = new ArrayList<>();	// the lines of the document
+
+	@BeforeClass
+	public static void loadDocument() throws IOException {
+		Random random = new Random(3506);
+		for (int i = 0; i < LINE_COUNT; i++) {
+			StringBuilder line = new StringBuilder();
+			if (i < FIRST_EMPTY_LINE || i >= LAST_EMPTY_LINE) {
+				for (int words = random.nextInt(10); words > 0; words--) {
+					String word = VOCABULARY[random.nextInt(VOCABULARY.length)];
+					line.append(random.nextInt(8) == 0 ? word.toUpperCase() : word).append(' ');
+				}
+			}
+			lines.add(line.toString().trim());
+		}
+		// A phrase that crosses both ranges without words, found nowhere else
+		lines.set(FIRST_EMPTY_LINE - 1, lines.get(FIRST_EMPTY_LINE - 1) + " alpha");
+		lines.set(LAST_EMPTY_LINE, "omega " + lines.get(LAST_EMPTY_LINE));
+
+		List<String> index = new ArrayList<>();
+		for (int i = 0; i < LINE_COUNT; i += SECTION_LINES) {
+			index.add("section " + (i / SECTION_LINES) + "," + (i + 1));
+		}
+		File document = folder.newFile("parallel.txt");
+		Files.write(document.toPath(), lines);
+		File indexFile = folder.newFile("parallel index.txt");
+		Files.write(indexFile.toPath(), index);
+		File stopWords = folder.newFile("parallel stop-words.txt");
+		Files.write(stopWords.toPath(), Arrays.asList("the", "and"));
+		serial = new AutoTester(document.getPath(), indexFile.getPath(), stopWords.getPath(), false);
+		parallel = new AutoTester(document.getPath(), indexFile.getPath(), stopWords.getPath(), true);
+	}
+
+	@Test(timeout=500)
+	public void testDocumentSpansSeveralRanges() {
+		assertTrue("The document should be split into several ranges.",
+				LINE_COUNT > 3 * ParallelTrieBuilder.MIN_CHUNK_LINES);
+		assertTrue("A whole range should have no words.",
+				LAST_EMPTY_LINE - FIRST_EMPTY_LINE > 2 * ParallelTrieBuilder.MIN_CHUNK_LINES);
+	}
+
+	@Test(timeout=5000)
+	public void testWordAndPrefixSearches() {
+		for (String word : VOCABULARY) {
+			assertThat("Count of '" + word + "'.", parallel.wordCount(word), is(equalTo(serial.wordCount(word))));
+		}
+		for (String prefix : new String[] {"k", "king", "o'", "s", "w", "wor", "alp", "z"}) {
+			assertThat("Count of prefix '" + prefix + "'.", parallel.prefixCount(prefix),
+					is(equalTo(serial.prefixCount(prefix))));
+			assertThat("Occurrences of prefix '" + prefix + "'.", makeTestingPair(parallel.prefixOccurrence(prefix)),
+					is(equalTo(makeTestingPair(serial.prefixOccurrence(prefix)))));
+		}
+	}
+
+	@Test(timeout=10000)
+	public void testPhrasesAcrossEveryLine() {
+		// The last word of each line with words, and the first of the next one with words
+		String last = null;
+		for (String line : lines) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] words = line.split(" ");
+			if (last != null) {
+				checkPhrase(last + " " + words[0]);
+			}
+			last = words[words.length - 1];
+		}
+		assertThat("The phrase across the lines without words.", parallel.phraseOccurrence("alpha omega").size(),
+				is(equalTo(1)));
+		checkPhrase("alpha omega");
+		checkPhrase("to be or not to be");
+		checkPhrase("the king's crown");
+	}
+
+	@Test(timeout=5000)
+	public void testSectionAndLineSearches() {
+		String[][] titles = {null, {"section 0", "section 2"}, {"section 3", "section 5", "section 11"},
+				{"section 13"}};
+		String[] words = {"king", "crown"};
+		String[] excluded = {"fool"};
+		String[] boundary = {"alpha", "omega"};
+		assertFalse("The words should be found together in a section.",
+				serial.simpleAndSearch(new String[] {"section 0"}, words).isEmpty());
+		for (String[] title : titles) {
+			String name = Arrays.toString(title);
+			assertThat("Or search in " + name + ".", makeTestingTriple(parallel.simpleOrSearch(title, boundary)),
+					is(equalTo(makeTestingTriple(serial.simpleOrSearch(title, boundary)))));
+			assertThat("And search in " + name + ".", makeTestingTriple(parallel.simpleAndSearch(title, words)),
+					is(equalTo(makeTestingTriple(serial.simpleAndSearch(title, words)))));
+			assertThat("Not search in " + name + ".",
+					makeTestingTriple(parallel.simpleNotSearch(title, words, excluded)),
+					is(equalTo(makeTestingTriple(serial.simpleNotSearch(title, words, excluded)))));
+			String query = "king (crown OR throne) NOT fool";
+			assertThat("Query search in " + name + ".", makeTestingTriple(parallel.querySections(title, query)),
+					is(equalTo(makeTestingTriple(serial.querySections(title, query)))));
+		}
+		for (String query : new String[] {"king queen", "alpha OR omega", "NOT king", "sleep AND NOT (dream OR the)"}) {
+			assertThat("Lines of '" + query + "'.", parallel.queryLines(query), is(equalTo(serial.queryLines(query))));
+		}
+	}
+
+	private static void checkPhrase(String phrase) {
+		assertThat("Occurrences of '" + phrase + "'.", makeTestingPair(parallel.phraseOccurrence(phrase)),
+				is(equalTo(makeTestingPair(serial.phraseOccurrence(phrase)))));
+	}
+
+}
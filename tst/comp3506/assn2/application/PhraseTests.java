@@ -0,0 +1,226 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingPair;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.TestingPair;
+
+
+/**
+ * Tests of phrase searches (see HitCursor.phrase and BigramIndex). The occurrences of each phrase are checked
+ * against a brute-force scan of the words of the document, as found from the pairs of frequent words with
+ * the default and a custom threshold, from the tokens only, and by galloping over the postings in a mapped index.
+ */
+public class PhraseTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	// The lines of a document with repeated words, and phrases across lines
+	private static final String[] LINES = {
+			"to be or not to be that is the question",
+			"whether tis nobler in the mind to suffer",
+			"the slings and arrows of outrageous fortune",
+			"or to take arms against a sea of troubles",
+			"and by opposing end them to die to sleep",
+			"no more and by a sleep to say we end",
+			"the heartache and the thousand natural shocks",
+			"that flesh is heir to tis a consummation",
+			"devoutly to be wished to die to sleep",
+			"to sleep perchance to dream"
+	};
+
+	// A threshold that leaves "to", "the", "and", "sleep" and a few others frequent
+	private static final int MIN_COUNT = 4;
+
+	private static AutoTester searchApplication;	// pairs of frequent words with the default threshold
+	private static FrozenTrie unindexed;			// tokens only, without the pairs
+	private static FrozenTrie custom;				// pairs of the words occurring MIN_COUNT times or more
+	private static MappedIndex mapped;				// galloping over the postings, without the tokens
+	private static List<String> words = new ArrayList<>();		// the words of the document in order
+	private static List<int[]> places = new ArrayList<>();		// the line and column of each word
+
+	@BeforeClass
+	public static void buildDocument() throws IOException {
+		TestDocument document = new TestDocument(folder, "phrases", LINES);
+		searchApplication = document.getSearchApplication();
+		mapped = document.getMapped();
+		TextTrie text = TestDocument.buildText(LINES);
+		text.indexBigrams(0);
+		unindexed = text.getFrozen();
+		text = TestDocument.buildText(LINES);
+		text.indexBigrams(MIN_COUNT);
+		custom = text.getFrozen();
+
+		for (int i = 0; i < LINES.length; i++) {
+			int col = 1;
+			for (String word : LINES[i].split(" ")) {
+				words.add(word);
+				places.add(new int[] {i + 1, col});
+				col += word.length() + 1;
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testSingleWords() {
+		checkPhrase("to");
+		checkPhrase("question");
+		checkPhrase("dream");
+		checkPhrase("missing");
+	}
+
+	@Test(timeout=500)
+	public void testRepeatedWords() {
+		checkPhrase("to be");
+		checkPhrase("to be or not to be");
+		checkPhrase("to die to sleep");
+		checkPhrase("to sleep to");
+		checkPhrase("to to");
+	}
+
+	@Test(timeout=500)
+	public void testPhraseAcrossLines() {
+		checkPhrase("the question whether");
+		checkPhrase("to sleep no more");
+		checkPhrase("we end the heartache");
+		checkPhrase("fortune or to take");
+	}
+
+	@Test(timeout=500)
+	public void testPhraseAtTheEnd() {
+		checkPhrase("perchance to dream");
+		checkPhrase("dream");
+		checkPhrase("to dream");
+		checkPhrase("to sleep perchance to dream");
+		// The phrase would run past the last word of the document
+		checkPhrase("to dream to");
+		checkPhrase("dream to");
+	}
+
+	@Test(timeout=500)
+	public void testMissingWords() {
+		checkPhrase("to be missing");
+		checkPhrase("missing to be");
+		checkPhrase("not to");
+		checkPhrase("be to");
+	}
+
+	@Test(timeout=500)
+	public void testBigramAnchoredPath() {
+		// "to sleep" occurs 3 times, and "sleep" 4 times, so the phrase starts from the pair
+		BigramIndex bigrams = custom.getBigrams();
+		int to = custom.termId("to");
+		int sleep = custom.termId("sleep");
+		assertTrue("'to' and 'sleep' should be frequent.", bigrams.isFrequent(to) && bigrams.isFrequent(sleep));
+		assertThat("Occurrences of the pair 'to sleep'.", bigrams.count(bigrams.find(to, sleep)), is(equalTo(3)));
+		assertThat("The pair should be the anchor with the pairs.", custom.phraseCursor("to sleep").estimate(),
+				is(equalTo(3)));
+		assertThat("The rarest word should be the anchor without the pairs.",
+				unindexed.phraseCursor("to sleep").estimate(), is(equalTo(4)));
+		checkPhrase("to sleep");
+		checkPhrase("die to sleep");
+		checkPhrase("to die to sleep");
+	}
+
+	@Test(timeout=500)
+	public void testFrequentWordsNeverNextToEachOther() {
+		// "to" and "the" are frequent but never next to each other, so the phrase is found empty at once
+		BigramIndex bigrams = custom.getBigrams();
+		int to = custom.termId("to");
+		int the = custom.termId("the");
+		assertTrue("'to' and 'the' should be frequent.", bigrams.isFrequent(to) && bigrams.isFrequent(the));
+		assertThat("'to the' should not be a pair.", bigrams.find(to, the), is(equalTo(-1)));
+		assertThat("The phrase should be empty without an anchor.", custom.phraseCursor("to the").estimate(),
+				is(equalTo(-1)));
+		assertThat("Without the pairs, the phrase should be checked from its rarest word.",
+				unindexed.phraseCursor("to the").estimate(), is(equalTo(custom.count("the"))));
+		checkPhrase("to the");
+		checkPhrase("the to");
+		checkPhrase("to be the question");
+	}
+
+	@Test(timeout=500)
+	public void testThresholds() {
+		assertNull("The index of the tokens only should have no pairs.", unindexed.getBigrams());
+		assertThat("Wrong threshold of the custom index.", custom.getBigrams().getMinCount(), is(equalTo(MIN_COUNT)));
+		assertTrue("The custom index should have fewer pairs than the default.",
+				custom.getBigrams().getPairCount() < defaultBigrams().getPairCount());
+	}
+
+	@Test(timeout=5000)
+	public void testEveryPhraseOfTheDocument() {
+		// Every run of up to five words, across lines too, and the same runs with a word replaced
+		Random random = new Random(3506);
+		for (int length = 1; length <= 5; length++) {
+			for (int start = 0; start + length <= words.size(); start++) {
+				String[] phrase = new String[length];
+				for (int i = 0; i < length; i++) {
+					phrase[i] = words.get(start + i);
+				}
+				checkPhrase(String.join(" ", phrase));
+				phrase[random.nextInt(length)] = words.get(random.nextInt(words.size()));
+				checkPhrase(String.join(" ", phrase));
+			}
+		}
+	}
+
+	/**
+	 * Check the occurrences of a phrase found in every way against a brute-force scan of the words
+	 */
+	private static void checkPhrase(String phrase) {
+		List<TestingPair<Integer, Integer>> expected = bruteForcePhrase(phrase.split(" "));
+		assertThat("Occurrences of '" + phrase + "' with the default pairs.",
+				makeTestingPair(searchApplication.phraseOccurrence(phrase)), is(equalTo(expected)));
+		assertThat("Occurrences of '" + phrase + "' without the pairs.",
+				makeTestingPair(pairs(unindexed.phraseCursor(phrase))), is(equalTo(expected)));
+		assertThat("Occurrences of '" + phrase + "' with the pairs of at least " + MIN_COUNT + " occurrences.",
+				makeTestingPair(pairs(custom.phraseCursor(phrase))), is(equalTo(expected)));
+		assertThat("Occurrences of '" + phrase + "' in the mapped index.",
+				makeTestingPair(mapped.phraseOccurrence(phrase)), is(equalTo(expected)));
+	}
+
+	/**
+	 * @return the line and column of the first word of each occurrence of the phrase, in the order of the document
+	 */
+	private static List<TestingPair<Integer, Integer>> bruteForcePhrase(String[] phrase) {
+		List<TestingPair<Integer, Integer>> found = new ArrayList<>();
+		for (int start = 0; start + phrase.length <= words.size(); start++) {
+			boolean matches = true;
+			for (int i = 0; i < phrase.length && matches; i++) {
+				matches = words.get(start + i).equals(phrase[i]);
+			}
+			if (matches) {
+				found.add(new TestingPair<>(places.get(start)[0], places.get(start)[1]));
+			}
+		}
+		return found;
+	}
+
+	private static List<Pair<Integer, Integer>> pairs(HitCursor hits) {
+		return hits.pairs().collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the pairs of frequent words of the document with the default threshold
+	 */
+	private static BigramIndex defaultBigrams() {
+		return TestDocument.buildText(LINES).getFrozen().getBigrams();
+	}
+
+}
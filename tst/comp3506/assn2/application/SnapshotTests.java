@@ -0,0 +1,249 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingPair;
+import static comp3506.assn2.utils.TestingLists.makeTestingTriple;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import comp3506.assn2.utils.TestingPair;
+import comp3506.assn2.utils.Triple;
+
+
+/**
+ * Tests of index snapshots (see IndexSnapshot): a snapshot read back, or mapped by MappedIndex,
+ * gives the same results as the index loaded from the text, and a damaged snapshot is refused.
+ */
+public class SnapshotTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	private static AutoTester loaded;		// loaded from the text files
+	private static AutoTester restored;		// read back from a snapshot of loaded
+	private static MappedIndex mapped;		// mapped from the same snapshot
+	private static byte[] snapshot;			// the bytes of the snapshot
+
+	private static final String[] WORDS = {"obscure", "obscured", "the", "death", "prince", "train'd", "his", "to",
+			"be", "missing", "OBSCURE", "b", "of"};
+	private static final String[] PHRASES = {"obscure", "the prince", "so the prince obscur'd his contemplation",
+			"to be", "his a obscure burial", "no such phrase", "BE"};
+	private static final String[] PREFIXES = {"obscur", "d", "th", "train", "zzz"};
+	private static final String[][] WORD_SETS = {{"obscure"}, {"prince", "so"}, {"the", "of"}, {"death", "burial"},
+			{"be", "to"}, {"missing", "the"}};
+	private static final String[][] TITLES = {null, {}, {"first"}, {"second", "third"}, {"no such section"}};
+
+	@BeforeClass
+	public static void writeSnapshot() throws IOException {
+		loaded = new AutoTester("files/new.txt", "files/new index.txt", "files/stop-words.txt");
+		File file = folder.newFile("new.snapshot");
+		loaded.writeSnapshot(file.getPath());
+		restored = AutoTester.fromSnapshot(file.getPath());
+		mapped = new MappedIndex(file.getPath());
+		snapshot = Files.readAllBytes(file.toPath());
+	}
+
+	@Test(timeout=5000)
+	public void testRoundTrip_WordAndPhraseSearches() {
+		for (String word : WORDS) {
+			assertThat("Count of '" + word + "' changed in the snapshot.", restored.wordCount(word),
+					is(equalTo(loaded.wordCount(word))));
+			assertThat("Count of '" + word + "' changed in the mapped snapshot.", mapped.wordCount(word),
+					is(equalTo(loaded.wordCount(word))));
+		}
+		for (String phrase : PHRASES) {
+			List<TestingPair<Integer, Integer>> expected = makeTestingPair(loaded.phraseOccurrence(phrase));
+			assertThat("Occurrences of '" + phrase + "' changed in the snapshot.",
+					makeTestingPair(restored.phraseOccurrence(phrase)), is(equalTo(expected)));
+			assertThat("Occurrences of '" + phrase + "' changed in the mapped snapshot.",
+					makeTestingPair(mapped.phraseOccurrence(phrase)), is(equalTo(expected)));
+		}
+		for (String prefix : PREFIXES) {
+			List<TestingPair<Integer, Integer>> expected = makeTestingPair(loaded.prefixOccurrence(prefix));
+			assertThat("Occurrences of prefix '" + prefix + "' changed in the snapshot.",
+					makeTestingPair(restored.prefixOccurrence(prefix)), is(equalTo(expected)));
+			assertThat("Occurrences of prefix '" + prefix + "' changed in the mapped snapshot.",
+					makeTestingPair(mapped.prefixOccurrence(prefix)), is(equalTo(expected)));
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testRoundTrip_LineSearches() {
+		for (String[] words : WORD_SETS) {
+			String name = Arrays.toString(words);
+			assertThat("Lines of " + name + " changed in the snapshot.", restored.wordsOnLine(words),
+					is(equalTo(loaded.wordsOnLine(words))));
+			assertThat("Lines of " + name + " changed in the mapped snapshot.", mapped.wordsOnLine(words),
+					is(equalTo(loaded.wordsOnLine(words))));
+			assertThat("Lines of any of " + name + " changed in the snapshot.", restored.someWordsOnLine(words),
+					is(equalTo(loaded.someWordsOnLine(words))));
+			assertThat("Lines of any of " + name + " changed in the mapped snapshot.", mapped.someWordsOnLine(words),
+					is(equalTo(loaded.someWordsOnLine(words))));
+			for (String[] excluded : WORD_SETS) {
+				assertThat("Lines of " + name + " without " + Arrays.toString(excluded) + " changed in the snapshot.",
+						restored.wordsNotOnLine(words, excluded), is(equalTo(loaded.wordsNotOnLine(words, excluded))));
+				assertThat("Lines of " + name + " without " + Arrays.toString(excluded)
+						+ " changed in the mapped snapshot.",
+						mapped.wordsNotOnLine(words, excluded), is(equalTo(loaded.wordsNotOnLine(words, excluded))));
+			}
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testRoundTrip_SectionSearches() {
+		for (String[] titles : TITLES) {
+			for (String[] words : WORD_SETS) {
+				String name = Arrays.toString(titles) + " " + Arrays.toString(words);
+				assertSameSections("And search in " + name, loaded, restored,
+						search -> search.simpleAndSearch(titles, words));
+				assertSameSections("Or search in " + name, loaded, restored,
+						search -> search.simpleOrSearch(titles, words));
+				for (String[] others : WORD_SETS) {
+					assertSameSections("Not search in " + name + " " + Arrays.toString(others), loaded, restored,
+							search -> search.simpleNotSearch(titles, words, others));
+					assertSameSections("And-or search in " + name + " " + Arrays.toString(others), loaded, restored,
+							search -> search.compoundAndOrSearch(titles, words, others));
+				}
+			}
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testRoundTrip_MappedSectionSearches() {
+		for (String[] titles : TITLES) {
+			for (String[] words : WORD_SETS) {
+				String name = Arrays.toString(titles) + " " + Arrays.toString(words);
+				assertSameSections("Mapped and search in " + name, loaded, mapped,
+						search -> search.simpleAndSearch(titles, words));
+				assertSameSections("Mapped or search in " + name, loaded, mapped,
+						search -> search.simpleOrSearch(titles, words));
+				for (String[] others : WORD_SETS) {
+					assertSameSections("Mapped not search in " + name + " " + Arrays.toString(others), loaded, mapped,
+							search -> search.simpleNotSearch(titles, words, others));
+					assertSameSections("Mapped and-or search in " + name + " " + Arrays.toString(others), loaded,
+							mapped, search -> search.compoundAndOrSearch(titles, words, others));
+				}
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testEntireDocumentWithoutMatch() {
+		String[] missing = {"zzz"};
+		for (Search search : new Search[] {loaded, restored, mapped}) {
+			assertThat("An and search of the entire document should find nothing.",
+					search.simpleAndSearch(null, missing).size(), is(equalTo(0)));
+			assertThat("An or search of the entire document should find nothing.",
+					search.simpleOrSearch(new String[0], missing).size(), is(equalTo(0)));
+			assertThat("A not search of the entire document should find nothing.",
+					search.simpleNotSearch(null, missing, new String[] {"the"}).size(), is(equalTo(0)));
+			assertThat("An and-or search of the entire document should find nothing.",
+					search.compoundAndOrSearch(null, new String[] {"obscure"}, missing).size(), is(equalTo(0)));
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testCorruptedBody() throws IOException {
+		byte[] damaged = snapshot.clone();
+		damaged[IndexSnapshot.HEADER_SIZE + (damaged.length - IndexSnapshot.HEADER_SIZE) / 2] ^= 0x01;
+		File file = write("corrupted.snapshot", damaged);
+		assertNotLoaded("A snapshot with a flipped byte was read.", file, "is corrupted");
+		// The mapped index only reads the checksum when asked to
+		MappedIndex unchecked = new MappedIndex(file.getPath());
+		try {
+			unchecked.verify();
+			fail("A mapped snapshot with a flipped byte was verified.");
+		} catch (IOException e) {
+			assertThat("Wrong reason for refusing a mapped snapshot.", e.getMessage(), containsString("is corrupted"));
+		}
+	}
+
+	@Test(timeout=5000)
+	public void testCorruptedHeader() throws IOException {
+		byte[] notSnapshot = snapshot.clone();
+		notSnapshot[0] ^= 0x01;
+		assertNotLoaded("A file without the snapshot magic number was read.", write("magic.snapshot", notSnapshot),
+				"is not an index snapshot");
+
+		byte[] otherVersion = snapshot.clone();
+		otherVersion[7] ^= 0x01;
+		assertNotLoaded("A snapshot of another version was read.", write("version.snapshot", otherVersion),
+				"unsupported snapshot version");
+
+		byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 4);
+		assertNotLoaded("A truncated snapshot was read.", write("truncated.snapshot", truncated), "is truncated");
+	}
+
+	@Test(timeout=5000, expected=FileNotFoundException.class)
+	public void testMissingSnapshot() throws FileNotFoundException {
+		AutoTester.fromSnapshot(new File(folder.getRoot(), "missing.snapshot").getPath());
+	}
+
+	/**
+	 * Check that a snapshot is refused by both readers with the documented exception
+	 *
+	 * @param message the message if the snapshot is read
+	 * @param file the snapshot
+	 * @param reason the part of the cause's message telling why the snapshot is refused
+	 */
+	private static void assertNotLoaded(String message, File file, String reason) {
+		try {
+			AutoTester.fromSnapshot(file.getPath());
+			fail(message);
+		} catch (FileNotFoundException e) {
+			assertThat("The reason for refusing the snapshot is lost.", e.getCause(), is(instanceOf(IOException.class)));
+			assertThat("Wrong reason for refusing the snapshot.", e.getCause().getMessage(), containsString(reason));
+		}
+		if (!reason.equals("is corrupted")) {
+			try {
+				new MappedIndex(file.getPath());
+				fail("Mapped: " + message);
+			} catch (FileNotFoundException e) {
+				assertThat("Wrong reason for refusing the mapped snapshot.", e.getCause().getMessage(),
+						containsString(reason));
+			}
+		}
+	}
+
+	/**
+	 * @param name the name of the file in the temporary folder
+	 * @param bytes the content of the file
+	 * @return the file written
+	 */
+	private static File write(String name, byte[] bytes) throws IOException {
+		File file = new File(folder.getRoot(), name);
+		Files.write(file.toPath(), bytes);
+		return file;
+	}
+
+	/**
+	 * A section search of one of the searches under test
+	 */
+	private interface SectionSearch {
+		List<Triple<Integer, Integer, String>> run(Search search);
+	}
+
+	/**
+	 * Check that two searches give the same section results
+	 */
+	private static void assertSameSections(String message, Search expected, Search actual, SectionSearch search) {
+		assertThat(message + " changed.", makeTestingTriple(search.run(actual)),
+				is(equalTo(makeTestingTriple(search.run(expected)))));
+	}
+
+}
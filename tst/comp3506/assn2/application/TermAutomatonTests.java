@@ -0,0 +1,222 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingTriple;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import comp3506.assn2.utils.Postings;
+import comp3506.assn2.utils.TestingTriple;
+import comp3506.assn2.utils.Triple;
+
+
+/**
+ * Tests of the dictionary walks of an automaton (see TermAutomaton, FrozenTrie.matchAutomaton and
+ * MappedIndex.matchAutomaton), and of the fuzzy searches built on them (see LevenshteinAutomaton).
+ * The words found are checked against running the automaton over every word of the dictionary,
+ * and the close words against a brute-force edit distance.
+ */
+public class TermAutomatonTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	// The lines of a document with words close to each other, some of them repeated
+	private static final String[] LINES = {
+			"world word world words sword worlds",
+			"worldly wold would wild old lord world",
+			"cord ward wort weird word a an i o",
+			"it's its o'er e'er x1 x2 wordworld"
+	};
+
+	private static FrozenTrie trie;				// the trie of LINES
+	private static SearchEngine engine;			// the searches of the trie
+	private static String[] terms;				// the words of LINES by term id
+	private static MappedIndex mapped;			// a mapped snapshot of the same document
+
+	@BeforeClass
+	public static void buildTrie() throws IOException {
+		TestDocument document = new TestDocument(folder, "automata", LINES);
+		trie = document.getTrie();
+		engine = document.getEngine();
+		terms = trie.getTerms();
+		mapped = document.getMapped();
+	}
+
+	@Test(timeout=1000)
+	public void testMatchAutomaton_MatchesEveryWord() {
+		List<Supplier<TermAutomaton>> automata = new ArrayList<>();
+		for (String pattern : new String[] {"w*", "wor?d*", "*", "?", "[^w]*", "*o*d", "x[0-9]", "zzz*"}) {
+			automata.add(() -> WildcardPattern.compile(pattern));
+		}
+		for (String word : new String[] {"world", "wrld", "o", "zzzzz", "its"}) {
+			for (int distance = 0; distance <= LevenshteinAutomaton.MAX_DISTANCE; distance++) {
+				int maxDistance = distance;
+				automata.add(() -> LevenshteinAutomaton.compile(word, maxDistance));
+			}
+		}
+		for (Supplier<TermAutomaton> automaton : automata) {
+			// A new automaton for each walk, so that no walk uses the states built by another
+			List<String> expected = runOverEveryWord(automaton.get());
+			String name = automaton.get().toString();
+			assertThat("Words accepted by " + name + " in the trie.",
+					toWords(trie.matchAutomaton(automaton.get(), Integer.MAX_VALUE)), is(equalTo(expected)));
+			assertThat("Words accepted by " + name + " in the mapped index.",
+					toWords(mapped.matchAutomaton(automaton.get(), Integer.MAX_VALUE)), is(equalTo(expected)));
+			for (int maxTerms : new int[] {0, 1, 2, expected.size()}) {
+				List<String> capped = expected.subList(0, Math.min(maxTerms, expected.size()));
+				assertThat("First " + maxTerms + " words accepted by " + name + " in the trie.",
+						toWords(trie.matchAutomaton(automaton.get(), maxTerms)), is(equalTo(capped)));
+				assertThat("First " + maxTerms + " words accepted by " + name + " in the mapped index.",
+						toWords(mapped.matchAutomaton(automaton.get(), maxTerms)), is(equalTo(capped)));
+			}
+		}
+	}
+
+	@Test(timeout=1000)
+	public void testFuzzyTerms_Distances() {
+		for (String word : new String[] {"world", "WORLD", "wrld", "wold", "sword", "o", "its", "zzzzz", "wordworld"}) {
+			for (int distance = 0; distance <= LevenshteinAutomaton.MAX_DISTANCE; distance++) {
+				List<TestingTriple<String, Integer, Integer>> expected = bruteForceFuzzy(word.toLowerCase(), distance);
+				assertThat("Words within " + distance + " of '" + word + "' in the trie.",
+						makeTestingTriple(engine.fuzzyTerms(word, distance)), is(equalTo(expected)));
+				assertThat("Words within " + distance + " of '" + word + "' in the mapped index.",
+						makeTestingTriple(mapped.fuzzyTerms(word, distance)), is(equalTo(expected)));
+			}
+		}
+		assertThat("Distance 0 is the word itself.", engine.fuzzyTerms("world", 0).size(), is(equalTo(1)));
+	}
+
+	@Test(timeout=500)
+	public void testFuzzyTerms_InvalidArguments() {
+		for (Object[] arguments : new Object[][] {{null, 1}, {"", 1}, {"world", -1},
+				{"world", LevenshteinAutomaton.MAX_DISTANCE + 1}}) {
+			try {
+				LevenshteinAutomaton.compile((String) arguments[0], (Integer) arguments[1]);
+				fail("Compiled '" + arguments[0] + "' within " + arguments[1] + ".");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testRank() {
+		// Word 0 occurs 3 times, word 1 5 times, word 2 once and word 3 5 times
+		int[] counts = {3, 5, 1, 5};
+		int[] offsets = new int[counts.length + 1];
+		for (int t = 0; t < counts.length; t++) {
+			offsets[t + 1] = offsets[t] + counts[t];
+		}
+		long[] packed = new long[offsets[counts.length]];
+		int[] positions = new int[packed.length];
+		for (int t = 0; t < counts.length; t++) {
+			for (int i = 0; i < counts[t]; i++) {
+				packed[offsets[t] + i] = Postings.pack(i + 1, 1);
+				positions[offsets[t] + i] = i;
+			}
+		}
+		Postings postings = Postings.encode(packed, positions, offsets);
+
+		List<Triple<String, Integer, Integer>> matches = new ArrayList<>();
+		matches.add(new Triple<>("a", 1, 0));
+		matches.add(new Triple<>("b", 1, 1));
+		matches.add(new Triple<>("c", 0, 2));
+		matches.add(new Triple<>("d", 1, 3));
+		matches.add(new Triple<>("e", 2, 0));
+		// The closest first, then the most frequent, then in the order found
+		List<TestingTriple<String, Integer, Integer>> expected = new ArrayList<>();
+		expected.add(new TestingTriple<>("c", 0, 1));
+		expected.add(new TestingTriple<>("b", 1, 5));
+		expected.add(new TestingTriple<>("d", 1, 5));
+		expected.add(new TestingTriple<>("a", 1, 3));
+		expected.add(new TestingTriple<>("e", 2, 3));
+		assertThat("Wrong ranking of the close words.", makeTestingTriple(LevenshteinAutomaton.rank(matches, postings)),
+				is(equalTo(expected)));
+		assertThat("Ranking no words.", LevenshteinAutomaton.rank(new ArrayList<>(), postings).size(), is(equalTo(0)));
+	}
+
+	/**
+	 * @param automaton an automaton with no state built yet
+	 * @return every word of the dictionary that the automaton accepts, with its term id, in lexicographic order
+	 */
+	private static List<String> runOverEveryWord(TermAutomaton automaton) {
+		List<String> accepted = new ArrayList<>();
+		for (int termId = 0; termId < terms.length; termId++) {
+			int state = automaton.start();
+			for (int i = 0; i < terms[termId].length() && state != TermAutomaton.DEAD; i++) {
+				state = automaton.step(state, automaton.classOf(terms[termId].charAt(i)));
+			}
+			if (state != TermAutomaton.DEAD && automaton.isAccepting(state)) {
+				accepted.add(terms[termId] + "#" + termId);
+			}
+		}
+		return accepted;
+	}
+
+	/**
+	 * @param matches Triples of each word found, a state and its term id
+	 * @return the words found with their term ids
+	 */
+	private static List<String> toWords(List<Triple<String, Integer, Integer>> matches) {
+		List<String> words = new ArrayList<>();
+		for (Triple<String, Integer, Integer> match : matches) {
+			assertThat("Wrong term id of '" + match.getLeftValue() + "'.", terms[match.getRightValue()],
+					is(equalTo(match.getLeftValue())));
+			words.add(match.getLeftValue() + "#" + match.getRightValue());
+		}
+		return words;
+	}
+
+	/**
+	 * @return the words of the dictionary within a distance of a word, ranked as fuzzyTerms ranks them
+	 */
+	private static List<TestingTriple<String, Integer, Integer>> bruteForceFuzzy(String word, int maxDistance) {
+		List<TestingTriple<String, Integer, Integer>> close = new ArrayList<>();
+		for (String term : terms) {
+			int distance = editDistance(term, word);
+			if (distance <= maxDistance) {
+				close.add(new TestingTriple<>(term, distance, trie.count(term)));
+			}
+		}
+		// The words are in lexicographic order, and the sort is stable
+		close.sort(Comparator.<TestingTriple<String, Integer, Integer>>comparingInt(Triple::getCentreValue)
+				.thenComparing(Comparator.<TestingTriple<String, Integer, Integer>>comparingInt(
+						Triple::getRightValue).reversed()));
+		return close;
+	}
+
+	/**
+	 * @return the number of characters to insert, delete or replace to turn one word into the other
+	 */
+	private static int editDistance(String x, String y) {
+		int[] row = new int[y.length() + 1];
+		for (int j = 0; j <= y.length(); j++) {
+			row[j] = j;
+		}
+		for (int i = 1; i <= x.length(); i++) {
+			int diagonal = row[0];
+			row[0] = i;
+			for (int j = 1; j <= y.length(); j++) {
+				int above = row[j];
+				row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1),
+						diagonal + ((x.charAt(i - 1) == y.charAt(j - 1)) ? 0 : 1));
+				diagonal = above;
+			}
+		}
+		return row[y.length()];
+	}
+
+}
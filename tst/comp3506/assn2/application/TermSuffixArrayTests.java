@@ -0,0 +1,175 @@
+package comp3506.assn2.application;
+
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+
+/**
+ * Tests of the suffix array of a dictionary (see TermSuffixArray): the words found containing or ending with
+ * a string are those a brute-force String.contains or String.endsWith over every word finds.
+ */
+public class TermSuffixArrayTests {
+
+	// A small dictionary, sorted as the tries sort their words
+	private static final String[] WORDS = {"a", "ab", "abab", "ababab", "ana", "banana", "bandana", "e'er", "it's",
+			"ness", "shakespeare", "spear", "speare", "x"};
+
+	// The letters of the words of the large dictionary, few so that the words share many strings
+	private static final String LETTERS = "abcde";
+
+	private static String[] manyWords;				// a dictionary large enough for both ways of collecting words
+	private static TermSuffixArray small;			// the suffix array of WORDS
+	private static TermSuffixArray large;			// the suffix array of manyWords
+
+	@BeforeClass
+	public static void buildArrays() {
+		small = new TermSuffixArray(WORDS);
+		Random random = new Random(3506);
+		TreeSet<String> words = new TreeSet<>();
+		while (words.size() < 5000) {
+			StringBuilder word = new StringBuilder();
+			for (int i = 1 + random.nextInt(10); i > 0; i--) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			words.add(word.toString());
+		}
+		manyWords = words.toArray(new String[0]);
+		large = new TermSuffixArray(manyWords);
+	}
+
+	@Test(timeout=500)
+	public void testSuffixCount() {
+		int characters = 0;
+		for (String word : WORDS) {
+			characters += word.length();
+		}
+		assertThat("Every character should start a suffix.", small.getSuffixCount(), is(equalTo(characters)));
+	}
+
+	@Test(timeout=500)
+	public void testSmallDictionary() {
+		for (String key : new String[] {"a", "ab", "ba", "an", "ana", "spear", "speare", "eare", "'", "'s", "e'", "s",
+				"x", "ness", "z", "abc"}) {
+			checkKey(WORDS, small, key);
+		}
+	}
+
+	@Test(timeout=500)
+	public void testKeyIsWholeWord() {
+		for (String word : WORDS) {
+			checkKey(WORDS, small, word);
+		}
+		assertThat("'spear' is in 'spear', 'speare' and 'shakespeare'.", toWords(WORDS, small.containing("spear")),
+				is(equalTo(Arrays.asList("shakespeare", "spear", "speare"))));
+		assertThat("'speare' ends 'speare' and 'shakespeare'.", toWords(WORDS, small.ending("speare")),
+				is(equalTo(Arrays.asList("shakespeare", "speare"))));
+	}
+
+	@Test(timeout=500)
+	public void testKeyLongerThanEveryWord() {
+		for (String key : new String[] {"shakespeares", "ashakespeare", "abababab", "bandanas"}) {
+			assertThat("No word contains '" + key + "'.", small.containing(key).length, is(equalTo(0)));
+			assertThat("No word ends with '" + key + "'.", small.ending(key).length, is(equalTo(0)));
+		}
+	}
+
+	@Test(timeout=500)
+	public void testKeyRepeatedInWord() {
+		// "ababab" has three suffixes starting "ab" and "banana" has two, overlapping, starting "ana"
+		assertThat("Each word containing 'ab' once.", toWords(WORDS, small.containing("ab")),
+				is(equalTo(Arrays.asList("ab", "abab", "ababab"))));
+		assertThat("Each word containing 'ana' once.", toWords(WORDS, small.containing("ana")),
+				is(equalTo(Arrays.asList("ana", "banana", "bandana"))));
+		assertThat("Each word ending with 'ab' once.", toWords(WORDS, small.ending("ab")),
+				is(equalTo(Arrays.asList("ab", "abab", "ababab"))));
+	}
+
+	@Test(timeout=5000)
+	public void testLargeDictionary_BothWaysOfCollectingWords() {
+		// The words of a range of suffixes are sorted when the range is small against the dictionary,
+		// and marked in a set of all words otherwise. Every key of up to four letters tries both
+		List<String> keys = new ArrayList<>();
+		List<String> shorter = Arrays.asList("");
+		for (int size = 1; size <= 4; size++) {
+			List<String> longer = new ArrayList<>();
+			for (String key : shorter) {
+				for (char c : LETTERS.toCharArray()) {
+					longer.add(key + c);
+				}
+			}
+			keys.addAll(longer);
+			shorter = longer;
+		}
+		int sorted = 0;
+		int marked = 0;
+		for (String key : keys) {
+			if (countSuffixes(manyWords, key) * 64L > manyWords.length) {
+				marked++;
+			} else {
+				sorted++;
+			}
+			checkKey(manyWords, large, key);
+		}
+		assertTrue("No key found words by sorting them.", sorted > 0);
+		assertTrue("No key found words by marking them.", marked > 0);
+	}
+
+	/**
+	 * Check the words found containing and ending with a key against a brute-force search
+	 */
+	private static void checkKey(String[] dictionary, TermSuffixArray array, String key) {
+		List<Integer> containing = new ArrayList<>();
+		List<Integer> ending = new ArrayList<>();
+		for (int termId = 0; termId < dictionary.length; termId++) {
+			if (dictionary[termId].contains(key)) {
+				containing.add(termId);
+			}
+			if (dictionary[termId].endsWith(key)) {
+				ending.add(termId);
+			}
+		}
+		assertThat("Words containing '" + key + "'.", toList(array.containing(key)), is(equalTo(containing)));
+		assertThat("Words ending with '" + key + "'.", toList(array.ending(key)), is(equalTo(ending)));
+	}
+
+	/**
+	 * @return the number of suffixes of the words that start with a key, counting each occurrence in a word
+	 */
+	private static int countSuffixes(String[] dictionary, String key) {
+		int count = 0;
+		for (String word : dictionary) {
+			for (int i = word.indexOf(key); i >= 0; i = word.indexOf(key, i + 1)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static List<Integer> toList(int[] termIds) {
+		List<Integer> list = new ArrayList<>();
+		for (int termId : termIds) {
+			list.add(termId);
+		}
+		return list;
+	}
+
+	private static List<String> toWords(String[] dictionary, int[] termIds) {
+		List<String> list = new ArrayList<>();
+		for (int termId : termIds) {
+			list.add(dictionary[termId]);
+		}
+		return list;
+	}
+
+}
@@ -0,0 +1,113 @@
+package comp3506.assn2.application;
+
+
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import comp3506.assn2.utils.Leaf;
+
+
+/**
+ * A small document, with optional stop-words, indexed every way the tests search it: a trie built line by line, the searches of the trie,
+ * an AutoTester loading the same lines from a file, and a MappedIndex of a snapshot of that AutoTester.
+ *
+ * It stays in the application package, rather than with TestingLists in utils, because the trie and its
+ * searches (TextTrie.getFrozen and TextTrie.searchEngine) are package-private.
+ */
+class TestDocument {
+
+	private final String[] lines;				// the lines of the document
+	private final TextTrie text;				// the trie of the lines
+	private final SearchEngine engine;			// the searches of the trie
+	private final AutoTester searchApplication;	// a search of the same document loaded from a file
+	private final MappedIndex mapped;			// a mapped snapshot of searchApplication
+
+	/**
+	 * Build the trie of some lines, and write them and a snapshot of them to a temporary folder
+	 *
+	 * @param folder the folder of the files, a ClassRule of the test
+	 * @param name the name of the files, without an extension
+	 * @param lines the lines of the document, each without a line separator
+	 * @throws IOException if a file cannot be written or read back
+	 */
+	TestDocument(TemporaryFolder folder, String name, String[] lines) throws IOException {
+		this(folder, name, lines, null);
+	}
+
+	/**
+	 * Build the trie of some lines, and write them, their stop-words and a snapshot of them to a temporary folder
+	 *
+	 * @param folder the folder of the files, a ClassRule of the test
+	 * @param name the name of the files, without an extension
+	 * @param lines the lines of the document, each without a line separator
+	 * @param stopWords the lower case words the logic searches ignore. Null for none
+	 * @throws IOException if a file cannot be written or read back
+	 */
+	TestDocument(TemporaryFolder folder, String name, String[] lines, String[] stopWords) throws IOException {
+		this.lines = lines;
+		text = buildText(lines);
+		TextTrie stopWordsTrie = null;
+		String stopWordsFileName = null;
+		if (stopWords != null) {
+			stopWordsTrie = new TextTrie();
+			for (String word : stopWords) {
+				stopWordsTrie.insertLine(word, 1, null);
+			}
+			stopWordsTrie.freeze();
+			File stopWordsFile = folder.newFile(name + " stop-words.txt");
+			Files.write(stopWordsFile.toPath(), Arrays.asList(stopWords));
+			stopWordsFileName = stopWordsFile.getPath();
+		}
+		engine = text.searchEngine(stopWordsTrie, null, lines.length);
+
+		File document = folder.newFile(name + ".txt");
+		Files.write(document.toPath(), Arrays.asList(lines));
+		searchApplication = new AutoTester(document.getPath(), null, stopWordsFileName);
+		File snapshot = new File(folder.getRoot(), name + ".snapshot");
+		searchApplication.writeSnapshot(snapshot.getPath());
+		mapped = new MappedIndex(snapshot.getPath());
+	}
+
+	/**
+	 * @param lines the lines of a document, each without a line separator
+	 * @return the frozen trie of the lines, inserted one after another
+	 */
+	static TextTrie buildText(String[] lines) {
+		TextTrie text = new TextTrie();
+		Leaf previous = null;
+		for (int i = 0; i < lines.length; i++) {
+			previous = text.insertLine(lines[i], i + 1, previous);
+		}
+		text.freeze();
+		return text;
+	}
+
+	String[] getLines() {
+		return lines;
+	}
+
+	TextTrie getText() {
+		return text;
+	}
+
+	FrozenTrie getTrie() {
+		return text.getFrozen();
+	}
+
+	SearchEngine getEngine() {
+		return engine;
+	}
+
+	AutoTester getSearchApplication() {
+		return searchApplication;
+	}
+
+	MappedIndex getMapped() {
+		return mapped;
+	}
+
+}
@@ -0,0 +1,251 @@
+package comp3506.assn2.application;
+
+
+import static comp3506.assn2.utils.TestingLists.makeTestingPair;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import comp3506.assn2.utils.Pair;
+import comp3506.assn2.utils.TestingPair;
+
+
+/**
+ * Tests of wildcard searches (see WildcardPattern and SearchEngine.matchTerms).
+ * The words matched by each pattern are checked against a brute-force match of an equivalent
+ * regular expression over every word of the dictionary.
+ */
+public class WildcardTests {
+
+	@ClassRule
+	public static TemporaryFolder folder = new TemporaryFolder();
+
+	// The lines of a document with words that tell the patterns apart
+	private static final String[] LINES = {
+			"a b ab ba aa abc bat bet bit bot but boat bait bt",
+			"abbot about batter butter bitter bottle tab stab stub tub",
+			"word world words sword wood wool worlds worldly ward",
+			"it's its o'er e'er bat world abbot x1 x2 x_y",
+			"speare shakespeare spear pear bear peare earl",
+			"ness darkness kindness witness business nest"
+	};
+
+	private static FrozenTrie trie;				// the trie of LINES
+	private static SearchEngine engine;			// the searches of the trie
+	private static String[] terms;				// the words of LINES by term id
+	private static AutoTester searchApplication;	// a search of the same document
+	private static MappedIndex mapped;			// a mapped snapshot of the same document
+
+	@BeforeClass
+	public static void buildTrie() throws IOException {
+		TestDocument document = new TestDocument(folder, "wildcards", LINES);
+		trie = document.getTrie();
+		engine = document.getEngine();
+		terms = trie.getTerms();
+		searchApplication = document.getSearchApplication();
+		mapped = document.getMapped();
+	}
+
+	@Test(timeout=500)
+	public void testAnyCharacter() {
+		checkMatches("b?t", "b.t");
+		checkMatches("?", ".");
+		checkMatches("??", "..");
+		checkMatches("b??t", "b..t");
+		checkMatches("w?r?d", "w.r.d");
+	}
+
+	@Test(timeout=500)
+	public void testAnySequence() {
+		checkMatches("b*", "b.*");
+		checkMatches("*", ".*");
+		checkMatches("*ness", ".*ness");
+		checkMatches("b*t", "b.*t");
+		checkMatches("*o*o*", ".*o.*o.*");
+		checkMatches("w*d*", "w.*d.*");
+	}
+
+	@Test(timeout=500)
+	public void testRepeatedStars() {
+		checkMatches("b**t", "b.*t");
+		checkMatches("**", ".*");
+		checkMatches("***ness", ".*ness");
+		checkMatches("wor**ld*", "wor.*ld.*");
+	}
+
+	@Test(timeout=500)
+	public void testCharacterClasses() {
+		checkMatches("b[aeiou]t", "b[aeiou]t");
+		checkMatches("[aeiou]*", "[aeiou].*");
+		checkMatches("[aeiou]", "[aeiou]");
+		checkMatches("[a-c]*", "[a-c].*");
+		checkMatches("[a-cw-z]*", "[a-cw-z].*");
+		checkMatches("*[0-9]", ".*[0-9]");
+		checkMatches("b[aeiou][aeiou]t", "b[aeiou][aeiou]t");
+		checkMatches("[bcdst][aeiou]*[bt]", "[bcdst][aeiou].*[bt]");
+		checkMatches("[]a]", "[\\]a]");
+	}
+
+	@Test(timeout=500)
+	public void testNegatedClasses() {
+		checkMatches("b[^aeiou]t", "b[^aeiou]t");
+		checkMatches("b[!aeiou]*", "b[^aeiou].*");
+		checkMatches("[^a-v]*", "[^a-v].*");
+		checkMatches("*[^s]", ".*[^s]");
+		checkMatches("[^b]?", "[^b].");
+	}
+
+	@Test(timeout=500)
+	public void testEscapes() {
+		checkMatches("\\b\\a\\t", "bat");
+		checkMatches("it\\'s", "it's");
+		checkMatches("b\\?t", "b\\?t");
+		checkMatches("b\\*", "b\\*");
+		checkMatches("[\\]]", "\\]");
+	}
+
+	@Test(timeout=500)
+	public void testUpperCase() {
+		checkMatches("B?T", "b.t");
+		checkMatches("[A-C]*", "[a-c].*");
+	}
+
+	@Test(timeout=500)
+	public void testInvalidPatterns() {
+		String tooLong = String.format("%64s", "").replace(' ', 'a');
+		for (String pattern : new String[] {null, "", "ab\\", "[ab", "[", "[z-a]", "b[^", tooLong}) {
+			try {
+				WildcardPattern.compile(pattern);
+				fail("The pattern '" + pattern + "' should not compile.");
+			} catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testMaxTerms() {
+		for (String pattern : new String[] {"b*", "*", "*ness*", "*ness", "*a*", "b[aeiou]t"}) {
+			int[] all = engine.matchTerms(WildcardPattern.compile(pattern), Integer.MAX_VALUE);
+			for (int maxTerms : new int[] {0, 1, 2, 3, all.length, all.length + 1}) {
+				int[] capped = engine.matchTerms(WildcardPattern.compile(pattern), maxTerms);
+				assertThat("Pattern '" + pattern + "' with at most " + maxTerms + " words.", capped,
+						is(equalTo(Arrays.copyOf(all, Math.min(all.length, maxTerms)))));
+			}
+		}
+		assertThat("A cursor of no words should be empty.", searchApplication.wildcardCursor("b*", 0).next(), is(false));
+		try {
+			engine.matchTerms(WildcardPattern.compile("b*"), -1);
+			fail("A negative number of words should not be accepted.");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+	@Test(timeout=500)
+	public void testLiteralPatterns_UseSuffixArray() {
+		// "*abc*" and "*abc" are found in the suffix array rather than by walking the automaton
+		assertThat("Infix of '*ear*'.", WildcardPattern.compile("*ear*").getInfix(), is(equalTo("ear")));
+		assertThat("Suffix of '*ear'.", WildcardPattern.compile("*ear").getSuffix(), is(equalTo("ear")));
+		assertThat("Infix of '**ear**'.", WildcardPattern.compile("**ear**").getInfix(), is(equalTo("ear")));
+		assertThat("Escaped infix of '*\\?*'.", WildcardPattern.compile("*\\?*").getInfix(), is(equalTo("?")));
+		for (String pattern : new String[] {"ear*", "e*r", "*e?r*", "*[ab]*", "*", "**", "*ear"}) {
+			assertThat("'" + pattern + "' is not an infix.", WildcardPattern.compile(pattern).getInfix(), is(nullValue()));
+		}
+		for (String pattern : new String[] {"ear*", "e*r", "*e?r", "*[ab]", "*", "**", "*ear*"}) {
+			assertThat("'" + pattern + "' is not a suffix.", WildcardPattern.compile(pattern).getSuffix(), is(nullValue()));
+		}
+
+		checkMatches("*ear*", ".*ear.*");
+		checkMatches("*ear", ".*ear");
+		checkMatches("*ness*", ".*ness.*");
+		checkMatches("*s", ".*s");
+		checkMatches("*bat*", ".*bat.*");
+		checkMatches("*world", ".*world");
+		checkMatches("*'*", ".*'.*");
+		checkMatches("*zzz*", ".*zzz.*");
+		checkMatches("*shakespeares", ".*shakespeares");
+	}
+
+	@Test(timeout=2000)
+	public void testOccurrences_MatchBruteForce() {
+		for (String pattern : new String[] {"[aeiou]", "b[aeiou]t", "b[^aeiou]*", "*ear*", "*ness", "w?r*", "*"}) {
+			List<TestingPair<Integer, Integer>> expected = new ArrayList<>();
+			Pattern regex = Pattern.compile(toRegex(pattern));
+			for (String term : terms) {
+				if (regex.matcher(term).matches()) {
+					expected.addAll(makeTestingPair(searchApplication.phraseOccurrence(term)));
+				}
+			}
+			expected.sort(Comparator.<TestingPair<Integer, Integer>>comparingInt(Pair::getLeftValue)
+					.thenComparingInt(Pair::getRightValue));
+			assertThat("Occurrences of '" + pattern + "'.", makeTestingPair(searchApplication.wildcardOccurrence(pattern)),
+					is(equalTo(expected)));
+			assertThat("Mapped occurrences of '" + pattern + "'.", makeTestingPair(mapped.wildcardOccurrence(pattern)),
+					is(equalTo(expected)));
+		}
+	}
+
+	/**
+	 * Check the words a pattern matches in the trie and in the mapped index against a regular expression
+	 *
+	 * @param pattern the wildcard pattern
+	 * @param regex a regular expression matching the same words
+	 */
+	private static void checkMatches(String pattern, String regex) {
+		List<Integer> expected = new ArrayList<>();
+		Pattern compiled = Pattern.compile(regex);
+		for (int termId = 0; termId < terms.length; termId++) {
+			if (compiled.matcher(terms[termId]).matches()) {
+				expected.add(termId);
+			}
+		}
+		int[] found = engine.matchTerms(WildcardPattern.compile(pattern), Integer.MAX_VALUE);
+		assertThat("Words matching '" + pattern + "'.", toWords(found), is(equalTo(toWords(expected))));
+
+		int occurrences = 0;
+		for (int termId : expected) {
+			occurrences += trie.count(terms[termId]);
+		}
+		assertThat("Mapped occurrences of '" + pattern + "'.", mapped.wildcardOccurrence(pattern).size(),
+				is(equalTo(occurrences)));
+	}
+
+	/**
+	 * @param pattern a pattern without escapes
+	 * @return the regular expression of the pattern
+	 */
+	private static String toRegex(String pattern) {
+		return pattern.replace("*", ".*").replace("?", ".").replace("[!", "[^");
+	}
+
+	private static List<String> toWords(int[] termIds) {
+		List<String> words = new ArrayList<>();
+		for (int termId : termIds) {
+			words.add(terms[termId]);
+		}
+		return words;
+	}
+
+	private static List<String> toWords(List<Integer> termIds) {
+		List<String> words = new ArrayList<>();
+		for (int termId : termIds) {
+			words.add(terms[termId]);
+		}
+		return words;
+	}
+
+}
@@ -0,0 +1,255 @@
+package comp3506.assn2.utils;
+
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+
+/**
+ * Tests of the compressed postings (see Postings and PostingsCursor): every occurrence decodes to what was
+ * encoded, across the block boundaries, and the skips through the block headers land on the occurrence
+ * a linear scan would find.
+ */
+public class PostingsTests {
+
+	// The number of occurrences of each word: none, one, a block less one, a block, a block and one, many blocks
+	private static final int[] COUNTS = {0, 1, 127, 128, 129, 1000};
+
+	private static Postings postings;
+	private static int[][] lines;		// the line of each occurrence, by word
+	private static int[][] cols;		// the column of each occurrence, by word
+	private static int[][] positions;	// the position of each occurrence, by word
+
+	@BeforeClass
+	public static void encode() {
+		Random random = new Random(3506);
+		int wordCount = COUNTS.length + 1;
+		lines = new int[wordCount][];
+		cols = new int[wordCount][];
+		positions = new int[wordCount][];
+		for (int t = 0; t < COUNTS.length; t++) {
+			int count = COUNTS[t];
+			lines[t] = new int[count];
+			cols[t] = new int[count];
+			positions[t] = new int[count];
+			int line = 1;
+			int position = random.nextInt(10);
+			for (int i = 0; i < count; i++) {
+				// Several occurrences of a word are often on the same line
+				line += (random.nextInt(3) == 0) ? 0 : 1 + random.nextInt(20);
+				position += 1 + random.nextInt(50);
+				lines[t][i] = line;
+				cols[t][i] = (i > 0 && lines[t][i - 1] == line) ? cols[t][i - 1] + 1 + random.nextInt(30)
+						: 1 + random.nextInt(80);
+				positions[t][i] = position;
+			}
+		}
+		// Gaps needing every size of variable-byte number, up to the largest int
+		int[] gaps = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456};
+		int last = COUNTS.length;
+		lines[last] = new int[gaps.length + 1];
+		cols[last] = new int[gaps.length + 1];
+		positions[last] = new int[gaps.length + 1];
+		for (int i = 1; i <= gaps.length; i++) {
+			lines[last][i] = lines[last][i - 1] + gaps[i - 1];
+			cols[last][i] = (gaps[i - 1] == 0) ? cols[last][i - 1] + 1 : gaps[gaps.length - i];
+			positions[last][i] = positions[last][i - 1] + 1 + gaps[i - 1];
+		}
+		lines[last][gaps.length] = Integer.MAX_VALUE;
+		cols[last][gaps.length] = Integer.MAX_VALUE;
+		positions[last][gaps.length] = Integer.MAX_VALUE;
+
+		int[] offsets = new int[wordCount + 1];
+		for (int t = 0; t < wordCount; t++) {
+			offsets[t + 1] = offsets[t] + lines[t].length;
+		}
+		long[] packed = new long[offsets[wordCount]];
+		int[] allPositions = new int[offsets[wordCount]];
+		for (int t = 0; t < wordCount; t++) {
+			for (int i = 0; i < lines[t].length; i++) {
+				packed[offsets[t] + i] = Postings.pack(lines[t][i], cols[t][i]);
+				allPositions[offsets[t] + i] = positions[t][i];
+			}
+		}
+		postings = Postings.encode(packed, allPositions, offsets);
+	}
+
+	@Test(timeout=500)
+	public void testCounts() {
+		assertThat("Wrong number of words.", postings.getTermCount(), is(equalTo(lines.length)));
+		int total = 0;
+		for (int t = 0; t < lines.length; t++) {
+			assertThat("Wrong number of occurrences of word " + t + ".", postings.count(t), is(equalTo(lines[t].length)));
+			total += lines[t].length;
+		}
+		assertThat("Wrong number of occurrences.", postings.getSize(), is(equalTo(total)));
+		assertThat("Wrong number of occurrences of a range of words.", postings.count(1, 4),
+				is(equalTo(1 + 127 + 128)));
+	}
+
+	@Test(timeout=500)
+	public void testNext_DecodesEveryOccurrence() {
+		for (int t = 0; t < lines.length; t++) {
+			PostingsCursor cursor = postings.cursor(t);
+			for (int i = 0; i < lines[t].length; i++) {
+				assertTrue("Word " + t + " ended before occurrence " + i + ".", cursor.next());
+				assertOccurrence("Word " + t + " occurrence " + i, cursor, t, i);
+			}
+			assertFalse("Word " + t + " has too many occurrences.", cursor.next());
+			assertFalse("A cursor moved past its last occurrence.", cursor.next());
+		}
+	}
+
+	@Test(timeout=500)
+	public void testWriteVByte_Sizes() {
+		int[] values = {0, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456, Integer.MAX_VALUE, -1};
+		int[] sizes = {1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 5};
+		for (int i = 0; i < values.length; i++) {
+			byte[] bytes = new byte[5];
+			assertThat("Wrong number of bytes for " + values[i] + ".", Postings.writeVByte(bytes, 0, values[i]),
+					is(equalTo(sizes[i])));
+		}
+	}
+
+	@Test(timeout=500)
+	public void testSkip() {
+		for (int t = 0; t < lines.length; t++) {
+			int count = lines[t].length;
+			for (int from = -1; from < count; from += step(count)) {
+				for (int by : new int[] {1, 2, 126, 127, 128, 129, 300, count + 1}) {
+					PostingsCursor cursor = cursorAt(t, from);
+					int target = from + by;
+					assertThat("Skip by " + by + " from " + from + " in word " + t + ".", cursor.skip(by),
+							is(target < count));
+					if (target < count) {
+						assertOccurrence("Skip by " + by + " from " + from + " in word " + t, cursor, t, target);
+					}
+				}
+			}
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testSkipToLine() {
+		for (int t = 0; t < lines.length; t++) {
+			int count = lines[t].length;
+			for (int from = -1; from < count; from += step(count)) {
+				for (int k = 0; k < count; k += step(count)) {
+					for (int target : new int[] {lines[t][k] - 1, lines[t][k], lines[t][k] + 1}) {
+						PostingsCursor cursor = cursorAt(t, from);
+						int expected = Math.max(from, 0);
+						while (expected < count && lines[t][expected] < target) {
+							expected++;
+						}
+						assertThat("Skip to line " + target + " from " + from + " in word " + t + ".",
+								cursor.skipToLine(target), is(expected < count));
+						if (expected < count) {
+							assertOccurrence("Skip to line " + target + " from " + from + " in word " + t, cursor, t,
+									expected);
+						}
+					}
+				}
+			}
+			if (count > 0 && lines[t][count - 1] < Integer.MAX_VALUE) {
+				assertFalse("Skipped to a line after the last occurrence of word " + t + ".",
+						postings.cursor(t).skipToLine(lines[t][count - 1] + 1));
+			}
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testSeekLine_Backwards() {
+		for (int t = 0; t < lines.length; t++) {
+			int count = lines[t].length;
+			PostingsCursor cursor = postings.cursor(t);
+			// Seek from the last occurrence towards the first, then past the last
+			for (int k = count - 1; k >= 0; k -= 13) {
+				int expected = 0;
+				while (lines[t][expected] < lines[t][k]) {
+					expected++;
+				}
+				assertTrue("Seek to line " + lines[t][k] + " in word " + t + " failed.", cursor.seekLine(lines[t][k]));
+				assertOccurrence("Seek to line " + lines[t][k] + " in word " + t, cursor, t, expected);
+			}
+			if (count > 0 && lines[t][count - 1] < Integer.MAX_VALUE) {
+				assertFalse("Seek past the last line of word " + t + ".", cursor.seekLine(lines[t][count - 1] + 1));
+				assertTrue("Seek back from the end of word " + t + " failed.", cursor.seekLine(lines[t][0]));
+				assertOccurrence("Seek back from the end of word " + t, cursor, t, 0);
+			}
+		}
+	}
+
+	@Test(timeout=2000)
+	public void testSkipToPosition() {
+		for (int t = 0; t < lines.length; t++) {
+			int count = lines[t].length;
+			for (int from = -1; from < count; from += step(count)) {
+				for (int k = 0; k < count; k += step(count)) {
+					// The position itself, the gap before it and the next position, which is often in the same block
+					for (int target : new int[] {positions[t][k] - 1, positions[t][k], positions[t][k] + 1}) {
+						PostingsCursor cursor = cursorAt(t, from);
+						int expected = Math.max(from, 0);
+						while (expected < count && positions[t][expected] < target) {
+							expected++;
+						}
+						assertThat("Skip to position " + target + " from " + from + " in word " + t + ".",
+								cursor.skipToPosition(target), is(expected < count));
+						if (expected < count) {
+							assertOccurrence("Skip to position " + target + " from " + from + " in word " + t, cursor,
+									t, expected);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test(timeout=500)
+	public void testSkipToPosition_AcrossBlockBoundary() {
+		int t = 4;	// 129 occurrences: the last one is alone in the second block
+		PostingsCursor cursor = cursorAt(t, 126);
+		assertTrue("Skip to the last occurrence of the first block failed.", cursor.skipToPosition(positions[t][127]));
+		assertOccurrence("Last occurrence of the first block", cursor, t, 127);
+		assertTrue("Skip into the second block failed.", cursor.skipToPosition(positions[t][127] + 1));
+		assertOccurrence("First occurrence of the second block", cursor, t, 128);
+		assertFalse("Skipped past the last occurrence.", cursor.skipToPosition(positions[t][128] + 1));
+		assertFalse("A cursor moved after its last occurrence.", cursor.next());
+	}
+
+	/**
+	 * @param count the number of occurrences of a word
+	 * @return the step between the occurrences tried, so that about 40 of them are tried for any word
+	 */
+	private static int step(int count) {
+		return Math.max(1, count / 40);
+	}
+
+	/**
+	 * @param termId the word
+	 * @param index the occurrence to move to. -1 for before the first occurrence
+	 * @return a cursor of the word at the occurrence, moved there one occurrence at a time
+	 */
+	private static PostingsCursor cursorAt(int termId, int index) {
+		PostingsCursor cursor = postings.cursor(termId);
+		for (int i = 0; i <= index; i++) {
+			cursor.next();
+		}
+		return cursor;
+	}
+
+	/**
+	 * Check that a cursor is at an occurrence
+	 */
+	private static void assertOccurrence(String message, PostingsCursor cursor, int termId, int index) {
+		assertThat(message + ": wrong line.", cursor.getLine(), is(equalTo(lines[termId][index])));
+		assertThat(message + ": wrong column.", cursor.getCol(), is(equalTo(cols[termId][index])));
+		assertThat(message + ": wrong position.", cursor.getPosition(), is(equalTo(positions[termId][index])));
+	}
+
+}
@@ -0,0 +1,35 @@
+package comp3506.assn2.utils;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Conversions of search results to the TestingPairs and TestingTriples the tests compare them as.
+ */
+public class TestingLists {
+
+	/**
+	 * @param data The list of Pairs to be converted to a list of TestingPairs.
+	 */
+	public static <L, R> List<TestingPair<L, R>> makeTestingPair(List<Pair<L, R>> data) {
+		List<TestingPair<L, R>> result = new ArrayList<>();
+		for (Pair<L, R> pair: data) {
+			result.add(new TestingPair<L, R>(pair));
+		}
+		return result;
+	}
+
+	/**
+	 * @param data The list of Triples to be converted to a list of TestingTriples.
+	 */
+	public static <L, C, R> List<TestingTriple<L, C, R>> makeTestingTriple(List<Triple<L, C, R>> data) {
+		List<TestingTriple<L, C, R>> result = new ArrayList<>();
+		for (Triple<L, C, R> triple: data) {
+			result.add(new TestingTriple<L, C, R>(triple));
+		}
+		return result;
+	}
+
+}